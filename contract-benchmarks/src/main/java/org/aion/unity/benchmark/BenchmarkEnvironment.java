@@ -0,0 +1,236 @@
+package org.aion.unity.benchmark;
+
+import avm.Address;
+import org.aion.avm.embed.AvmRule;
+import org.aion.avm.tooling.ABIUtil;
+import org.aion.avm.userlib.abi.ABIStreamingEncoder;
+import org.aion.kernel.TestingState;
+import org.aion.unity.AionBlockHeader;
+import org.aion.unity.Arrays;
+import org.aion.unity.Decimal;
+import org.aion.unity.OrderedAddressSet;
+import org.aion.unity.PoolRegistry;
+import org.aion.unity.PoolRegistryEvents;
+import org.aion.unity.PoolRewardsEngine;
+import org.aion.unity.PoolRewardsStateMachine;
+import org.aion.unity.PoolState;
+import org.aion.unity.PoolStorage;
+import org.aion.unity.StakerRegistry;
+import org.aion.unity.StakerRegistryEvents;
+import org.aion.unity.StakerStorage;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.web3j.rlp.RlpDecoder;
+import org.web3j.rlp.RlpEncoder;
+import org.web3j.rlp.RlpList;
+import org.web3j.rlp.RlpString;
+import org.web3j.rlp.RlpType;
+
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An embedded AVM with both registries deployed and one pool registered, which the
+ * benchmark scenarios run against. The scenarios of the staker registry alone run against a
+ * staker registered directly, on first use.
+ */
+public class BenchmarkEnvironment {
+
+    public static final BigInteger ENOUGH_BALANCE_TO_TRANSACT = BigInteger.TEN.pow(18 + 5);
+    public static final BigInteger DELEGATOR_STAKE = BigInteger.TEN;
+    public static final BigInteger VOTER_STAKE = BigInteger.TEN;
+
+    public static final long ENERGY_LIMIT = 100_000_000L;
+    public static final long ENERGY_PRICE = 1L;
+
+    public interface Body {
+        void run(BenchmarkEnvironment env) throws Exception;
+    }
+
+    /**
+     * Runs the body against a fresh chain.
+     */
+    public static void run(Body body) throws Throwable {
+        AvmRule rule = new AvmRule(false);
+        rule.apply(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                body.run(new BenchmarkEnvironment(rule));
+            }
+        }, Description.EMPTY).evaluate();
+    }
+
+    public final AvmRule rule;
+    public final Address preminedAddress;
+    public final Address stakerRegistry;
+    public final Address poolRegistry;
+    public final Address pool;
+    public final PoSHeaderSigner signer = new PoSHeaderSigner(); // the signing key of the pool
+    public final List<Address> delegators = new ArrayList<>();
+    public final PoSHeaderSigner stakerSigner = new PoSHeaderSigner(); // the signing key of the staker
+    public Address staker; // registered by addVoters
+    public final List<Address> voters = new ArrayList<>();
+
+    private BenchmarkEnvironment(AvmRule rule) {
+        this.rule = rule;
+        this.preminedAddress = rule.getPreminedAccount();
+
+        byte[] jar = rule.getDappBytes(StakerRegistry.class, null,
+                AionBlockHeader.class, RlpDecoder.class, RlpEncoder.class, RlpList.class, RlpString.class, RlpType.class,
+                Arrays.class, StakerStorage.class, StakerRegistryEvents.class);
+        this.stakerRegistry = deploy(jar);
+
+        jar = rule.getDappBytes(PoolRegistry.class, ABIUtil.encodeDeploymentArguments(stakerRegistry),
+                PoolState.class, PoolRewardsStateMachine.class, PoolRewardsEngine.class, Decimal.class, PoolStorage.class, PoolRegistryEvents.class, OrderedAddressSet.class);
+        this.poolRegistry = deploy(jar);
+
+        this.pool = rule.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("registerPool")
+                .encodeOneAddress(signer.getSigningAddress())
+                .encodeOneInteger(10)
+                .encodeOneByteArray("https://".getBytes())
+                .encodeOneByteArray("hash".getBytes())
+                .toBytes();
+        call(pool, poolRegistry, BigInteger.ZERO, txData);
+        delegate(pool, PoolRegistry.MIN_SELF_STAKE);
+    }
+
+    private Address deploy(byte[] jar) {
+        AvmRule.ResultWrapper result = rule.deploy(preminedAddress, BigInteger.ZERO, jar, ENERGY_LIMIT, ENERGY_PRICE);
+        if (!result.getReceiptStatus().isSuccess()) {
+            throw new IllegalStateException("Failed to deploy: " + result.getReceiptStatus());
+        }
+        return result.getDappAddress();
+    }
+
+    /**
+     * Grows the pool to the given number of delegators.
+     */
+    public void addDelegators(int count) {
+        while (delegators.size() < count) {
+            Address delegator = rule.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+            delegate(delegator, DELEGATOR_STAKE);
+            delegators.add(delegator);
+        }
+    }
+
+    /**
+     * Grows the direct voters of the staker to the given number, registering the staker
+     * first if needed.
+     */
+    public void addVoters(int count) {
+        if (staker == null) {
+            staker = registerStaker(stakerSigner, 0);
+        }
+        while (voters.size() < count) {
+            Address voter = rule.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+            vote(voter, staker, VOTER_STAKE);
+            voters.add(voter);
+        }
+    }
+
+    /**
+     * Registers a staker directly in the staker registry, bonded with the minimum self stake
+     * and followed by the given number of {@link NoopListener}s. The identity address of the
+     * staker also manages it and holds its self-bond.
+     *
+     * @return the identity address of the staker
+     */
+    public Address registerStaker(PoSHeaderSigner signer, int listeners) {
+        Address staker = rule.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("registerStaker")
+                .encodeOneAddress(staker)
+                .encodeOneAddress(staker)
+                .encodeOneAddress(signer.getSigningAddress())
+                .encodeOneAddress(staker)
+                .encodeOneAddress(staker)
+                .toBytes();
+        call(staker, stakerRegistry, BigInteger.ZERO, txData);
+        vote(staker, StakerRegistry.MIN_SELF_STAKE);
+
+        byte[] jar = rule.getDappBytes(NoopListener.class, null);
+        for (int i = 0; i < listeners; i++) {
+            txData = new ABIStreamingEncoder()
+                    .encodeOneString("addListener")
+                    .encodeOneAddress(staker)
+                    .encodeOneAddress(deploy(jar))
+                    .toBytes();
+            call(staker, stakerRegistry, BigInteger.ZERO, txData);
+        }
+        return staker;
+    }
+
+    /**
+     * Adds to the self-bond of a staker registered by {@link #registerStaker}.
+     */
+    public AvmRule.ResultWrapper vote(Address staker, BigInteger stake) {
+        return vote(staker, staker, stake);
+    }
+
+    public AvmRule.ResultWrapper vote(Address voter, Address staker, BigInteger stake) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("vote")
+                .encodeOneAddress(staker)
+                .toBytes();
+        return call(voter, stakerRegistry, stake, txData);
+    }
+
+    public AvmRule.ResultWrapper delegate(Address delegator, BigInteger stake) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("delegate")
+                .encodeOneAddress(pool)
+                .toBytes();
+        return call(delegator, poolRegistry, stake, txData);
+    }
+
+    /**
+     * Sends block rewards to the pool coinbase and moves to the next block.
+     */
+    public void generateBlock(long blockRewards) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("getCoinbaseAddress")
+                .encodeOneAddress(pool)
+                .toBytes();
+        Address coinbaseAddress = (Address) call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData).getDecodedReturnData();
+        rule.balanceTransfer(preminedAddress, coinbaseAddress, BigInteger.valueOf(blockRewards), 1_000_000L, ENERGY_PRICE);
+        setBlockNumber(rule.kernel.getBlockNumber() + 1);
+    }
+
+    public void setBlockNumber(long number) {
+        try {
+            Field f = TestingState.class.getDeclaredField("blockNumber");
+            f.setAccessible(true);
+            f.set(rule.kernel, number);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sends a transaction which must succeed.
+     */
+    public AvmRule.ResultWrapper call(Address from, Address to, BigInteger value, byte[] txData) {
+        AvmRule.ResultWrapper result = rule.call(from, to, value, txData, ENERGY_LIMIT, ENERGY_PRICE);
+        if (!result.getReceiptStatus().isSuccess()) {
+            throw new IllegalStateException("Transaction failed: " + result.getReceiptStatus());
+        }
+        return result;
+    }
+
+    /**
+     * Sends a transaction which must succeed, and records its energy usage and wall-clock time.
+     */
+    public void measure(Measurement measurement, Address from, Address to, BigInteger value, byte[] txData) {
+        long start = System.nanoTime();
+        AvmRule.ResultWrapper result = rule.call(from, to, value, txData, ENERGY_LIMIT, ENERGY_PRICE);
+        long nanos = System.nanoTime() - start;
+        if (!result.getReceiptStatus().isSuccess()) {
+            throw new IllegalStateException(measurement.scenario + " failed: " + result.getReceiptStatus());
+        }
+        measurement.add(result.getTransactionResult().energyUsed, nanos);
+    }
+}
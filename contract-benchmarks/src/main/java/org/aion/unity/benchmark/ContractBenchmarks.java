@@ -0,0 +1,96 @@
+package org.aion.unity.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmark scenarios against the staker registry and the pool registry, and
+ * writes a JSON report of the energy usage and wall-clock time per call.
+ * <p>
+ * Each (scenario, delegator count) pair runs on a fresh chain. For the staker registry
+ * scenarios, {@code vote} and {@code getEffectiveStake}, the count is of direct voters. Energy usage is
+ * deterministic, so reports of two releases can be diffed to spot energy regressions;
+ * wall-clock time is informative only.
+ * <p>
+ * Usage: {@code ContractBenchmarks [--scenarios delegate,withdraw] [--delegators 10,1000]
+ * [--calls 10] [--output target/benchmark-report.json]}
+ */
+public class ContractBenchmarks {
+
+    private static final int[] DEFAULT_DELEGATORS = {10, 1_000, 100_000};
+    private static final int DEFAULT_CALLS = 10;
+    private static final String DEFAULT_OUTPUT = "target/benchmark-report.json";
+
+    public static void main(String[] args) throws Throwable {
+        List<Scenario> scenarios = new ArrayList<>(Arrays.asList(Scenario.values()));
+        int[] delegatorCounts = DEFAULT_DELEGATORS;
+        int calls = DEFAULT_CALLS;
+        Path output = Paths.get(DEFAULT_OUTPUT);
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--scenarios":
+                    scenarios.clear();
+                    for (String id : value.split(",")) {
+                        scenarios.add(Scenario.fromId(id.trim()));
+                    }
+                    break;
+                case "--delegators":
+                    String[] counts = value.split(",");
+                    delegatorCounts = new int[counts.length];
+                    for (int j = 0; j < counts.length; j++) {
+                        delegatorCounts[j] = Integer.parseInt(counts[j].trim());
+                    }
+                    break;
+                case "--calls":
+                    calls = Integer.parseInt(value);
+                    break;
+                case "--output":
+                    output = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        List<Measurement> measurements = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            for (int delegators : delegatorCounts) {
+                measurements.add(run(scenario, delegators, calls));
+            }
+        }
+
+        writeReport(measurements, output);
+    }
+
+    public static Measurement run(Scenario scenario, int delegators, int calls) throws Throwable {
+        Measurement m = new Measurement(scenario.id, delegators);
+        BenchmarkEnvironment.run(env -> {
+            scenario.prepare(env, delegators);
+            scenario.run(env, m, Math.min(calls, delegators));
+        });
+        System.out.println(m.toJson());
+        return m;
+    }
+
+    public static void writeReport(List<Measurement> measurements, Path output) throws IOException {
+        StringBuilder sb = new StringBuilder("{\n  \"measurements\": [\n");
+        for (int i = 0; i < measurements.size(); i++) {
+            sb.append("    ").append(measurements.get(i).toJson());
+            sb.append(i + 1 < measurements.size() ? ",\n" : "\n");
+        }
+        sb.append("  ]\n}\n");
+
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Files.write(output, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,55 @@
+package org.aion.unity.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The energy usage and wall-clock time of the measured calls of one scenario run.
+ */
+public class Measurement {
+
+    public final String scenario;
+    public final int delegators;
+
+    private final List<Long> energy = new ArrayList<>();
+    private final List<Long> nanos = new ArrayList<>();
+
+    public Measurement(String scenario, int delegators) {
+        this.scenario = scenario;
+        this.delegators = delegators;
+    }
+
+    public void add(long energyUsed, long wallTimeNanos) {
+        energy.add(energyUsed);
+        nanos.add(wallTimeNanos);
+    }
+
+    public int calls() {
+        return energy.size();
+    }
+
+    public String toJson() {
+        return "{\"scenario\": \"" + scenario + "\""
+                + ", \"delegators\": " + delegators
+                + ", \"calls\": " + calls()
+                + ", \"energy\": " + stats(energy)
+                + ", \"wallTimeNanos\": " + stats(nanos)
+                + "}";
+    }
+
+    private static String stats(List<Long> values) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long sum = 0;
+        for (long v : values) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            sum += v;
+        }
+        long mean = values.isEmpty() ? 0 : sum / values.size();
+        if (values.isEmpty()) {
+            min = max = 0;
+        }
+        return "{\"min\": " + min + ", \"max\": " + max + ", \"mean\": " + mean + "}";
+    }
+}
@@ -0,0 +1,19 @@
+package org.aion.unity.benchmark;
+
+import avm.Address;
+import org.aion.avm.tooling.abi.Callable;
+
+/**
+ * A staker registry listener which accepts every notification and does nothing, so the
+ * slash scenarios measure the cost of the fan-out itself.
+ */
+public class NoopListener {
+
+    @Callable
+    public static void onListenerAdded(Address staker) {
+    }
+
+    @Callable
+    public static void onSlashing(Address staker, long stake) {
+    }
+}
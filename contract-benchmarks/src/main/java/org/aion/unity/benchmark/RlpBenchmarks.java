@@ -0,0 +1,236 @@
+package org.aion.unity.benchmark;
+
+import org.aion.unity.AionBlockHeader;
+import org.web3j.rlp.RlpDecoder;
+import org.web3j.rlp.RlpEncoder;
+import org.web3j.rlp.RlpList;
+import org.web3j.rlp.RlpString;
+import org.web3j.rlp.RlpType;
+
+import java.util.List;
+
+/**
+ * Measures the wall-clock time of the RLP codec:
+ * <ul>
+ * <li>decoding block headers with the tree-building {@link RlpDecoder#decode}, the in-place
+ * {@link RlpDecoder#walk} and the lazy {@link AionBlockHeader} built on it;</li>
+ * <li>encoding lists of growing size with {@link RlpEncoder#encode}, against the former
+ * concatenating encoder, to show how each scales with the list size;</li>
+ * <li>encoding a header from an {@link RlpList} and directly from its fields.</li>
+ * </ul>
+ * <p>
+ * Unlike {@link ContractBenchmarks}, this runs the codec directly on the JVM, so the
+ * figures are only meaningful relative to each other.
+ * <p>
+ * Usage: {@code RlpBenchmarks [iterations]}
+ */
+public class RlpBenchmarks {
+
+    private static final int DEFAULT_ITERATIONS = 200_000;
+    private static final int[] LIST_SIZES = {10, 100, 1_000, 10_000};
+
+    /**
+     * Header fixtures: a header dumped from the Aion Java kernel, and one with the field
+     * sizes of a mainnet header (256-byte logs bloom, 32-byte nonce, 1408-byte solution).
+     */
+    private static final String[][] FIXTURES = {
+            {"kernel-dump", "f8dd0102a06068a128093216a3c0bd9b8cecea132731b8d4fca67de87020b42965fd32a581a0bee628af072dde474c426e5062b2c5ad6888ad3221fe949a1962df918159ded2a0f2953aeb18a5bcb88220ecc0f2c5e222d932f09cc7a26f724276c67fb1c301a5a02e5def03d03e5e6a1b2b22c8185263920b36e056d4e7b1a0d9318764ce0758f3a090685796aa5ee0da1a7d27b5d43b7d52e9f8f2199f5d579489431524170d9828a00000000000000000000000000000000000000000000000000000000000000000038464617461040506857061727431857061727432"},
+            {"mainnet-sized", null}
+    };
+
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+        // every variant is run twice, and only the second, warmed up, round is reported
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+
+            for (String[] fixture : FIXTURES) {
+                byte[] header = fixture[1] != null ? hexToBytes(fixture[1]) : mainnetSizedHeader();
+                measure(report, "decode", fixture[0], "decode-tree", iterations, () -> decodeTree(header));
+                measure(report, "decode", fixture[0], "walk", iterations, () -> walk(header));
+                measure(report, "decode", fixture[0], "lazy-header", iterations, () -> lazyHeader(header));
+            }
+
+            for (int size : LIST_SIZES) {
+                RlpList list = listOfHashes(size);
+                int n = Math.max(10, iterations / size);
+                measure(report, "encode-list", String.valueOf(size), "concat", n, () -> concatEncode(list).length);
+                measure(report, "encode-list", String.valueOf(size), "pre-sized", n, () -> RlpEncoder.encode(list).length);
+            }
+
+            RlpList header = mainnetSizedHeaderList();
+            measure(report, "encode-header", "mainnet-sized", "rlp-list", iterations, () -> RlpEncoder.encode(header).length);
+            measure(report, "encode-header", "mainnet-sized", "direct", iterations, () -> mainnetSizedHeader().length);
+        }
+    }
+
+    private interface Body {
+        long run();
+    }
+
+    private static void measure(boolean report, String benchmark, String input, String variant, int iterations, Body body) {
+        long start = System.nanoTime();
+        long acc = 0;
+        for (int i = 0; i < iterations; i++) {
+            acc += body.run();
+        }
+        long nanos = System.nanoTime() - start;
+        sink += acc;
+
+        if (report) {
+            System.out.println("{\"benchmark\": \"" + benchmark + "\""
+                    + ", \"input\": \"" + input + "\""
+                    + ", \"variant\": \"" + variant + "\""
+                    + ", \"iterations\": " + iterations
+                    + ", \"nanosPerOp\": " + nanos / iterations
+                    + "}");
+        }
+    }
+
+    /**
+     * Reads the block number and the parent hash the way the header used to: from the
+     * decoded tree.
+     */
+    private static long decodeTree(byte[] encoded) {
+        List<RlpType> header = ((RlpList) RlpDecoder.decode(encoded).getValues().get(0)).getValues();
+        return ((RlpString) header.get(1)).asPositiveBigInteger().longValue()
+                + ((RlpString) header.get(2)).getBytes()[0];
+    }
+
+    private static long walk(byte[] encoded) {
+        long[] acc = new long[1];
+        RlpDecoder.walk(encoded, 0, encoded.length, new RlpDecoder.Visitor() {
+            @Override
+            public boolean visit(int offset, int length, boolean isList) {
+                acc[0] += offset + length;
+                return isList;
+            }
+
+            @Override
+            public void endList() {
+            }
+        });
+        return acc[0];
+    }
+
+    private static long lazyHeader(byte[] encoded) {
+        AionBlockHeader header = new AionBlockHeader(encoded);
+        return header.getNumber() + header.getParentHash()[0];
+    }
+
+    /**
+     * The fields of a header with mainnet sizes: version, number, parent hash, coinbase,
+     * state root, tx trie root, receipt trie root, logs bloom, difficulty, extra data,
+     * energy consumed, energy limit, timestamp, nonce and solution.
+     */
+    private static final long NUMBER = 4_000_000L;
+    private static final long ENERGY_CONSUMED = 2_000_000L;
+    private static final long ENERGY_LIMIT = 15_000_000L;
+    private static final long TIMESTAMP = 0x5d5e5f60L;
+    private static final byte[] HASH = filled(32);
+    private static final byte[] LOGS_BLOOM = filled(256);
+    private static final byte[] DIFFICULTY = filled(16);
+    private static final byte[] SOLUTION = filled(1408);
+
+    /**
+     * Encodes the mainnet-sized header directly from its fields.
+     */
+    private static byte[] mainnetSizedHeader() {
+        int payload = RlpEncoder.sizeOfLong(1)
+                + RlpEncoder.sizeOfLong(NUMBER)
+                + RlpEncoder.sizeOfString(HASH) * 5
+                + RlpEncoder.sizeOfString(LOGS_BLOOM)
+                + RlpEncoder.sizeOfString(DIFFICULTY)
+                + RlpEncoder.sizeOfString(HASH)
+                + RlpEncoder.sizeOfLong(ENERGY_CONSUMED)
+                + RlpEncoder.sizeOfLong(ENERGY_LIMIT)
+                + RlpEncoder.sizeOfLong(TIMESTAMP)
+                + RlpEncoder.sizeOfString(HASH)
+                + RlpEncoder.sizeOfString(SOLUTION);
+
+        byte[] encoded = new byte[RlpEncoder.sizeOfList(payload)];
+        int pos = RlpEncoder.writeListPrefix(encoded, 0, payload);
+        pos = RlpEncoder.writeLong(encoded, pos, 1);
+        pos = RlpEncoder.writeLong(encoded, pos, NUMBER);
+        for (int i = 0; i < 5; i++) {
+            pos = RlpEncoder.writeString(encoded, pos, HASH);
+        }
+        pos = RlpEncoder.writeString(encoded, pos, LOGS_BLOOM);
+        pos = RlpEncoder.writeString(encoded, pos, DIFFICULTY);
+        pos = RlpEncoder.writeString(encoded, pos, HASH);
+        pos = RlpEncoder.writeLong(encoded, pos, ENERGY_CONSUMED);
+        pos = RlpEncoder.writeLong(encoded, pos, ENERGY_LIMIT);
+        pos = RlpEncoder.writeLong(encoded, pos, TIMESTAMP);
+        pos = RlpEncoder.writeString(encoded, pos, HASH);
+        RlpEncoder.writeString(encoded, pos, SOLUTION);
+        return encoded;
+    }
+
+    private static RlpList mainnetSizedHeaderList() {
+        return new RlpList(
+                RlpString.create(1),
+                RlpString.create(NUMBER),
+                RlpString.create(HASH),
+                RlpString.create(HASH),
+                RlpString.create(HASH),
+                RlpString.create(HASH),
+                RlpString.create(HASH),
+                RlpString.create(LOGS_BLOOM),
+                RlpString.create(DIFFICULTY),
+                RlpString.create(HASH),
+                RlpString.create(ENERGY_CONSUMED),
+                RlpString.create(ENERGY_LIMIT),
+                RlpString.create(TIMESTAMP),
+                RlpString.create(HASH),
+                RlpString.create(SOLUTION));
+    }
+
+    private static RlpList listOfHashes(int size) {
+        RlpType[] items = new RlpType[size];
+        for (int i = 0; i < size; i++) {
+            items[i] = RlpString.create(HASH);
+        }
+        return new RlpList(items);
+    }
+
+    /**
+     * The former list encoder, which appended each encoded item to a copy of the result so
+     * far; kept here as the baseline.
+     */
+    private static byte[] concatEncode(RlpType value) {
+        if (value instanceof RlpString) {
+            return RlpEncoder.encode(value);
+        }
+        byte[] result = new byte[0];
+        for (RlpType entry : ((RlpList) value).getValues()) {
+            byte[] encoded = concatEncode(entry);
+            byte[] concat = new byte[result.length + encoded.length];
+            System.arraycopy(result, 0, concat, 0, result.length);
+            System.arraycopy(encoded, 0, concat, result.length, encoded.length);
+            result = concat;
+        }
+        byte[] encoded = new byte[RlpEncoder.sizeOfList(result.length)];
+        int pos = RlpEncoder.writeListPrefix(encoded, 0, result.length);
+        System.arraycopy(result, 0, encoded, pos, result.length);
+        return encoded;
+    }
+
+    private static byte[] filled(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i + 1);
+        }
+        return bytes;
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,238 @@
+package org.aion.unity.benchmark;
+
+import avm.Address;
+import org.aion.avm.userlib.abi.ABIStreamingEncoder;
+import org.aion.unity.StakerRegistry;
+
+import java.math.BigInteger;
+
+/**
+ * A benchmarked operation. Each scenario first prepares the pool, or the staker for the
+ * staker registry scenarios, which is not measured, and then measures a number of calls of
+ * the operation.
+ */
+public enum Scenario {
+
+    DELEGATE("delegate") {
+        @Override
+        void run(BenchmarkEnvironment env, Measurement m, int calls) {
+            for (int i = 0; i < calls; i++) {
+                Address delegator = env.rule.getRandomAddress(BenchmarkEnvironment.ENOUGH_BALANCE_TO_TRANSACT);
+                byte[] txData = new ABIStreamingEncoder()
+                        .encodeOneString("delegate")
+                        .encodeOneAddress(env.pool)
+                        .toBytes();
+                env.measure(m, delegator, env.poolRegistry, BenchmarkEnvironment.DELEGATOR_STAKE, txData);
+            }
+        }
+    },
+
+    UNDELEGATE("undelegate") {
+        @Override
+        void run(BenchmarkEnvironment env, Measurement m, int calls) {
+            for (int i = 0; i < calls; i++) {
+                byte[] txData = new ABIStreamingEncoder()
+                        .encodeOneString("undelegate")
+                        .encodeOneAddress(env.pool)
+                        .encodeOneLong(1L)
+                        .toBytes();
+                env.measure(m, env.delegators.get(i), env.poolRegistry, BigInteger.ZERO, txData);
+            }
+        }
+    },
+
+    WITHDRAW("withdraw") {
+        @Override
+        void run(BenchmarkEnvironment env, Measurement m, int calls) {
+            env.generateBlock(BLOCK_REWARDS);
+            for (int i = 0; i < calls; i++) {
+                byte[] txData = new ABIStreamingEncoder()
+                        .encodeOneString("withdraw")
+                        .encodeOneAddress(env.pool)
+                        .toBytes();
+                env.measure(m, env.delegators.get(i), env.poolRegistry, BigInteger.ZERO, txData);
+            }
+        }
+    },
+
+    AUTO_DELEGATE_REWARDS("autoDelegateRewards") {
+        @Override
+        void run(BenchmarkEnvironment env, Measurement m, int calls) {
+            for (int i = 0; i < calls; i++) {
+                byte[] txData = new ABIStreamingEncoder()
+                        .encodeOneString("enableAutoRewardsDelegation")
+                        .encodeOneAddress(env.pool)
+                        .encodeOneInteger(10)
+                        .toBytes();
+                env.call(env.delegators.get(i), env.poolRegistry, BigInteger.ZERO, txData);
+            }
+            env.generateBlock(BLOCK_REWARDS);
+            for (int i = 0; i < calls; i++) {
+                byte[] txData = new ABIStreamingEncoder()
+                        .encodeOneString("autoDelegateRewards")
+                        .encodeOneAddress(env.pool)
+                        .encodeOneAddress(env.delegators.get(i))
+                        .toBytes();
+                env.measure(m, env.preminedAddress, env.poolRegistry, BigInteger.ZERO, txData);
+            }
+        }
+    },
+
+    /**
+     * One measured call, which compounds the rewards of as many delegators as the other
+     * scenarios make calls.
+     */
+    AUTO_DELEGATE_REWARDS_BATCH("autoDelegateRewardsBatch") {
+        @Override
+        void run(BenchmarkEnvironment env, Measurement m, int calls) {
+            for (int i = 0; i < calls; i++) {
+                byte[] txData = new ABIStreamingEncoder()
+                        .encodeOneString("enableAutoRewardsDelegation")
+                        .encodeOneAddress(env.pool)
+                        .encodeOneInteger(10)
+                        .toBytes();
+                env.call(env.delegators.get(i), env.poolRegistry, BigInteger.ZERO, txData);
+            }
+            env.generateBlock(BLOCK_REWARDS);
+            byte[] txData = new ABIStreamingEncoder()
+                    .encodeOneString("autoDelegateRewardsBatch")
+                    .encodeOneAddress(env.pool)
+                    .encodeOneAddressArray(env.delegators.subList(0, calls).toArray(new Address[0]))
+                    .toBytes();
+            env.measure(m, env.preminedAddress, env.poolRegistry, BigInteger.ZERO, txData);
+        }
+    },
+
+    /**
+     * Slashes the pool, whose only listener is the pool registry.
+     */
+    SLASH("slash") {
+        @Override
+        void run(BenchmarkEnvironment env, Measurement m, int calls) {
+            slash(env, m, calls, env.signer, () -> env.delegate(env.pool, StakerRegistry.PENALTY_AMOUNT));
+        }
+    },
+
+    /**
+     * Slashes a staker without listeners: the cost of decoding the header, recovering the
+     * signer from the seal and taking the penalty.
+     */
+    SLASH_NO_LISTENERS("slashNoListeners") {
+        @Override
+        void run(BenchmarkEnvironment env, Measurement m, int calls) {
+            PoSHeaderSigner signer = new PoSHeaderSigner();
+            Address staker = env.registerStaker(signer, 0);
+            slash(env, m, calls, signer, () -> env.vote(staker, StakerRegistry.PENALTY_AMOUNT));
+        }
+    },
+
+    /**
+     * Slashes a staker with {@link StakerRegistry#MAX_LISTENERS} listeners; compared to
+     * {@link #SLASH_NO_LISTENERS}, this is the cost of the fan-out.
+     */
+    SLASH_MAX_LISTENERS("slashMaxListeners") {
+        @Override
+        void run(BenchmarkEnvironment env, Measurement m, int calls) {
+            PoSHeaderSigner signer = new PoSHeaderSigner();
+            Address staker = env.registerStaker(signer, StakerRegistry.MAX_LISTENERS);
+            slash(env, m, calls, signer, () -> env.vote(staker, StakerRegistry.PENALTY_AMOUNT));
+        }
+    },
+
+    /**
+     * Votes for a staker by new voters, directly in the staker registry; the population is the
+     * number of voters of the staker rather than delegators of the pool.
+     */
+    VOTE("vote") {
+        @Override
+        void prepare(BenchmarkEnvironment env, int population) {
+            env.addVoters(population);
+        }
+
+        @Override
+        void run(BenchmarkEnvironment env, Measurement m, int calls) {
+            for (int i = 0; i < calls; i++) {
+                Address voter = env.rule.getRandomAddress(BenchmarkEnvironment.ENOUGH_BALANCE_TO_TRANSACT);
+                byte[] txData = new ABIStreamingEncoder()
+                        .encodeOneString("vote")
+                        .encodeOneAddress(env.staker)
+                        .toBytes();
+                env.measure(m, voter, env.stakerRegistry, BenchmarkEnvironment.VOTER_STAKE, txData);
+            }
+        }
+    },
+
+    /**
+     * Looks up the effective stake of a staker, as the kernel does for every block, with the
+     * population as the number of its direct voters.
+     */
+    GET_EFFECTIVE_STAKE("getEffectiveStake") {
+        @Override
+        void prepare(BenchmarkEnvironment env, int population) {
+            env.addVoters(population);
+        }
+
+        @Override
+        void run(BenchmarkEnvironment env, Measurement m, int calls) {
+            // the signing period of the staker starts after the block it was registered in
+            env.setBlockNumber(env.rule.kernel.getBlockNumber() + 2);
+            for (int i = 0; i < calls; i++) {
+                byte[] txData = new ABIStreamingEncoder()
+                        .encodeOneString("getEffectiveStake")
+                        .encodeOneAddress(env.stakerSigner.getSigningAddress())
+                        .encodeOneAddress(env.staker)
+                        .toBytes();
+                env.measure(m, env.preminedAddress, env.stakerRegistry, BigInteger.ZERO, txData);
+            }
+        }
+    };
+
+    static final long BLOCK_REWARDS = 5_000_000_000L;
+
+    public final String id;
+
+    Scenario(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Grows the population the scenario runs against, by default the delegators of the pool.
+     */
+    void prepare(BenchmarkEnvironment env, int population) {
+        env.addDelegators(population);
+    }
+
+    /**
+     * Measures the given number of calls, after {@link #prepare}.
+     */
+    abstract void run(BenchmarkEnvironment env, Measurement m, int calls);
+
+    /**
+     * Measures slashing the staker of the signer with a new header per call. Before each
+     * call, the penalty of the previous one is voted back, so every call sees the same stake.
+     */
+    private static void slash(BenchmarkEnvironment env, Measurement m, int calls, PoSHeaderSigner signer, Runnable topUp) {
+        // the signing period of the staker starts after the block it was registered in
+        env.setBlockNumber(env.rule.kernel.getBlockNumber() + 2);
+        for (int i = 0; i < calls; i++) {
+            if (i > 0) {
+                topUp.run();
+            }
+            byte[] txData = new ABIStreamingEncoder()
+                    .encodeOneString("slash")
+                    .encodeOneInteger(1)
+                    .encodeOne2DByteArray(new byte[][]{signer.sign(env.rule.kernel.getBlockNumber())})
+                    .toBytes();
+            env.measure(m, env.preminedAddress, env.stakerRegistry, BigInteger.ZERO, txData);
+        }
+    }
+
+    public static Scenario fromId(String id) {
+        for (Scenario s : values()) {
+            if (s.id.equals(id)) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + id);
+    }
+}
@@ -1,5 +1,7 @@
 package org.aion.unity;
 
+import org.aion.avm.userlib.AionBuffer;
+
 import java.math.BigInteger;
 
 /**
@@ -36,6 +38,11 @@ import java.math.BigInteger;
  * > Multiplications would need to be performed with double the precision (40 precision places), which is then
  * truncated down to 20 precision places.
  * <p>
+ * The value is held as an unsigned 128-bit integer in two longs, scaled by 10^precision. Multiplication and
+ * division go through 256-bit intermediates in 32-bit digits (Knuth, TAOCP vol. 2, 4.3.1, algorithm D), and
+ * results which don't fit in 128 bits, or are negative, raise an ArithmeticException. Within that range the
+ * results are identical to the BigInteger arithmetic this class used before, at a fraction of the allocations.
+ * <p>
  * We've used long to represent all "coin" units in this system. A decision needs to be made about the units used
  * in the smart contract; if we're using base units (nAmp) or Aion, or some other quanta of coin.
  */
@@ -45,26 +52,51 @@ public class Decimal {
     // class settings
     // ==============
     private final static int precision = 18;
-    /* TODO: The value of precisionInt should be tied to the value of precision (defined above) directly; initially
-        this was implemented like so: BigInteger.TEN.pow(precision). We need a better was of initializing this
-        BigInteger (maybe using a String instead of a Long), since more than 20 decimals will overflow Long. */
-    private static BigInteger precisionInt = BigInteger.valueOf(1_000_000_000_000_000_000L);
-    private final BigInteger value;
+    private final static long precisionInt = 1_000_000_000_000_000_000L;
+    private final static long[] PRECISION_DIGITS = {precisionInt & 0xFFFFFFFFL, precisionInt >>> 32};
+
+    private static final long MASK = 0xFFFFFFFFL;
 
-    private Decimal(BigInteger v) {
-        assert (v != null);
-        assert (v.signum() == 1 || v.signum() == 0); // coin must be either positive or 0
+    // unsigned 128-bit value
+    private final long hi;
+    private final long lo;
 
-        this.value = v;
+    private Decimal(long hi, long lo) {
+        this.hi = hi;
+        this.lo = lo;
     }
 
     public static Decimal valueOf(long v) {
+        // coin must be either positive or 0
+        if (v < 0) {
+            throw new ArithmeticException();
+        }
+
         // important to do the precision expansion here!
-        return new Decimal(BigInteger.valueOf(v).multiply(precisionInt));
+        return new Decimal(multiplyHigh(v, precisionInt), v * precisionInt);
     }
 
     public BigInteger getTruncated() {
-        return chopPrecisionAndTruncate(value);
+        return toBigInteger(chopPrecisionAndTruncate(digits(), 4));
+    }
+
+    /**
+     * Returns the truncated value as a long, without going through a BigInteger.
+     *
+     * @throws ArithmeticException if the truncated value doesn't fit in a long
+     */
+    public long longValueExact() {
+        long[] q = chopPrecisionAndTruncate(digits(), 4);
+        for (int i = 2; i < q.length; i++) {
+            if (q[i] != 0) {
+                throw new ArithmeticException();
+            }
+        }
+        long high = q.length > 1 ? q[1] : 0;
+        if (high > Integer.MAX_VALUE) {
+            throw new ArithmeticException();
+        }
+        return high << 32 | q[0];
     }
 
     // common values
@@ -74,60 +106,122 @@ public class Decimal {
 
     // utility functions
     public boolean equals(Decimal d) {
-        return value.compareTo(d.value) == 0;
+        return hi == d.hi && lo == d.lo;
     }
 
     public boolean greaterThan(Decimal d) {
-        return value.compareTo(d.value) > 0;
+        return compareTo(d) > 0;
     }
 
     public boolean greaterThanOrEqualTo(Decimal d) {
-        return value.compareTo(d.value) >= 0;
+        return compareTo(d) >= 0;
     }
 
     public boolean lessThan(Decimal d) {
-        return value.compareTo(d.value) < 0;
+        return compareTo(d) < 0;
     }
 
     public boolean lessThanOrEqualTo(Decimal d) {
-        return value.compareTo(d.value) <= 0;
+        return compareTo(d) <= 0;
+    }
+
+    private int compareTo(Decimal d) {
+        if (hi != d.hi) {
+            return lessThanUnsigned(hi, d.hi) ? -1 : 1;
+        }
+        if (lo != d.lo) {
+            return lessThanUnsigned(lo, d.lo) ? -1 : 1;
+        }
+        return 0;
     }
 
     // addition
     public Decimal add(Decimal d) {
-        BigInteger r = value.add(d.value);
+        long l = lo + d.lo;
+        long carry = lessThanUnsigned(l, lo) ? 1 : 0;
+        long h = hi + d.hi + carry;
+        if (lessThanUnsigned(h, hi) || (carry == 1 && h == hi)) {
+            throw new ArithmeticException();
+        }
 
-        return new Decimal(r);
+        return new Decimal(h, l);
     }
 
     // subtraction
     public Decimal subtract(Decimal d) {
-        BigInteger r = value.subtract(d.value);
+        // coin must be either positive or 0
+        if (compareTo(d) < 0) {
+            throw new ArithmeticException();
+        }
+        long borrow = lessThanUnsigned(lo, d.lo) ? 1 : 0;
 
-        return new Decimal(r);
+        return new Decimal(hi - d.hi - borrow, lo - d.lo);
     }
 
     // multiplication truncate
     public Decimal multiplyTruncate(Decimal d) {
         // multiply precision twice
-        BigInteger mul = value.multiply(d.value);
-        BigInteger chopped = chopPrecisionAndTruncate(mul);
+        long[] u = digits();
+        long[] v = d.digits();
+        long[] mul = new long[8];
+        for (int i = 0; i < 4; i++) {
+            long carry = 0;
+            for (int j = 0; j < 4; j++) {
+                long t = u[i] * v[j] + mul[i + j] + carry;
+                mul[i + j] = t & MASK;
+                carry = t >>> 32;
+            }
+            mul[i + 4] = carry;
+        }
 
-        return new Decimal(chopped);
+        return fromDigits(chopPrecisionAndTruncate(mul, 8));
     }
 
-    // multiplication truncate
+    // division truncate
     public Decimal divideTruncate(Decimal d) {
-        // multiply precision twice
-        BigInteger mul = value.multiply(precisionInt).multiply(precisionInt);
-        BigInteger quo = mul.divide(d.value);
-        BigInteger chopped = chopPrecisionAndTruncate(quo);
+        // (value * 10^36 / d) / 10^18, which is equal to value * 10^18 / d
+        long[] u = digits();
+        long[] mul = new long[6];
+        for (int i = 0; i < 4; i++) {
+            long carry = 0;
+            for (int j = 0; j < 2; j++) {
+                long t = u[i] * PRECISION_DIGITS[j] + mul[i + j] + carry;
+                mul[i + j] = t & MASK;
+                carry = t >>> 32;
+            }
+            mul[i + 2] = carry;
+        }
+
+        long[] v = d.digits();
+        int n = length(v, 4);
+        if (n == 0) {
+            throw new ArithmeticException();
+        }
 
-        return new Decimal(chopped);
+        return fromDigits(divide(mul, length(mul, 6), v, n));
     }
 
-    private BigInteger chopPrecisionAndTruncate(BigInteger d) {
-        return d.divide(precisionInt);
+    // serialization
+    public static final int ENCODED_SIZE = Long.BYTES * 2;
+
+    public void writeTo(AionBuffer buffer) {
+        buffer.putLong(hi);
+        buffer.putLong(lo);
+    }
+
+    public static Decimal readFrom(AionBuffer buffer) {
+        return new Decimal(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * Returns the scaled value; for testing.
+     */
+    BigInteger unscaledValue() {
+        return toBigInteger(digits());
+    }
+
+    private static long[] chopPrecisionAndTruncate(long[] digits, int length) {
+        return divide(digits, length(digits, length), PRECISION_DIGITS, 2);
     }
 
     // TODO: is the truncated version is appropriate? (or if full expansion (without truncation) should be used)
@@ -135,4 +229,157 @@ public class Decimal {
     public String toString() {
         return getTruncated().toString();
     }
+
+    // 128-bit arithmetic helpers
+    // ==========================
+
+    private static boolean lessThanUnsigned(long a, long b) {
+        return (a + Long.MIN_VALUE) < (b + Long.MIN_VALUE);
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product.
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x0 = x & MASK, x1 = x >>> 32;
+        long y0 = y & MASK, y1 = y >>> 32;
+        long p00 = x0 * y0, p01 = x0 * y1, p10 = x1 * y0, p11 = x1 * y1;
+        long mid = (p00 >>> 32) + (p01 & MASK) + (p10 & MASK);
+        return p11 + (p01 >>> 32) + (p10 >>> 32) + (mid >>> 32);
+    }
+
+    /**
+     * Returns the 32-bit digits of the value, little endian.
+     */
+    private long[] digits() {
+        return new long[]{lo & MASK, lo >>> 32, hi & MASK, hi >>> 32};
+    }
+
+    /**
+     * Converts up to four 32-bit digits, little endian, to a non-negative BigInteger.
+     */
+    private static BigInteger toBigInteger(long[] digits) {
+        byte[] bytes = new byte[17];
+        for (int i = 0; i < 4 && i < digits.length; i++) {
+            bytes[16 - i * 4] = (byte) digits[i];
+            bytes[15 - i * 4] = (byte) (digits[i] >>> 8);
+            bytes[14 - i * 4] = (byte) (digits[i] >>> 16);
+            bytes[13 - i * 4] = (byte) (digits[i] >>> 24);
+        }
+        return new BigInteger(bytes);
+    }
+
+    /**
+     * Builds a decimal from 32-bit digits, little endian.
+     *
+     * @throws ArithmeticException if the value doesn't fit in 128 bits
+     */
+    private static Decimal fromDigits(long[] digits) {
+        for (int i = 4; i < digits.length; i++) {
+            if (digits[i] != 0) {
+                throw new ArithmeticException();
+            }
+        }
+        long[] d = {0, 0, 0, 0};
+        System.arraycopy(digits, 0, d, 0, digits.length < 4 ? digits.length : 4);
+        return new Decimal(d[3] << 32 | d[2], d[1] << 32 | d[0]);
+    }
+
+    /**
+     * Returns the number of significant digits among the first {@code length}.
+     */
+    private static int length(long[] digits, int length) {
+        while (length > 0 && digits[length - 1] == 0) {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Unsigned division of a 64-bit value by a positive divisor below 2^32.
+     */
+    private static long divideUnsigned(long n, long d) {
+        long q = ((n >>> 1) / d) << 1;
+        long r = n - q * d;
+        return r >= d ? q + 1 : q;
+    }
+
+    /**
+     * Divides u, of m 32-bit digits, by v, of n digits where the top one is non-zero, and
+     * returns the quotient digits. Digits are little endian.
+     */
+    private static long[] divide(long[] u, int m, long[] v, int n) {
+        if (m < n) {
+            return new long[]{0};
+        }
+        long[] q = new long[m - n + 1];
+
+        if (n == 1) {
+            long r = 0;
+            for (int j = m - 1; j >= 0; j--) {
+                long t = r << 32 | u[j];
+                q[j] = divideUnsigned(t, v[0]);
+                r = t - q[j] * v[0];
+            }
+            return q;
+        }
+
+        // normalize, so that the top digit of the divisor has its high bit set
+        int s = 0;
+        while ((v[n - 1] << s & 0x80000000L) == 0) {
+            s++;
+        }
+        long[] vn = new long[n];
+        for (int i = n - 1; i > 0; i--) {
+            vn[i] = (v[i] << s | v[i - 1] >>> (32 - s)) & MASK;
+        }
+        vn[0] = v[0] << s & MASK;
+        long[] un = new long[m + 1];
+        un[m] = u[m - 1] >>> (32 - s);
+        for (int i = m - 1; i > 0; i--) {
+            un[i] = (u[i] << s | u[i - 1] >>> (32 - s)) & MASK;
+        }
+        un[0] = u[0] << s & MASK;
+
+        for (int j = m - n; j >= 0; j--) {
+            // estimate the quotient digit
+            long num = un[j + n] << 32 | un[j + n - 1];
+            long qhat = divideUnsigned(num, vn[n - 1]);
+            long rhat = num - qhat * vn[n - 1];
+            while (qhat > MASK || lessThanUnsigned(rhat << 32 | un[j + n - 2], qhat * vn[n - 2])) {
+                qhat--;
+                rhat += vn[n - 1];
+                if (rhat > MASK) {
+                    break;
+                }
+            }
+
+            // multiply and subtract
+            long borrow = 0;
+            long t;
+            for (int i = 0; i < n; i++) {
+                long p = qhat * vn[i];
+                t = un[i + j] - borrow - (p & MASK);
+                un[i + j] = t & MASK;
+                borrow = (p >>> 32) - (t >> 32);
+            }
+            t = un[j + n] - borrow;
+            un[j + n] = t & MASK;
+
+            // add back if the estimate was one too large
+            q[j] = qhat;
+            if (t < 0) {
+                q[j]--;
+                long carry = 0;
+                for (int i = 0; i < n; i++) {
+                    t = un[i + j] + vn[i] + carry;
+                    un[i + j] = t & MASK;
+                    carry = t >>> 32;
+                }
+                un[j + n] = (un[j + n] + carry) & MASK;
+            }
+        }
+
+        return q;
+    }
 }
@@ -0,0 +1,192 @@
+package org.aion.unity;
+
+import avm.Address;
+import org.aion.avm.userlib.AionBuffer;
+
+/**
+ * An insertion-ordered set of addresses per pool, e.g. the delegators of a pool, kept in
+ * storage as a doubly linked list.
+ * <p>
+ * The header, i.e. the head, the tail and the size, is stored under (prefix, pool), and the
+ * links of each member under (prefix, pool, member), so adding and removing a member only
+ * touch its neighbours, and a page only reads the members it returns.
+ */
+public final class OrderedAddressSet {
+
+    private OrderedAddressSet() {
+    }
+
+    static boolean contains(byte prefix, Address pool, Address member) {
+        return PoolStorage.get(PoolStorage.key(prefix, pool, member)) != null;
+    }
+
+    static int size(byte prefix, Address pool) {
+        Header header = getHeader(prefix, pool);
+        return header == null ? 0 : header.size;
+    }
+
+    /**
+     * Appends a member to the set.
+     *
+     * @return false if the address is a member already
+     */
+    static boolean add(byte prefix, Address pool, Address member) {
+        if (contains(prefix, pool, member)) {
+            return false;
+        }
+
+        Header header = getHeader(prefix, pool);
+        if (header == null) {
+            header = new Header(member, member, 0);
+            putLinks(prefix, pool, member, new Links(null, null));
+        } else {
+            Links tail = getLinks(prefix, pool, header.tail);
+            tail.next = member;
+            putLinks(prefix, pool, header.tail, tail);
+            putLinks(prefix, pool, member, new Links(header.tail, null));
+            header.tail = member;
+        }
+        header.size++;
+        putHeader(prefix, pool, header);
+        return true;
+    }
+
+    /**
+     * Removes a member from the set.
+     *
+     * @return false if the address is not a member
+     */
+    static boolean remove(byte prefix, Address pool, Address member) {
+        Links links = getLinks(prefix, pool, member);
+        if (links == null) {
+            return false;
+        }
+
+        Header header = getHeader(prefix, pool);
+        if (links.prev == null) {
+            header.head = links.next;
+        } else {
+            Links prev = getLinks(prefix, pool, links.prev);
+            prev.next = links.next;
+            putLinks(prefix, pool, links.prev, prev);
+        }
+        if (links.next == null) {
+            header.tail = links.prev;
+        } else {
+            Links next = getLinks(prefix, pool, links.next);
+            next.prev = links.prev;
+            putLinks(prefix, pool, links.next, next);
+        }
+        PoolStorage.remove(PoolStorage.key(prefix, pool, member));
+
+        header.size--;
+        if (header.size == 0) {
+            PoolStorage.remove(PoolStorage.key(prefix, pool));
+        } else {
+            putHeader(prefix, pool, header);
+        }
+        return true;
+    }
+
+    /**
+     * Returns up to {@code limit} members following the cursor, in insertion order.
+     *
+     * @param cursor a member, or null to start from the first member
+     */
+    static Address[] page(byte prefix, Address pool, Address cursor, int limit) {
+        Address next;
+        if (cursor == null) {
+            Header header = getHeader(prefix, pool);
+            next = header == null ? null : header.head;
+        } else {
+            next = getLinks(prefix, pool, cursor).next;
+        }
+
+        Address[] page = new Address[limit];
+        int count = 0;
+        while (next != null && count < limit) {
+            page[count++] = next;
+            next = count < limit ? getLinks(prefix, pool, next).next : null;
+        }
+
+        if (count == limit) {
+            return page;
+        }
+        Address[] trimmed = new Address[count];
+        System.arraycopy(page, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    private static Header getHeader(byte prefix, Address pool) {
+        byte[] bytes = PoolStorage.get(PoolStorage.key(prefix, pool));
+        return bytes == null ? null : Header.fromBytes(bytes);
+    }
+
+    private static void putHeader(byte prefix, Address pool, Header header) {
+        PoolStorage.put(PoolStorage.key(prefix, pool), header.toBytes());
+    }
+
+    private static Links getLinks(byte prefix, Address pool, Address member) {
+        byte[] bytes = PoolStorage.get(PoolStorage.key(prefix, pool, member));
+        return bytes == null ? null : Links.fromBytes(bytes);
+    }
+
+    private static void putLinks(byte prefix, Address pool, Address member, Links links) {
+        PoolStorage.put(PoolStorage.key(prefix, pool, member), links.toBytes());
+    }
+
+    private static class Header {
+        private Address head;
+        private Address tail;
+        private int size;
+
+        private Header(Address head, Address tail, int size) {
+            this.head = head;
+            this.tail = tail;
+            this.size = size;
+        }
+
+        private byte[] toBytes() {
+            return AionBuffer.allocate(Address.LENGTH * 2 + Integer.BYTES)
+                    .putAddress(head)
+                    .putAddress(tail)
+                    .putInt(size)
+                    .getArray();
+        }
+
+        private static Header fromBytes(byte[] bytes) {
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            return new Header(buffer.getAddress(), buffer.getAddress(), buffer.getInt());
+        }
+    }
+
+    private static class Links {
+        private Address prev;
+        private Address next;
+
+        private Links(Address prev, Address next) {
+            this.prev = prev;
+            this.next = next;
+        }
+
+        private byte[] toBytes() {
+            AionBuffer buffer = AionBuffer.allocate(2 + (prev == null ? 0 : Address.LENGTH) + (next == null ? 0 : Address.LENGTH))
+                    .putBoolean(prev != null)
+                    .putBoolean(next != null);
+            if (prev != null) {
+                buffer.putAddress(prev);
+            }
+            if (next != null) {
+                buffer.putAddress(next);
+            }
+            return buffer.getArray();
+        }
+
+        private static Links fromBytes(byte[] bytes) {
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            boolean hasPrev = buffer.getBoolean();
+            boolean hasNext = buffer.getBoolean();
+            return new Links(hasPrev ? buffer.getAddress() : null, hasNext ? buffer.getAddress() : null);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.aion.unity;
+
+import avm.Address;
+import avm.Blockchain;
+import org.aion.avm.userlib.AionBuffer;
+
+import java.math.BigInteger;
+
+/**
+ * The events emitted by the pool registry.
+ * <p>
+ * The layout follows {@code StakerRegistryEvents}: the first topic is the event name, the
+ * following topics are addresses, and the data has a fixed layout of 8-byte ids and 32-byte
+ * unsigned amounts. Stake changes are reported by Delegated, Undelegated and
+ * StakeTransferred; the Rewards* events report how claimed rewards were paid out, so a
+ * redelegation emits both RewardsRedelegated and Delegated.
+ * <p>
+ * Each event corresponds to one update of the rewards state machine, in the same order,
+ * and the Rewards* events are emitted even for a zero amount: a withdrawal settles the
+ * pending rewards of the delegator, which an indexer has to replay.
+ */
+public class PoolRegistryEvents {
+
+    private static final int AMOUNT_SIZE = 32;
+
+    static void registeredPool(Address pool, Address coinbaseAddress, Address custodianAddress, int commissionRate) {
+        Blockchain.log("PoolRegistered".getBytes(),
+                pool.toByteArray(),
+                coinbaseAddress.toByteArray(),
+                custodianAddress.toByteArray(),
+                AionBuffer.allocate(Integer.BYTES).putInt(commissionRate).getArray());
+    }
+
+    static void delegated(Address pool, Address delegator, BigInteger amount) {
+        Blockchain.log("Delegated".getBytes(),
+                pool.toByteArray(),
+                delegator.toByteArray(),
+                amount(amount));
+    }
+
+    /**
+     * @param id the pending un-vote id in the staker registry, or -1 for a slashing
+     */
+    static void undelegated(long id, Address pool, Address delegator, long amount) {
+        Blockchain.log("Undelegated".getBytes(),
+                pool.toByteArray(),
+                delegator.toByteArray(),
+                AionBuffer.allocate(Long.BYTES + AMOUNT_SIZE)
+                        .putLong(id)
+                        .put32ByteInt(BigInteger.valueOf(amount))
+                        .getArray());
+    }
+
+    static void transferredStake(long id, Address fromPool, Address toPool, Address delegator, long amount) {
+        Blockchain.log("StakeTransferred".getBytes(),
+                fromPool.toByteArray(),
+                toPool.toByteArray(),
+                delegator.toByteArray(),
+                AionBuffer.allocate(Long.BYTES + AMOUNT_SIZE)
+                        .putLong(id)
+                        .put32ByteInt(BigInteger.valueOf(amount))
+                        .getArray());
+    }
+
+    static void withdrewRewards(Address pool, Address delegator, long amount) {
+        Blockchain.log("RewardsWithdrawn".getBytes(),
+                pool.toByteArray(),
+                delegator.toByteArray(),
+                amount(BigInteger.valueOf(amount)));
+    }
+
+    static void redelegatedRewards(Address pool, Address delegator, long amount) {
+        Blockchain.log("RewardsRedelegated".getBytes(),
+                pool.toByteArray(),
+                delegator.toByteArray(),
+                amount(BigInteger.valueOf(amount)));
+    }
+
+    static void autoDelegatedRewards(Address pool, Address delegator, Address caller, long amount, long fee) {
+        Blockchain.log("RewardsAutoDelegated".getBytes(),
+                pool.toByteArray(),
+                delegator.toByteArray(),
+                caller.toByteArray(),
+                AionBuffer.allocate(AMOUNT_SIZE * 2)
+                        .put32ByteInt(BigInteger.valueOf(amount))
+                        .put32ByteInt(BigInteger.valueOf(fee))
+                        .getArray());
+    }
+
+    static void receivedBlockRewards(Address pool, BigInteger amount) {
+        Blockchain.log("BlockRewardsReceived".getBytes(),
+                pool.toByteArray(),
+                amount(amount));
+    }
+
+    static void activatedPool(Address pool) {
+        Blockchain.log("PoolActivated".getBytes(), pool.toByteArray());
+    }
+
+    static void brokePool(Address pool) {
+        Blockchain.log("PoolBroken".getBytes(), pool.toByteArray());
+    }
+
+    private static byte[] amount(BigInteger amount) {
+        return AionBuffer.allocate(AMOUNT_SIZE).put32ByteInt(amount).getArray();
+    }
+}
@@ -0,0 +1,500 @@
+package org.aion.unity;
+
+import org.aion.avm.userlib.AionBuffer;
+
+/**
+ * The F1 fee distribution of one pool, see https://github.com/ali-sharif/f1-fee-distribution
+ * for a PoC implementation of the algorithm.
+ * <p>
+ * This class is pure Java: the scalar state lives in the fields, while the per-delegator
+ * state is read and written through the storage hooks, so the same arithmetic runs in the
+ * contract ({@link PoolRewardsStateMachine}) and off-chain, e.g. in a simulator.
+ * <p>
+ * As in the Cosmos F1 design, every period which distributed rewards is checkpointed with
+ * its cumulative CRR, and a delegation refers to the period it started after. A checkpoint
+ * is reference counted, by the delegations starting after it and by the current period if it
+ * is the last one, and removed once nothing refers to it; so the history only holds the
+ * periods which are still needed to settle rewards.
+ *
+ * @param <D> the delegator key
+ */
+public abstract class PoolRewardsEngine<D> {
+    protected static final int STATE_SIZE = Integer.BYTES + Long.BYTES * 7 + Decimal.ENCODED_SIZE;
+
+    // pool variables
+    int fee; // 0-100%
+
+    // state variables
+    long accumulatedStake; // stake accumulated in the pool
+    long accumulatedBlockRewards; // rewards paid to pool per block
+
+    // commission is handled separately
+    long accumulatedCommission;
+    long withdrawnCommission;
+
+    long outstandingRewards; // total coins (as rewards), owned by the pool
+
+    long currentRewards; // rewards accumulated this period
+
+    Decimal currentCRR; // the CRR of the last period
+    long period; // the last period, -1 before the first one
+
+    protected PoolRewardsEngine(int fee) {
+        assert (fee >= 0 && fee <= 100);
+        this.fee = fee;
+
+        currentCRR = Decimal.ZERO;
+        period = -1;
+    }
+
+    /* ----------------------------------------------------------------------
+     * Scalar state
+     * ----------------------------------------------------------------------*/
+
+    /**
+     * Writes the scalar state, {@link #STATE_SIZE} bytes; the per-delegator state and the
+     * checkpoints are persisted by the storage hooks.
+     */
+    protected final void writeStateTo(AionBuffer buffer) {
+        buffer.putInt(fee)
+                .putLong(accumulatedStake)
+                .putLong(accumulatedBlockRewards)
+                .putLong(accumulatedCommission)
+                .putLong(withdrawnCommission)
+                .putLong(outstandingRewards)
+                .putLong(currentRewards);
+        currentCRR.writeTo(buffer);
+        buffer.putLong(period);
+    }
+
+    /**
+     * Restores the scalar state written by {@link #writeStateTo}.
+     */
+    protected final void readStateFrom(AionBuffer buffer) {
+        fee = buffer.getInt();
+        accumulatedStake = buffer.getLong();
+        accumulatedBlockRewards = buffer.getLong();
+        accumulatedCommission = buffer.getLong();
+        withdrawnCommission = buffer.getLong();
+        outstandingRewards = buffer.getLong();
+        currentRewards = buffer.getLong();
+        currentCRR = Decimal.readFrom(buffer);
+        period = buffer.getLong();
+    }
+
+    /* ----------------------------------------------------------------------
+     * Storage hooks
+     * ----------------------------------------------------------------------*/
+
+    /**
+     * @return the starting info of the delegator, or null if it has no bonded stake
+     */
+    protected abstract StartingInfo getStartingInfo(D delegator);
+
+    protected abstract void putStartingInfo(D delegator, StartingInfo startingInfo);
+
+    protected abstract void removeStartingInfo(D delegator);
+
+    protected abstract long getSettledRewards(D delegator);
+
+    protected abstract void putSettledRewards(D delegator, long rewards);
+
+    protected abstract long getWithdrawnRewards(D delegator);
+
+    protected abstract void putWithdrawnRewards(D delegator, long rewards);
+
+    /**
+     * @return the checkpoint of the period, or null if it was removed
+     */
+    protected abstract HistoricalCRR getHistoricalCRR(long period);
+
+    protected abstract void putHistoricalCRR(long period, HistoricalCRR historicalCRR);
+
+    protected abstract void removeHistoricalCRR(long period);
+
+    /* ----------------------------------------------------------------------
+     * Leave and Join Functions
+     * ----------------------------------------------------------------------*/
+
+    /**
+     * @return the bonded stake that just "left"
+     */
+    private long leave(D delegator, long blockNumber) {
+        StartingInfo startingInfo = getStartingInfo(delegator);
+        assert (delegator != null && startingInfo != null); // sanity check
+
+        incrementPeriod();
+        HistoricalCRR starting = getHistoricalCRR(startingInfo.period);
+        long rewards = calculateRewards(startingInfo, starting.crr, currentCRR, blockNumber);
+
+        putSettledRewards(delegator, rewards + getSettledRewards(delegator));
+
+        long stake = startingInfo.stake;
+
+        removeStartingInfo(delegator);
+        release(startingInfo.period, starting);
+
+        accumulatedStake -= stake;
+
+        return stake;
+    }
+
+    private void join(D delegator, long blockNumber, long stake) {
+        assert (delegator != null && getStartingInfo(delegator) == null); // sanity check
+
+        // add this new delegation to our store, starting after the last period
+        putStartingInfo(delegator, new StartingInfo(stake, blockNumber, period));
+        retain(period);
+
+        accumulatedStake += stake;
+    }
+
+    /* ----------------------------------------------------------------------
+     * "Internal" Functions used by Leave and Join
+     * ----------------------------------------------------------------------*/
+
+    private void incrementPeriod() {
+        // deal with the block rewards
+        long commission = commission(accumulatedBlockRewards);
+        long shared = accumulatedBlockRewards - commission;
+
+        this.accumulatedCommission += commission;
+        this.currentRewards += shared;
+        this.outstandingRewards += accumulatedBlockRewards;
+
+        // "reset" the block rewards accumulator
+        accumulatedBlockRewards = 0;
+
+        // deal with the CRR computations; a period without rewards would repeat the last CRR,
+        // so it is only started if there is none yet
+        if (accumulatedStake > 0 && currentRewards > 0) {
+            Decimal crr = Decimal.valueOf(currentRewards).divideTruncate(Decimal.valueOf(accumulatedStake));
+            startPeriod(currentCRR.add(crr));
+        } else {
+            // if there is no stake, then there should be no way to have accumulated rewards
+            assert (accumulatedStake > 0 || currentRewards == 0);
+            if (period < 0) {
+                startPeriod(currentCRR);
+            }
+        }
+
+        currentRewards = 0;
+    }
+
+    private void startPeriod(Decimal crr) {
+        long last = period;
+        period++;
+        currentCRR = crr;
+
+        // referenced by the current period, until the next one starts
+        putHistoricalCRR(period, new HistoricalCRR(crr, 1));
+        if (last >= 0) {
+            release(last, getHistoricalCRR(last));
+        }
+    }
+
+    private void retain(long period) {
+        HistoricalCRR historicalCRR = getHistoricalCRR(period);
+        historicalCRR.referenceCount++;
+        putHistoricalCRR(period, historicalCRR);
+    }
+
+    private void release(long period, HistoricalCRR historicalCRR) {
+        historicalCRR.referenceCount--;
+        if (historicalCRR.referenceCount == 0) {
+            removeHistoricalCRR(period);
+        } else {
+            putHistoricalCRR(period, historicalCRR);
+        }
+    }
+
+    private long commission(long blockRewards) {
+        return Decimal.valueOf(fee * blockRewards)
+                .divideTruncate(Decimal.valueOf(100))
+                .longValueExact();
+    }
+
+    /**
+     * @return the CRR the next period would end with, if the pool received the given block rewards
+     */
+    private Decimal nextCRR(long blockRewards) {
+        if (accumulatedStake <= 0) {
+            return currentCRR;
+        }
+        long shared = blockRewards - commission(blockRewards);
+        return currentCRR.add(Decimal.valueOf(currentRewards + shared).divideTruncate(Decimal.valueOf(accumulatedStake)));
+    }
+
+    private long calculateUnsettledRewards(StartingInfo startingInfo, long blockNumber) {
+        if (startingInfo == null) {
+            return 0;
+        }
+
+        // cannot calculate delegation rewards for blocks before stake was delegated
+        assert (startingInfo.blockNumber <= blockNumber);
+
+        // if a new period was created this block, then no rewards could be "settled" at this block
+        if (startingInfo.blockNumber == blockNumber)
+            return 0L;
+
+        return calculateRewards(startingInfo, getHistoricalCRR(startingInfo.period).crr, currentCRR, blockNumber);
+    }
+
+    private long calculateRewards(StartingInfo startingInfo, Decimal startingCRR, Decimal endingCRR, long blockNumber) {
+        if (startingInfo.blockNumber == blockNumber)
+            return 0L;
+
+        long stake = startingInfo.stake;
+
+        // return stake * (ending - starting)
+        Decimal differenceCRR = endingCRR.subtract(startingCRR);
+
+        return differenceCRR.multiplyTruncate(Decimal.valueOf(stake)).longValueExact();
+    }
+
+    /* ----------------------------------------------------------------------
+     * Contract Lifecycle Functions
+     * ----------------------------------------------------------------------*/
+    public void onUnvote(D delegator, long blockNumber, long stake) {
+        StartingInfo startingInfo = getStartingInfo(delegator);
+        assert (startingInfo != null);
+        long prevBond = startingInfo.stake;
+        assert (stake <= prevBond); // make sure the amount of unvote requested is legal.
+
+        long unbondedStake = leave(delegator, blockNumber);
+        assert (unbondedStake == prevBond);
+
+        // if they didn't fully un-bond, re-bond the remaining amount
+        long nextBond = prevBond - stake;
+        if (nextBond > 0) {
+            join(delegator, blockNumber, nextBond);
+        }
+    }
+
+    public void onVote(D delegator, long blockNumber, long stake) {
+        assert (stake >= 0);
+
+        long prevBond = 0L;
+        if (getStartingInfo(delegator) != null)
+            prevBond = leave(delegator, blockNumber);
+        else
+            incrementPeriod();
+
+        long nextBond = prevBond + stake;
+        join(delegator, blockNumber, nextBond);
+    }
+
+    /**
+     * Withdraw is all or nothing, since that is both simpler, implementation-wise and does not make
+     * much sense for people to partially withdraw. The problem we run into is that if the amount requested
+     * for withdraw, can be less than the amount settled, in which case, it's not obvious if we should perform
+     * a settlement ("leave") or save on gas and just withdraw out the rewards.
+     */
+    public long onWithdraw(D delegator, long blockNumber) {
+        if (getStartingInfo(delegator) != null) {
+            // do a "leave-and-join"
+            long unbondedStake = leave(delegator, blockNumber);
+            join(delegator, blockNumber, unbondedStake);
+        }
+
+        // if I don't see a delegation, then you must have been settled already.
+
+        // now that all rewards owed to you are settled, you can withdraw them all at once
+        long rewards = getSettledRewards(delegator);
+        putSettledRewards(delegator, 0L);
+
+        putWithdrawnRewards(delegator, rewards + getWithdrawnRewards(delegator));
+        outstandingRewards -= rewards;
+
+        return rewards;
+    }
+
+    public long onWithdrawOperator() {
+        long c = accumulatedCommission;
+        accumulatedCommission = 0;
+
+        withdrawnCommission += c;
+        outstandingRewards -= c;
+
+        return c;
+    }
+
+    public void onBlock(long blockNumber, long blockReward) {
+        assert (blockNumber > 0 && blockReward > 0); // sanity check
+
+        accumulatedBlockRewards += blockReward;
+    }
+
+    public long getRewards(D delegator, long blockNumber) {
+        long unsettledRewards = calculateUnsettledRewards(getStartingInfo(delegator), blockNumber);
+        long settledRewards = getSettledRewards(delegator);
+
+        return unsettledRewards + settledRewards;
+    }
+
+    /**
+     * Returns what {@link #onWithdraw} would return at the given block, if the pool received the
+     * given block rewards first, without changing any state. Unlike {@link #getRewards}, this
+     * includes the block rewards which are not yet distributed.
+     */
+    public long getPendingRewards(D delegator, long blockNumber, long blockRewards) {
+        return getPendingRewards(delegator, blockNumber, getPendingCRR(blockRewards));
+    }
+
+    /**
+     * Same as {@link #getPendingRewards(Object, long, long)}, for a CRR returned by
+     * {@link #getPendingCRR}, so it is computed once for many delegators.
+     */
+    public long getPendingRewards(D delegator, long blockNumber, Decimal pendingCRR) {
+        long settledRewards = getSettledRewards(delegator);
+        StartingInfo startingInfo = getStartingInfo(delegator);
+        if (startingInfo == null || startingInfo.blockNumber == blockNumber) {
+            return settledRewards;
+        }
+
+        return settledRewards + calculateRewards(startingInfo, getHistoricalCRR(startingInfo.period).crr, pendingCRR, blockNumber);
+    }
+
+    /**
+     * @return the CRR the next period would end with, if the pool received the given block rewards
+     */
+    public Decimal getPendingCRR(long blockRewards) {
+        return nextCRR(accumulatedBlockRewards + blockRewards);
+    }
+
+    /**
+     * Returns what {@link #onWithdrawOperator} would return, if the pool received the given block
+     * rewards first, without changing any state.
+     */
+    public long getPendingCommission(long blockRewards) {
+        return accumulatedCommission + commission(accumulatedBlockRewards + blockRewards);
+    }
+
+    public void setCommissionRate(int newRate) {
+        incrementPeriod();
+        fee = newRate;
+    }
+
+    /* ----------------------------------------------------------------------
+     * Views
+     * ----------------------------------------------------------------------*/
+
+    /**
+     * @return the bonded stake of the delegator
+     */
+    public long getStake(D delegator) {
+        StartingInfo startingInfo = getStartingInfo(delegator);
+        return startingInfo == null ? 0L : startingInfo.stake;
+    }
+
+    /**
+     * @return the period the delegation of the delegator started after, or -1 if it has no bonded stake
+     */
+    public long getStartingPeriod(D delegator) {
+        StartingInfo startingInfo = getStartingInfo(delegator);
+        return startingInfo == null ? -1L : startingInfo.period;
+    }
+
+    /**
+     * @return the last period, i.e. the one new delegations start after
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns the rewards of a stake bonded from the end of one period to the end of another,
+     * in O(1). Both periods must still be checkpointed, i.e. be the last period or the
+     * starting period of a delegation.
+     *
+     * @return the rewards, or -1 if either period is no longer checkpointed
+     */
+    public long getRewardsBetween(long startPeriod, long endPeriod, long stake) {
+        assert (startPeriod <= endPeriod && stake >= 0);
+        HistoricalCRR starting = startPeriod < 0 ? null : getHistoricalCRR(startPeriod);
+        HistoricalCRR ending = endPeriod < 0 ? null : getHistoricalCRR(endPeriod);
+        if (starting == null || ending == null) {
+            return -1L;
+        }
+        return ending.crr.subtract(starting.crr).multiplyTruncate(Decimal.valueOf(stake)).longValueExact();
+    }
+
+    public int getFee() {
+        return fee;
+    }
+
+    public long getAccumulatedStake() {
+        return accumulatedStake;
+    }
+
+    /**
+     * @return the block rewards which are not yet distributed, i.e. received since the last period
+     */
+    public long getAccumulatedBlockRewards() {
+        return accumulatedBlockRewards;
+    }
+
+    public long getAccumulatedCommission() {
+        return accumulatedCommission;
+    }
+
+    public long getWithdrawnCommission() {
+        return withdrawnCommission;
+    }
+
+    public long getOutstandingRewards() {
+        return outstandingRewards;
+    }
+
+    /**
+     * The stake, starting block and starting period of a bonded delegation.
+     */
+    protected static final class StartingInfo {
+        final long stake;             // amount of coins being delegated
+        final long blockNumber;       // block number at which delegation was created
+        final long period;            // the period the delegation started after
+
+        StartingInfo(long stake, long blockNumber, long period) {
+            this.stake = stake;
+            this.blockNumber = blockNumber;
+            this.period = period;
+        }
+
+        public byte[] toBytes() {
+            return AionBuffer.allocate(Long.BYTES * 3)
+                    .putLong(stake)
+                    .putLong(blockNumber)
+                    .putLong(period)
+                    .getArray();
+        }
+
+        public static StartingInfo fromBytes(byte[] bytes) {
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            return new StartingInfo(buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+    }
+
+    /**
+     * The cumulative CRR at the end of a period, and the number of references to it.
+     */
+    protected static final class HistoricalCRR {
+        final Decimal crr;
+        int referenceCount;
+
+        HistoricalCRR(Decimal crr, int referenceCount) {
+            this.crr = crr;
+            this.referenceCount = referenceCount;
+        }
+
+        public byte[] toBytes() {
+            AionBuffer buffer = AionBuffer.allocate(Decimal.ENCODED_SIZE + Integer.BYTES);
+            crr.writeTo(buffer);
+            return buffer.putInt(referenceCount).getArray();
+        }
+
+        public static HistoricalCRR fromBytes(byte[] bytes) {
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            return new HistoricalCRR(Decimal.readFrom(buffer), buffer.getInt());
+        }
+    }
+}
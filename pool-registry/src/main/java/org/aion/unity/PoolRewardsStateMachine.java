@@ -1,249 +1,90 @@
 package org.aion.unity;
 
 import avm.Address;
-import avm.Blockchain;
-import org.aion.avm.userlib.AionMap;
-
-import java.util.Map;
+import org.aion.avm.userlib.AionBuffer;
 
 /**
- * See https://github.com/ali-sharif/f1-fee-distribution for a PoC implementation of the F1 algorithm
- * TODO: need more tests for this class
+ * The F1 rewards of a pool, as stored by the contract.
+ * <p>
+ * The scalar state is persisted as part of the {@link PoolState} record, while the per-delegator
+ * state is kept under (pool, delegator) keys and the CRR checkpoints under (pool, period) keys,
+ * see {@link PoolStorage}. The arithmetic itself is
+ * in {@link PoolRewardsEngine}.
  */
-public class PoolRewardsStateMachine {
-    // pool variables
-    private int fee; // 0-100%
-
-    // state variables
-    private long accumulatedStake; // stake accumulated in the pool
-    private long accumulatedBlockRewards; // rewards paid to pool per block
-
-    // commission is handled separately
-    private long accumulatedCommission;
-    private long withdrawnCommission;
-
-    private long outstandingRewards; // total coins (as rewards), owned by the pool
-
-    private long currentRewards; // rewards accumulated this period
-
-    private Map<Address, Long> settledRewards = new AionMap<>(); // rewards in the "settled" state
-    private Map<Address, Long> withdrawnRewards = new AionMap<>(); // rewards withdrawn from the pool, by each delegator
-
-    private Map<Address, StartingInfo> delegations; // total delegations per delegator
+public class PoolRewardsStateMachine extends PoolRewardsEngine<Address> {
+    static final int ENCODED_SIZE = STATE_SIZE;
 
-    Decimal currentCRR;
-    Decimal prevCRR;
-
-    long getWithdrawnRewards(Address delegator) {
-        return getOrDefault(withdrawnRewards, delegator, 0L);
-    }
+    private final Address pool;
 
     // Initialize pool
-    public PoolRewardsStateMachine(int fee) {
-        assert (fee >= 0 && fee <= 100);
-        this.fee = fee;
-
-        currentCRR = Decimal.ZERO;
-        prevCRR = Decimal.ZERO;
-
-        delegations = new AionMap<>();
+    public PoolRewardsStateMachine(Address pool, int fee) {
+        super(fee);
+        this.pool = pool;
     }
 
     /* ----------------------------------------------------------------------
-     * Leave and Join Functions
+     * Storage
      * ----------------------------------------------------------------------*/
 
-    /**
-     * @return the bonded stake that just "left"
-     */
-    private long leave(Address delegator, long blockNumber) {
-        assert (delegator != null && delegations.containsKey(delegator)); // sanity check
-
-        incrementPeriod();
-        long rewards = calculateUnsettledRewards(delegator, blockNumber);
-
-        settledRewards.put(delegator, rewards + getOrDefault(settledRewards, delegator, 0L));
-
-        StartingInfo startingInfo = delegations.get(delegator);
-        long stake = startingInfo.stake;
-
-        delegations.remove(delegator);
-
-        accumulatedStake -= stake;
-
-        return stake;
+    void writeTo(AionBuffer buffer) {
+        writeStateTo(buffer);
     }
 
-    private void join(Address delegator, long blockNumber, long stake) {
-        assert (delegator != null && !delegations.containsKey(delegator)); // sanity check
-
-        // add this new delegation to our store
-        delegations.put(delegator, new StartingInfo(stake, blockNumber, currentCRR));
-
-        accumulatedStake += stake;
-    }
-
-    /* ----------------------------------------------------------------------
-     * "Internal" Functions used by Leave and Join
-     * ----------------------------------------------------------------------*/
-
-    private void incrementPeriod() {
-        // Blockchain.println("Increment period: acc_rewards = " + accumulatedBlockRewards);
-
-        // deal with the block rewards
-        long commission = Decimal.valueOf(fee * accumulatedBlockRewards)
-                .divideTruncate(Decimal.valueOf(100))
-                .getTruncated().longValueExact();
-        long shared = accumulatedBlockRewards - commission;
-
-        this.accumulatedCommission += commission;
-        this.currentRewards += shared;
-        this.outstandingRewards += accumulatedBlockRewards;
-
-        // "reset" the block rewards accumulator
-        accumulatedBlockRewards = 0;
-
-        // deal with the CRR computations
-        if (accumulatedStake > 0) {
-            prevCRR = currentCRR;
-
-            Decimal crr = Decimal.valueOf(currentRewards).divideTruncate(Decimal.valueOf(accumulatedStake));
-            currentCRR = currentCRR.add(crr);
-        } else {
-            // if there is no stake, then there should be no way to have accumulated rewards
-            assert (currentRewards == 0);
-        }
-
-        currentRewards = 0;
+    static PoolRewardsStateMachine readFrom(Address pool, AionBuffer buffer) {
+        PoolRewardsStateMachine rewards = new PoolRewardsStateMachine(pool, 0);
+        rewards.readStateFrom(buffer);
+        return rewards;
     }
 
-    private long calculateUnsettledRewards(Address delegator, long blockNumber) {
-        StartingInfo startingInfo = delegations.get(delegator);
-
-        if (startingInfo == null) {
-            return 0;
-        }
-
-        // cannot calculate delegation rewards for blocks before stake was delegated
-        assert (startingInfo.blockNumber <= blockNumber);
-
-        // if a new period was created this block, then no rewards could be "settled" at this block
-        if (startingInfo.blockNumber == blockNumber)
-            return 0L;
-
-        long stake = startingInfo.stake;
-
-        // return stake * (ending - starting)
-        Decimal startingCRR = startingInfo.crr;
-        Decimal endingCRR = currentCRR;
-        Decimal differenceCRR = endingCRR.subtract(startingCRR);
-
-        Blockchain.println("CCR: start = " + startingCRR + ", end = " + endingCRR + ", diff = " + differenceCRR);
-
-        return differenceCRR.multiplyTruncate(Decimal.valueOf(stake)).getTruncated().longValueExact();
+    @Override
+    protected long getWithdrawnRewards(Address delegator) {
+        return PoolStorage.getLong(PoolStorage.key(PoolStorage.WITHDRAWN_REWARDS, pool, delegator));
     }
 
-    /* ----------------------------------------------------------------------
-     * Contract Lifecycle Functions
-     * ----------------------------------------------------------------------*/
-    public void onUnvote(Address delegator, long blockNumber, long stake) {
-        assert (delegations.containsKey(delegator));
-        long prevBond = delegations.get(delegator).stake;
-        assert (stake <= prevBond); // make sure the amount of unvote requested is legal.
-
-        long unbondedStake = leave(delegator, blockNumber);
-        assert (unbondedStake == prevBond);
-
-        // if they didn't fully un-bond, re-bond the remaining amount
-        long nextBond = prevBond - stake;
-        if (nextBond > 0) {
-            join(delegator, blockNumber, nextBond);
-        }
+    @Override
+    protected void putWithdrawnRewards(Address delegator, long rewards) {
+        PoolStorage.putLong(PoolStorage.key(PoolStorage.WITHDRAWN_REWARDS, pool, delegator), rewards);
     }
 
-    public void onVote(Address delegator, long blockNumber, long stake) {
-        assert (stake >= 0);
-
-        long prevBond = 0L;
-        if (delegations.containsKey(delegator))
-            prevBond = leave(delegator, blockNumber);
-        else
-            incrementPeriod();
-
-        long nextBond = prevBond + stake;
-        join(delegator, blockNumber, nextBond);
+    @Override
+    protected long getSettledRewards(Address delegator) {
+        return PoolStorage.getLong(PoolStorage.key(PoolStorage.SETTLED_REWARDS, pool, delegator));
     }
 
-    /**
-     * Withdraw is all or nothing, since that is both simpler, implementation-wise and does not make
-     * much sense for people to partially withdraw. The problem we run into is that if the amount requested
-     * for withdraw, can be less than the amount settled, in which case, it's not obvious if we should perform
-     * a settlement ("leave") or save on gas and just withdraw out the rewards.
-     */
-    public long onWithdraw(Address delegator, long blockNumber) {
-        if (delegations.containsKey(delegator)) {
-            // do a "leave-and-join"
-            long unbondedStake = leave(delegator, blockNumber);
-            join(delegator, blockNumber, unbondedStake);
-        }
-
-        // if I don't see a delegation, then you must have been settled already.
-
-        // now that all rewards owed to you are settled, you can withdraw them all at once
-        long rewards = getOrDefault(settledRewards, delegator, 0L);
-        settledRewards.remove(delegator);
-
-        withdrawnRewards.put(delegator, rewards + getOrDefault(withdrawnRewards, delegator, 0L));
-        outstandingRewards -= rewards;
-
-        return rewards;
+    @Override
+    protected void putSettledRewards(Address delegator, long rewards) {
+        PoolStorage.putLong(PoolStorage.key(PoolStorage.SETTLED_REWARDS, pool, delegator), rewards);
     }
 
-    public long onWithdrawOperator() {
-        long c = accumulatedCommission;
-        accumulatedCommission = 0;
-
-        withdrawnCommission += c;
-        outstandingRewards -= c;
-
-        return c;
+    @Override
+    protected StartingInfo getStartingInfo(Address delegator) {
+        byte[] bytes = PoolStorage.get(PoolStorage.key(PoolStorage.STARTING_INFO, pool, delegator));
+        return bytes == null ? null : StartingInfo.fromBytes(bytes);
     }
 
-    public void onBlock(long blockNumber, long blockReward) {
-        assert (blockNumber > 0 && blockReward > 0); // sanity check
-
-        accumulatedBlockRewards += blockReward;
+    @Override
+    protected void putStartingInfo(Address delegator, StartingInfo startingInfo) {
+        PoolStorage.put(PoolStorage.key(PoolStorage.STARTING_INFO, pool, delegator), startingInfo.toBytes());
     }
 
-    public long getRewards(Address delegator, long blockNumber) {
-        long unsettledRewards = calculateUnsettledRewards(delegator, blockNumber);
-        long settledRewards = getOrDefault(this.settledRewards, delegator, 0L);
-
-        return unsettledRewards + settledRewards;
+    @Override
+    protected void removeStartingInfo(Address delegator) {
+        PoolStorage.remove(PoolStorage.key(PoolStorage.STARTING_INFO, pool, delegator));
     }
 
-    public void setCommissionRate(int newRate) {
-        incrementPeriod();
-        fee = newRate;
+    @Override
+    protected HistoricalCRR getHistoricalCRR(long period) {
+        byte[] bytes = PoolStorage.get(PoolStorage.key(PoolStorage.CRR_HISTORY, pool, period));
+        return bytes == null ? null : HistoricalCRR.fromBytes(bytes);
     }
 
-    private static <K, V> V getOrDefault(Map<K, V> map, K key, V defaultValue) {
-        if (map.containsKey(key)) {
-            return map.get(key);
-        } else {
-            return defaultValue;
-        }
+    @Override
+    protected void putHistoricalCRR(long period, HistoricalCRR historicalCRR) {
+        PoolStorage.put(PoolStorage.key(PoolStorage.CRR_HISTORY, pool, period), historicalCRR.toBytes());
     }
 
-    private static class StartingInfo {
-        public long stake;             // amount of coins being delegated
-        public long blockNumber;       // block number at which delegation was created
-        public Decimal crr;
-
-        public StartingInfo(long stake, long blockNumber, Decimal crr) {
-            this.stake = stake;
-            this.blockNumber = blockNumber;
-            this.crr = crr;
-        }
+    @Override
+    protected void removeHistoricalCRR(long period) {
+        PoolStorage.remove(PoolStorage.key(PoolStorage.CRR_HISTORY, pool, period));
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,18 @@
 package org.aion.unity;
 
 import avm.Address;
-import org.aion.avm.userlib.AionMap;
-
-import java.math.BigInteger;
-import java.util.Map;
+import org.aion.avm.userlib.AionBuffer;
 
 /**
  * Manages the state of a pool.
+ * <p>
+ * The pool state is a fixed-size record, which is read and written in one storage slot.
+ * Delegator stakes, auto-redelegation settings and the per-delegator rewards state live
+ * under their own keys, see {@link PoolStorage}.
  */
 public class PoolState {
+    static final int ENCODED_SIZE = 1 + Address.LENGTH * 3 + Integer.BYTES + Address.LENGTH + 2 + PoolRewardsStateMachine.ENCODED_SIZE;
+
     public boolean isActive;
 
     Address stakerAddress; // a.k.a. owner address
@@ -17,26 +20,51 @@ public class PoolState {
     Address custodianAddress;
 
     int commissionRate; // TODO: add max commission rate?
-    byte[] metaDataUrl;
-    byte[] metaDataContentHash;
 
-    // TODO: opportunity for optimization, duplicate delegator map
+    // local copy of the staker registry state, kept current by the listener callbacks
+    Address stakerCoinbaseAddress;
+    boolean isListener;
+    boolean isStakerActive;
+
     PoolRewardsStateMachine rewards;
-    Map<Address, BigInteger> delegators;
-    Map<Address, Integer> autoRewardsDelegationDelegators;
 
-    public PoolState(Address stakerAddress, Address coinbaseAddress, Address custodianAddress, int commissionRate, byte[] metaDataUrl, byte[] metaDataContentHash) {
+    public PoolState(Address stakerAddress, Address coinbaseAddress, Address custodianAddress, int commissionRate) {
         this.isActive = false;
         this.stakerAddress = stakerAddress;
         this.coinbaseAddress = coinbaseAddress;
         this.custodianAddress = custodianAddress;
         this.commissionRate = commissionRate;
 
-        this.metaDataUrl = metaDataUrl;
-        this.metaDataContentHash = metaDataContentHash;
+        this.stakerCoinbaseAddress = coinbaseAddress;
+        this.isListener = false;
+        this.isStakerActive = true;
+
+        this.rewards = new PoolRewardsStateMachine(stakerAddress, 0);
+    }
+
+    byte[] toBytes() {
+        AionBuffer buffer = AionBuffer.allocate(ENCODED_SIZE)
+                .putBoolean(isActive)
+                .putAddress(stakerAddress)
+                .putAddress(coinbaseAddress)
+                .putAddress(custodianAddress)
+                .putInt(commissionRate)
+                .putAddress(stakerCoinbaseAddress)
+                .putBoolean(isListener)
+                .putBoolean(isStakerActive);
+        rewards.writeTo(buffer);
+        return buffer.getArray();
+    }
 
-        this.rewards = new PoolRewardsStateMachine(0);
-        this.delegators = new AionMap<>();
-        this.autoRewardsDelegationDelegators = new AionMap<>();
+    static PoolState fromBytes(byte[] bytes) {
+        AionBuffer buffer = AionBuffer.wrap(bytes);
+        boolean isActive = buffer.getBoolean();
+        PoolState ps = new PoolState(buffer.getAddress(), buffer.getAddress(), buffer.getAddress(), buffer.getInt());
+        ps.isActive = isActive;
+        ps.stakerCoinbaseAddress = buffer.getAddress();
+        ps.isListener = buffer.getBoolean();
+        ps.isStakerActive = buffer.getBoolean();
+        ps.rewards = PoolRewardsStateMachine.readFrom(ps.stakerAddress, buffer);
+        return ps;
     }
 }
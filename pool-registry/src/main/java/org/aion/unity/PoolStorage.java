@@ -0,0 +1,111 @@
+package org.aion.unity;
+
+import avm.Address;
+import avm.Blockchain;
+import org.aion.avm.userlib.AionBuffer;
+
+import java.math.BigInteger;
+
+/**
+ * Key-value storage helpers for the pool registry.
+ * <p>
+ * Every entry lives under a 32-byte key, which is the blake2b hash of a one-byte prefix
+ * followed by the fields identifying the entry, e.g. (pool, delegator) for a stake. The
+ * state of one pool is sharded across these keys, so operating on a small pool does not
+ * pay for the state of the large ones.
+ */
+public class PoolStorage {
+
+    // key prefixes
+    static final byte POOL = 0x00;                   // pool -> pool state record
+    static final byte POOL_META_DATA = 0x01;         // pool -> meta data url and content hash
+    static final byte STAKE = 0x02;                  // (pool, delegator) -> stake
+    static final byte AUTO_DELEGATION_FEE = 0x03;    // (pool, delegator) -> auto-redelegation fee
+    static final byte STARTING_INFO = 0x04;          // (pool, delegator) -> F1 starting info
+    static final byte SETTLED_REWARDS = 0x05;        // (pool, delegator) -> settled rewards
+    static final byte WITHDRAWN_REWARDS = 0x06;      // (pool, delegator) -> withdrawn rewards
+    static final byte STAKE_TRANSFER = 0x07;         // id -> pending stake transfer
+    static final byte DELEGATORS = 0x08;             // pool -> delegator list, (pool, delegator) -> list links
+    static final byte SUBSCRIBERS = 0x09;            // pool -> auto-redelegation subscriber list, (pool, delegator) -> list links
+    static final byte CRR_HISTORY = 0x0A;            // (pool, period) -> F1 CRR checkpoint
+
+    static byte[] key(byte prefix, Address address) {
+        return Blockchain.blake2b(AionBuffer.allocate(1 + Address.LENGTH)
+                .putByte(prefix)
+                .putAddress(address)
+                .getArray());
+    }
+
+    static byte[] key(byte prefix, Address address1, Address address2) {
+        return Blockchain.blake2b(AionBuffer.allocate(1 + Address.LENGTH * 2)
+                .putByte(prefix)
+                .putAddress(address1)
+                .putAddress(address2)
+                .getArray());
+    }
+
+    static byte[] key(byte prefix, Address address, long id) {
+        return Blockchain.blake2b(AionBuffer.allocate(1 + Address.LENGTH + Long.BYTES)
+                .putByte(prefix)
+                .putAddress(address)
+                .putLong(id)
+                .getArray());
+    }
+
+    static byte[] key(byte prefix, long id) {
+        return Blockchain.blake2b(AionBuffer.allocate(1 + Long.BYTES)
+                .putByte(prefix)
+                .putLong(id)
+                .getArray());
+    }
+
+    static byte[] get(byte[] key) {
+        return Blockchain.getStorage(key);
+    }
+
+    static void put(byte[] key, byte[] value) {
+        Blockchain.putStorage(key, value);
+    }
+
+    static void remove(byte[] key) {
+        Blockchain.putStorage(key, null);
+    }
+
+    /**
+     * Returns the long stored under the key, or zero if absent.
+     */
+    static long getLong(byte[] key) {
+        byte[] value = get(key);
+        return value == null ? 0L : AionBuffer.wrap(value).getLong();
+    }
+
+    /**
+     * Stores a long; a zero value removes the entry.
+     */
+    static void putLong(byte[] key, long value) {
+        if (value == 0) {
+            remove(key);
+        } else {
+            put(key, AionBuffer.allocate(Long.BYTES).putLong(value).getArray());
+        }
+    }
+
+    /**
+     * Returns the non-negative integer stored under the key, or zero if absent.
+     */
+    static BigInteger getBigInteger(byte[] key) {
+        byte[] value = get(key);
+        return value == null ? BigInteger.ZERO : new BigInteger(value);
+    }
+
+    /**
+     * Stores a non-negative integer; a zero value removes the entry.
+     */
+    static void putBigInteger(byte[] key, BigInteger value) {
+        if (value.signum() == 0) {
+            remove(key);
+        } else {
+            put(key, value.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.aion.unity;
+
+import org.aion.avm.userlib.AionBuffer;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that {@link Decimal} gives the same results as {@link ReferenceDecimal} on a
+ * randomized corpus, and raises an ArithmeticException where the result leaves the
+ * unsigned 128-bit range.
+ */
+public class DecimalTest {
+
+    private static final BigInteger MAX_VALUE = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+    private static final int CORPUS_SIZE = 200_000;
+
+    @Test
+    public void testValueOf() {
+        long[] values = {0, 1, 100, 1_000_000_000_000_000_000L, Long.MAX_VALUE};
+        for (long v : values) {
+            assertSame(ReferenceDecimal.valueOf(v), Decimal.valueOf(v));
+            assertEquals(BigInteger.valueOf(v), Decimal.valueOf(v).getTruncated());
+            assertEquals(v, Decimal.valueOf(v).longValueExact());
+        }
+    }
+
+    @Test
+    public void testRandomizedCorpus() {
+        Random random = new Random(42);
+
+        // a pool of operands, which grows with the results
+        List<Decimal> values = new ArrayList<>();
+        List<ReferenceDecimal> references = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            long v = randomLong(random);
+            values.add(Decimal.valueOf(v));
+            references.add(ReferenceDecimal.valueOf(v));
+        }
+
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            int x = random.nextInt(values.size());
+            int y = random.nextInt(values.size());
+            Decimal a = values.get(x);
+            Decimal b = values.get(y);
+            ReferenceDecimal ra = references.get(x);
+            ReferenceDecimal rb = references.get(y);
+
+            int op = random.nextInt(5);
+            ReferenceDecimal expected;
+            switch (op) {
+                case 0:
+                    expected = ra.add(rb);
+                    break;
+                case 1:
+                    expected = ra.subtract(rb);
+                    break;
+                case 2:
+                    expected = ra.multiplyTruncate(rb);
+                    break;
+                case 3:
+                    if (rb.unscaledValue().signum() == 0) {
+                        continue;
+                    }
+                    expected = ra.divideTruncate(rb);
+                    break;
+                default:
+                    long v = randomLong(random);
+                    expected = ReferenceDecimal.valueOf(v);
+                    b = Decimal.valueOf(v);
+                    rb = expected;
+                    break;
+            }
+
+            Decimal actual;
+            try {
+                switch (op) {
+                    case 0:
+                        actual = a.add(b);
+                        break;
+                    case 1:
+                        actual = a.subtract(b);
+                        break;
+                    case 2:
+                        actual = a.multiplyTruncate(b);
+                        break;
+                    case 3:
+                        actual = a.divideTruncate(b);
+                        break;
+                    default:
+                        actual = b;
+                        break;
+                }
+            } catch (ArithmeticException e) {
+                assertTrue("unexpected overflow for op " + op, !inRange(expected));
+                continue;
+            }
+            if (!inRange(expected)) {
+                fail("expected an overflow for op " + op);
+            }
+
+            assertSame(expected, actual);
+            assertEquals(expected.getTruncated(), actual.getTruncated());
+            assertEquals(ra.compareTo(rb) > 0, a.greaterThan(b));
+            assertEquals(ra.compareTo(rb) <= 0, a.lessThanOrEqualTo(b));
+
+            // replace an operand, keeping the pool diverse
+            int slot = random.nextInt(values.size());
+            values.set(slot, actual);
+            references.set(slot, expected);
+        }
+    }
+
+    @Test
+    public void testSerialization() {
+        Decimal d = Decimal.valueOf(123_456_789L).divideTruncate(Decimal.valueOf(7L));
+        AionBuffer buffer = AionBuffer.allocate(Decimal.ENCODED_SIZE);
+        d.writeTo(buffer);
+        Decimal copy = Decimal.readFrom(AionBuffer.wrap(buffer.getArray()));
+        assertTrue(d.equals(copy));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testNegativeResult() {
+        Decimal.ONE.subtract(Decimal.valueOf(2));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testDivideByZero() {
+        Decimal.ONE.divideTruncate(Decimal.ZERO);
+    }
+
+    private static void assertSame(ReferenceDecimal expected, Decimal actual) {
+        assertEquals(expected.unscaledValue(), actual.unscaledValue());
+    }
+
+    private static boolean inRange(ReferenceDecimal d) {
+        return d.unscaledValue().signum() >= 0 && d.unscaledValue().compareTo(MAX_VALUE) <= 0;
+    }
+
+    /**
+     * Returns a non-negative long, with the magnitude spread over the whole range.
+     */
+    private static long randomLong(Random random) {
+        return (random.nextLong() >>> 1) >>> random.nextInt(63);
+    }
+}
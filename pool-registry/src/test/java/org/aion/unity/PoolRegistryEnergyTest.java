@@ -0,0 +1,170 @@
+package org.aion.unity;
+
+import avm.Address;
+import org.aion.avm.embed.AvmRule;
+import org.aion.avm.tooling.ABIUtil;
+import org.aion.avm.userlib.abi.ABIStreamingEncoder;
+import org.aion.kernel.TestingState;
+import org.junit.Rule;
+import org.junit.Test;
+import org.web3j.rlp.RlpDecoder;
+import org.web3j.rlp.RlpEncoder;
+import org.web3j.rlp.RlpList;
+import org.web3j.rlp.RlpString;
+import org.web3j.rlp.RlpType;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs every user-facing callable of the pool registry in a canonical scenario, and checks
+ * the energy used against {@code PoolRegistryEnergyBudget.properties}. The paginated queries
+ * read a full page of {@link PoolRegistry#MAX_PAGE_SIZE}. The staker registry callbacks are
+ * covered by the calls which trigger them. See {@link EnergyBudget}.
+ */
+public class PoolRegistryEnergyTest {
+
+    private static BigInteger ENOUGH_BALANCE_TO_TRANSACT = BigInteger.TEN.pow(18 + 5);
+
+    // enough for the pool registration, which deploys the coinbase and custodian contracts
+    private static long ENERGY_LIMIT = 20_000_000L;
+
+    // a full page of auto-redelegations doesn't fit in a transaction, at about 450k energy each
+    private static int AUTO_DELEGATION_BATCH = 10;
+
+    @Rule
+    public AvmRule RULE = new AvmRule(false);
+
+    private EnergyBudget budget = new EnergyBudget(PoolRegistry.class,
+            "onSigningAddressChange", "onCoinbaseAddressChange", "onListenerAdded", "onListenerRemoved",
+            "onActiveStatusChange", "onSlashing");
+
+    private Address preminedAddress = RULE.getPreminedAccount();
+    private Address stakerRegistry;
+    private Address poolRegistry;
+
+    @Test
+    public void testEnergyBudget() throws IOException {
+        byte[] jar = RULE.getDappBytes(StakerRegistry.class, null,
+                AionBlockHeader.class, RlpDecoder.class, RlpEncoder.class, RlpList.class, RlpString.class, RlpType.class,
+                Arrays.class, StakerStorage.class, StakerRegistryEvents.class);
+        stakerRegistry = RULE.deploy(preminedAddress, BigInteger.ZERO, jar).getDappAddress();
+
+        jar = RULE.getDappBytes(PoolRegistry.class, ABIUtil.encodeDeploymentArguments(stakerRegistry),
+                PoolState.class, PoolRewardsStateMachine.class, PoolRewardsEngine.class, Decimal.class, PoolStorage.class, PoolRegistryEvents.class, OrderedAddressSet.class);
+        poolRegistry = RULE.deploy(preminedAddress, BigInteger.ZERO, jar, ENERGY_LIMIT, 1L).getDappAddress();
+
+        Address pool = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address otherPool = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address delegator = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address otherDelegator = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+
+        // registration and delegation
+        call("registerPool", pool, BigInteger.ZERO, RULE.getRandomAddress(BigInteger.ZERO), 10, "https://".getBytes(), "hash".getBytes());
+        call("registerPool", otherPool, BigInteger.ZERO, RULE.getRandomAddress(BigInteger.ZERO), 10, "https://".getBytes(), "hash".getBytes());
+        call("delegate", pool, PoolRegistry.MIN_SELF_STAKE, pool);
+        call("delegate", otherPool, PoolRegistry.MIN_SELF_STAKE, otherPool);
+        call("delegate", delegator, BigInteger.valueOf(1000L), pool);
+        call("delegateAndEnableAutoRedelegation", otherDelegator, BigInteger.valueOf(1000L), pool, 10);
+
+        // a full page of subscribers, for the paginated queries and the batch
+        Address[] subscribers = new Address[PoolRegistry.MAX_PAGE_SIZE];
+        for (int i = 0; i < subscribers.length; i++) {
+            subscribers[i] = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+            byte[] txData = ABIUtil.encodeMethodArguments("delegateAndEnableAutoRedelegation", pool, 10);
+            assertTrue(RULE.call(subscribers[i], poolRegistry, BigInteger.valueOf(1000L), txData, ENERGY_LIMIT, 1L).getReceiptStatus().isSuccess());
+        }
+
+        // queries
+        call("getStakerRegistry", delegator, BigInteger.ZERO);
+        call("getStake", delegator, BigInteger.ZERO, pool, delegator);
+        call("getSelfStake", delegator, BigInteger.ZERO, pool);
+        call("getTotalStake", delegator, BigInteger.ZERO, pool);
+        call("getPoolStatus", delegator, BigInteger.ZERO, pool);
+        call("getAutoRewardsDelegationFee", delegator, BigInteger.ZERO, pool, otherDelegator);
+        call("getDelegatorCount", delegator, BigInteger.ZERO, pool);
+        call("getAutoRewardsDelegationSubscriberCount", delegator, BigInteger.ZERO, pool);
+        assertEquals(PoolRegistry.MAX_PAGE_SIZE, ((Address[]) callFirstPage("getDelegators", pool).getDecodedReturnData()).length);
+        assertEquals(PoolRegistry.MAX_PAGE_SIZE, ((Address[]) callFirstPage("getAutoRewardsDelegationSubscribers", pool).getDecodedReturnData()).length);
+
+        // rewards
+        generateBlock(pool, 1_000_000L);
+        call("withdraw", delegator, BigInteger.ZERO, pool);
+        generateBlock(pool, 1_000_000L);
+        call("redelegate", delegator, BigInteger.ZERO, pool);
+        call("enableAutoRewardsDelegation", delegator, BigInteger.ZERO, pool, 10);
+        call("setAutoRewardsDelegationThreshold", delegator, BigInteger.ZERO, pool, 1L);
+        call("getAutoRewardsDelegationThreshold", delegator, BigInteger.ZERO, pool, delegator);
+        generateBlock(pool, 1_000_000L);
+        call("getRewards", delegator, BigInteger.ZERO, pool, delegator);
+        call("getRewardsBatch", delegator, BigInteger.ZERO, pool, subscribers);
+        assertEquals(PoolRegistry.MAX_PAGE_SIZE, ((long[]) callFirstPage("getAutoRewardsDelegationPendingRewards", pool).getDecodedReturnData()).length);
+        call("autoDelegateRewards", preminedAddress, BigInteger.ZERO, pool, delegator);
+        Address[] batch = new Address[AUTO_DELEGATION_BATCH];
+        System.arraycopy(subscribers, 0, batch, 0, batch.length);
+        call("autoDelegateRewardsBatch", preminedAddress, BigInteger.ZERO, pool, batch);
+        long period = (long) call("getRewardsPeriod", delegator, BigInteger.ZERO, pool).getDecodedReturnData();
+        long startingPeriod = (long) call("getStartingRewardsPeriod", delegator, BigInteger.ZERO, pool, delegator).getDecodedReturnData();
+        call("getRewardsBetween", delegator, BigInteger.ZERO, pool, startingPeriod, period, 1000L);
+        call("disableAutoRewardsDedelegation", delegator, BigInteger.ZERO, pool);
+
+        // un-delegation and transfer
+        long unvote = (long) call("undelegate", delegator, BigInteger.ZERO, pool, 1L).getDecodedReturnData();
+        long otherUnvote = (long) call("undelegate", delegator, BigInteger.ZERO, pool, 1L).getDecodedReturnData();
+        long transfer = (long) call("transferStake", delegator, BigInteger.ZERO, pool, otherPool, 1L).getDecodedReturnData();
+
+        // finalization, after the lock-up and cooling periods
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + Math.max(StakerRegistry.UNVOTE_LOCK_UP_PERIOD, StakerRegistry.SIGNING_ADDRESS_COOLING_PERIOD));
+        call("finalizeUnvote", delegator, BigInteger.ZERO, unvote);
+        call("finalizeUnvotes", delegator, BigInteger.ZERO, new long[]{otherUnvote});
+        call("finalizeTransfer", delegator, BigInteger.ZERO, transfer);
+
+        // management, which notifies the pool registry
+        call("setSigningAddress", pool, BigInteger.ZERO, pool, RULE.getRandomAddress(BigInteger.ZERO));
+
+        budget.verify();
+    }
+
+    private AvmRule.ResultWrapper call(String method, Address from, BigInteger value, Object... args) {
+        byte[] txData = ABIUtil.encodeMethodArguments(method, args);
+        return budget.record(method, RULE.call(from, poolRegistry, value, txData, ENERGY_LIMIT, 1L));
+    }
+
+    /**
+     * Calls a paginated query for a full first page.
+     */
+    private AvmRule.ResultWrapper callFirstPage(String method, Address pool) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString(method)
+                .encodeOneAddress(pool)
+                .encodeOneAddress(null)
+                .encodeOneInteger(PoolRegistry.MAX_PAGE_SIZE)
+                .toBytes();
+        return budget.record(method, RULE.call(preminedAddress, poolRegistry, BigInteger.ZERO, txData, ENERGY_LIMIT, 1L));
+    }
+
+    private void generateBlock(Address pool, long blockRewards) {
+        byte[] txData = ABIUtil.encodeMethodArguments("getCoinbaseAddress", pool);
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        Address coinbaseAddress = (Address) result.getDecodedReturnData();
+        RULE.balanceTransfer(preminedAddress, coinbaseAddress, BigInteger.valueOf(blockRewards), 1_000_000L, 1);
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + 1);
+    }
+
+    private void tweakBlockNumber(long number) {
+        try {
+            Field f = TestingState.class.getDeclaredField("blockNumber");
+            f.setAccessible(true);
+
+            f.set(RULE.kernel, number);
+
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -4,17 +4,24 @@ import avm.Address;
 import org.aion.avm.embed.AvmRule;
 import org.aion.avm.tooling.ABIUtil;
 import org.aion.avm.userlib.abi.ABIStreamingEncoder;
-import org.aion.kernel.TestingKernel;
+import org.aion.kernel.TestingState;
+import org.aion.types.AionAddress;
+import org.aion.types.Log;
 import org.aion.types.TransactionStatus;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.spongycastle.util.encoders.Hex;
+import org.web3j.rlp.RlpDecoder;
+import org.web3j.rlp.RlpEncoder;
+import org.web3j.rlp.RlpList;
+import org.web3j.rlp.RlpString;
+import org.web3j.rlp.RlpType;
 
 import java.lang.reflect.Field;
 import java.math.BigInteger;
-import java.util.Scanner;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -35,27 +42,34 @@ public class PoolRegistryTest {
 
     @Before
     public void setup() {
-        try (Scanner s = new Scanner(PoolRegistryTest.class.getResourceAsStream("StakerRegistry.txt"))) {
-            String contract = s.nextLine();
-            AvmRule.ResultWrapper result = RULE.deploy(preminedAddress, BigInteger.ZERO, Hex.decode(contract));
-            assertTrue(result.getReceiptStatus().isSuccess());
-            stakerRegistry = result.getDappAddress();
-        }
+        byte[] jar = RULE.getDappBytes(StakerRegistry.class, null,
+                AionBlockHeader.class, RlpDecoder.class, RlpEncoder.class, RlpList.class, RlpString.class, RlpType.class,
+                Arrays.class, StakerStorage.class, StakerRegistryEvents.class);
+        AvmRule.ResultWrapper result = RULE.deploy(preminedAddress, BigInteger.ZERO, jar);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        stakerRegistry = result.getDappAddress();
 
         byte[] arguments = ABIUtil.encodeDeploymentArguments(stakerRegistry);
-        byte[] data = RULE.getDappBytes(PoolRegistry.class, arguments, PoolState.class, PoolRewardsStateMachine.class, Decimal.class);
-        AvmRule.ResultWrapper result = RULE.deploy(preminedAddress, BigInteger.ZERO, data);
+        byte[] data = RULE.getDappBytes(PoolRegistry.class, arguments, PoolState.class, PoolRewardsStateMachine.class, PoolRewardsEngine.class, Decimal.class, PoolStorage.class, PoolRegistryEvents.class, OrderedAddressSet.class);
+        result = RULE.deploy(preminedAddress, BigInteger.ZERO, data, 20_000_000L, 1L);
         assertTrue(result.getReceiptStatus().isSuccess());
         poolRegistry = result.getDappAddress();
     }
 
     public Address setupNewPool(int fee) {
+        return setupNewPool(fee, null);
+    }
+
+    /**
+     * Registers a pool which signs with the given address, or its own address if null.
+     */
+    public Address setupNewPool(int fee, Address signingAddress) {
         Address newPool = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
 
         // STEP-1 register a new pool
         byte[] txData = new ABIStreamingEncoder()
                 .encodeOneString("registerPool")
-                .encodeOneAddress(newPool)
+                .encodeOneAddress(signingAddress == null ? newPool : signingAddress)
                 .encodeOneInteger(fee)
                 .encodeOneByteArray("https://".getBytes())
                 .encodeOneByteArray("hash".getBytes())
@@ -135,6 +149,17 @@ public class PoolRegistryTest {
         AvmRule.ResultWrapper result = RULE.call(preminedAddress, poolRegistry, stake, txData);
         assertTrue(result.getReceiptStatus().isSuccess());
 
+        // the Delegated event, next to the Voted event of the staker registry
+        boolean delegated = false;
+        for (Log log : result.getLogs()) {
+            List<byte[]> topics = log.copyOfTopics();
+            delegated |= topics.size() == 3
+                    && Arrays.equals(pool.toByteArray(), topics.get(1))
+                    && Arrays.equals(preminedAddress.toByteArray(), topics.get(2))
+                    && stake.equals(new BigInteger(1, log.copyOfData()));
+        }
+        assertTrue(delegated);
+
         txData = new ABIStreamingEncoder()
                 .encodeOneString("getStake")
                 .encodeOneAddress(pool)
@@ -145,6 +170,48 @@ public class PoolRegistryTest {
         assertEquals(stake.longValue(), result.getDecodedReturnData());
     }
 
+    @Test
+    public void testDelegateAndEnableAutoRedelegation() {
+        Address pool = setupNewPool(10);
+        Address delegator = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        BigInteger stake = BigInteger.TEN;
+
+        // the call carries the stake, so enabling must not go through the callable, which rejects value
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("delegateAndEnableAutoRedelegation")
+                .encodeOneAddress(pool)
+                .encodeOneInteger(20)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(delegator, poolRegistry, stake, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getAutoRewardsDelegationFee")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(delegator)
+                .toBytes();
+        result = RULE.call(delegator, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(20, result.getDecodedReturnData());
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getAutoRewardsDelegationSubscriberCount")
+                .encodeOneAddress(pool)
+                .toBytes();
+        result = RULE.call(delegator, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(1, result.getDecodedReturnData());
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getStake")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(poolRegistry)
+                .toBytes();
+        result = RULE.call(delegator, stakerRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(stake.longValue(), result.getDecodedReturnData());
+    }
+
     @Test
     public void testUndelegate() {
         Address pool = setupNewPool(10);
@@ -214,7 +281,7 @@ public class PoolRegistryTest {
         assertTrue(result.getReceiptStatus().isSuccess());
 
         // bump block number and finalize the transfer
-        tweakBlockNumber(1 + 6 * 10);
+        tweakBlockNumber(getBlockNumber() + 6 * 10);
         txData = new ABIStreamingEncoder()
                 .encodeOneString("finalizeTransfer")
                 .encodeOneLong(id)
@@ -306,6 +373,318 @@ public class PoolRegistryTest {
         assertEquals(nStake(1).longValue() + (reward - reward * 20 / 100), result.getDecodedReturnData());
     }
 
+    @Test
+    public void testAutoRedelegateWithReenteringKeeper() {
+        checkReenteringKeeper("autoDelegateRewards");
+    }
+
+    @Test
+    public void testAutoRedelegateBatchWithReenteringKeeper() {
+        checkReenteringKeeper("autoDelegateRewardsBatch");
+    }
+
+    @Test
+    public void testUsecaseAutoRedelegateBatch() {
+        Address pool = setupNewPool(4);
+        Address user1 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address user2 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address user3 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        delegate(user1, pool, nStake(1));
+        delegate(user2, pool, nStake(1));
+        delegate(user3, pool, nStake(1));
+
+        // user3 does not enable auto delegation
+        for (Address user : new Address[]{user1, user2}) {
+            byte[] txData = new ABIStreamingEncoder()
+                    .encodeOneString("enableAutoRewardsDelegation")
+                    .encodeOneAddress(pool)
+                    .encodeOneInteger(20)
+                    .toBytes();
+            AvmRule.ResultWrapper result = RULE.call(user, poolRegistry, BigInteger.ZERO, txData);
+            assertTrue(result.getReceiptStatus().isSuccess());
+        }
+
+        // produce a block
+        generateBlock(pool, 100);
+
+        // some third party compounds all three in one call
+        Address random = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("autoDelegateRewardsBatch")
+                .encodeOneAddress(pool)
+                .encodeOneAddressArray(new Address[]{user1, user2, user3})
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(random, poolRegistry, BigInteger.ZERO, txData, 5_000_000L, 1L);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(2, result.getDecodedReturnData());
+
+        // the stake of the delegators, voted by the pool registry
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getStake")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(poolRegistry)
+                .toBytes();
+        result = RULE.call(random, stakerRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        long reward = (100 - 4) / 4;
+        assertEquals(nStake(3).longValue() + 2 * (reward - reward * 20 / 100), result.getDecodedReturnData());
+
+        // user3 was skipped
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getStake")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(user3)
+                .toBytes();
+        result = RULE.call(random, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(nStake(1).longValue(), result.getDecodedReturnData());
+    }
+
+    @Test
+    public void testUsecaseAutoRedelegateThreshold() {
+        Address pool = setupNewPool(4);
+        Address user1 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address user2 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        delegate(user1, pool, nStake(1));
+        delegate(user2, pool, nStake(1));
+
+        for (Address user : new Address[]{user1, user2}) {
+            byte[] txData = new ABIStreamingEncoder()
+                    .encodeOneString("enableAutoRewardsDelegation")
+                    .encodeOneAddress(pool)
+                    .encodeOneInteger(20)
+                    .toBytes();
+            AvmRule.ResultWrapper result = RULE.call(user, poolRegistry, BigInteger.ZERO, txData);
+            assertTrue(result.getReceiptStatus().isSuccess());
+        }
+
+        // user2 only compounds 1000 or more
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("setAutoRewardsDelegationThreshold")
+                .encodeOneAddress(pool)
+                .encodeOneLong(1000L)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(user2, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+
+        // produce a block, which is still in the coinbase
+        generateBlock(pool, 100);
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getAutoRewardsDelegationPendingRewards")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(null)
+                .encodeOneInteger(10)
+                .toBytes();
+        result = RULE.call(preminedAddress, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        long reward = (100 - 4) / 3;
+        Assert.assertArrayEquals(new long[]{reward, 0L}, (long[]) result.getDecodedReturnData());
+
+        // user2 is skipped by the batch, and rejected on its own
+        Address random = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("autoDelegateRewardsBatch")
+                .encodeOneAddress(pool)
+                .encodeOneAddressArray(new Address[]{user1, user2})
+                .toBytes();
+        result = RULE.call(random, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(1, result.getDecodedReturnData());
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("autoDelegateRewards")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(user2)
+                .toBytes();
+        result = RULE.call(random, poolRegistry, BigInteger.ZERO, txData);
+        Assert.assertFalse(result.getReceiptStatus().isSuccess());
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getStake")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(user1)
+                .toBytes();
+        result = RULE.call(random, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(nStake(1).longValue() + (reward - reward * 20 / 100), result.getDecodedReturnData());
+    }
+
+    @Test
+    public void testGetRewards() {
+        Address pool = setupNewPool(4);
+        Address user1 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address user2 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        delegate(user1, pool, nStake(1));
+
+        // produce a block, which is still in the coinbase
+        generateBlock(pool, 100);
+
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("getRewards")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(user1)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(user1, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        long reward = (100 - 4) / 2;
+        assertEquals(reward, result.getDecodedReturnData());
+
+        // the owner also gets the commission
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getRewardsBatch")
+                .encodeOneAddress(pool)
+                .encodeOneAddressArray(new Address[]{user1, pool, user2})
+                .toBytes();
+        result = RULE.call(user1, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertArrayEquals(new long[]{reward, reward + 4, 0L}, (long[]) result.getDecodedReturnData());
+
+        // which is what a withdrawal pays
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("withdraw")
+                .encodeOneAddress(pool)
+                .toBytes();
+        result = RULE.call(user1, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(reward, result.getDecodedReturnData());
+    }
+
+    @Test
+    public void testRewardsPeriods() {
+        Address pool = setupNewPool(4);
+        Address user1 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address user2 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        delegate(user1, pool, nStake(1));
+        delegate(user2, pool, nStake(1));
+
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("getRewardsPeriod")
+                .encodeOneAddress(pool)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(user1, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        long period = (long) result.getDecodedReturnData();
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getStartingRewardsPeriod")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(user2)
+                .toBytes();
+        result = RULE.call(user1, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(period, result.getDecodedReturnData());
+
+        // the rewards are distributed on the withdrawal, which starts a new period
+        generateBlock(pool, 100);
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("withdraw")
+                .encodeOneAddress(pool)
+                .toBytes();
+        result = RULE.call(user1, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        long reward = (long) result.getDecodedReturnData();
+
+        // user2 still refers to the first period, so both are kept
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getRewardsBetween")
+                .encodeOneAddress(pool)
+                .encodeOneLong(period)
+                .encodeOneLong(period + 1)
+                .encodeOneLong(nStake(1).longValue())
+                .toBytes();
+        result = RULE.call(user1, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(reward, result.getDecodedReturnData());
+
+        // a period which was never reached
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getRewardsBetween")
+                .encodeOneAddress(pool)
+                .encodeOneLong(period)
+                .encodeOneLong(period + 2)
+                .encodeOneLong(nStake(1).longValue())
+                .toBytes();
+        result = RULE.call(user1, poolRegistry, BigInteger.ZERO, txData);
+        Assert.assertFalse(result.getReceiptStatus().isSuccess());
+    }
+
+    @Test
+    public void testEnumerateDelegators() {
+        Address pool = setupNewPool(4);
+        Address user1 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address user2 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address user3 = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        delegate(user1, pool, nStake(1));
+        delegate(user2, pool, nStake(1));
+        delegate(user3, pool, nStake(1));
+
+        // two pages, in the order of the first delegation
+        Assert.assertArrayEquals(new Address[]{pool, user1}, getPage("getDelegators", pool, null, 2));
+        Assert.assertArrayEquals(new Address[]{user2, user3}, getPage("getDelegators", pool, user1, 2));
+        Assert.assertArrayEquals(new Address[0], getPage("getDelegators", pool, user3, 2));
+
+        // a delegator who un-delegates everything is removed
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("undelegate")
+                .encodeOneAddress(pool)
+                .encodeOneLong(nStake(1).longValue())
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(user2, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertArrayEquals(new Address[]{pool, user1, user3}, getPage("getDelegators", pool, null, 10));
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getDelegatorCount")
+                .encodeOneAddress(pool)
+                .toBytes();
+        result = RULE.call(user1, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(3, result.getDecodedReturnData());
+
+        // subscribers come and go independently of the stake
+        for (Address user : new Address[]{user3, user1}) {
+            txData = new ABIStreamingEncoder()
+                    .encodeOneString("enableAutoRewardsDelegation")
+                    .encodeOneAddress(pool)
+                    .encodeOneInteger(10)
+                    .toBytes();
+            result = RULE.call(user, poolRegistry, BigInteger.ZERO, txData);
+            assertTrue(result.getReceiptStatus().isSuccess());
+        }
+        Assert.assertArrayEquals(new Address[]{user3, user1}, getPage("getAutoRewardsDelegationSubscribers", pool, null, 10));
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("disableAutoRewardsDedelegation")
+                .encodeOneAddress(pool)
+                .toBytes();
+        result = RULE.call(user3, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertArrayEquals(new Address[]{user1}, getPage("getAutoRewardsDelegationSubscribers", pool, null, 10));
+
+        // a removed cursor is rejected
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getAutoRewardsDelegationSubscribers")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(user3)
+                .encodeOneInteger(10)
+                .toBytes();
+        result = RULE.call(user1, poolRegistry, BigInteger.ZERO, txData);
+        Assert.assertFalse(result.getReceiptStatus().isSuccess());
+    }
+
+    private Address[] getPage(String method, Address pool, Address cursor, int limit) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString(method)
+                .encodeOneAddress(pool)
+                .encodeOneAddress(cursor)
+                .encodeOneInteger(limit)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        return (Address[]) result.getDecodedReturnData();
+    }
+
     @Test
     public void testUsecaseWithdraw() {
         Address pool = setupNewPool(4);
@@ -436,7 +815,8 @@ public class PoolRegistryTest {
 
     @Test
     public void testSlashing() {
-        Address pool = setupNewPool(10);
+        PoSHeaderSigner signer = new PoSHeaderSigner();
+        Address pool = setupNewPool(10, signer.getSigningAddress());
 
         // do a self-bond
         byte[] txData = new ABIStreamingEncoder()
@@ -467,8 +847,7 @@ public class PoolRegistryTest {
 
         // submit a proof
         int type = 1;
-        byte[] header = Hex.decode("f8dd0102a06068a128093216a3c0bd9b8cecea132731b8d4fca67de87020b42965fd32a581a0bee628af072dde474c426e5062b2c5ad6888ad3221fe949a1962df918159ded2a0f2953aeb18a5bcb88220ecc0f2c5e222d932f09cc7a26f724276c67fb1c301a5a02e5def03d03e5e6a1b2b22c8185263920b36e056d4e7b1a0d9318764ce0758f3a090685796aa5ee0da1a7d27b5d43b7d52e9f8f2199f5d579489431524170d9828a00000000000000000000000000000000000000000000000000000000000000000038464617461040506857061727431857061727432");
-        byte[][] headers = {header};
+        byte[][] headers = {signer.sign(getBlockNumber())};
         txData = new ABIStreamingEncoder()
                 .encodeOneString("slash")
                 .encodeOneInteger(type)
@@ -497,6 +876,93 @@ public class PoolRegistryTest {
         assertEquals(1000L - 100L, result.getDecodedReturnData());
     }
 
+    @Test
+    public void testCallbacksRejectOutsideCallers() {
+        Address pool = setupNewPool(10);
+        Address random = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+
+        byte[][] callbacks = {
+                ABIUtil.encodeMethodArguments("onCoinbaseAddressChange", pool, random),
+                ABIUtil.encodeMethodArguments("onListenerAdded", pool),
+                ABIUtil.encodeMethodArguments("onListenerRemoved", pool),
+                ABIUtil.encodeMethodArguments("onActiveStatusChange", pool, false),
+                ABIUtil.encodeMethodArguments("onSlashing", pool, 100L)
+        };
+        for (byte[] txData : callbacks) {
+            AvmRule.ResultWrapper result = RULE.call(random, poolRegistry, BigInteger.ZERO, txData);
+            assertTrue(result.getReceiptStatus().isFailed());
+        }
+
+        // nothing changed
+        assertEquals("ACTIVE", getPoolStatus(pool));
+        assertEquals(nStake(1).longValue(), getSelfStake(pool));
+
+        // the staker registry can't attach value either
+        RULE.kernel.adjustBalance(new AionAddress(stakerRegistry.toByteArray()), ENOUGH_BALANCE_TO_TRANSACT);
+        AvmRule.ResultWrapper result = RULE.call(stakerRegistry, poolRegistry, BigInteger.ONE, ABIUtil.encodeMethodArguments("onSlashing", pool, 100L));
+        assertTrue(result.getReceiptStatus().isFailed());
+        assertEquals(nStake(1).longValue(), getSelfStake(pool));
+    }
+
+    @Test
+    public void testCallbacksKeepStakerStateInStep() {
+        Address pool = setupNewPool(10);
+
+        // the cached state matches the staker registry after registration
+        byte[] txData = ABIUtil.encodeMethodArguments("isListener", pool, poolRegistry);
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(true, result.getDecodedReturnData());
+        txData = ABIUtil.encodeMethodArguments("isActive", pool);
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(true, result.getDecodedReturnData());
+        txData = ABIUtil.encodeMethodArguments("getCoinbaseAddress", pool);
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        Address coinbaseAddress = (Address) result.getDecodedReturnData();
+        assertEquals("ACTIVE", getPoolStatus(pool));
+
+        // the staker registry is the only one who can call the callbacks; send them as it would
+        RULE.kernel.adjustBalance(new AionAddress(stakerRegistry.toByteArray()), ENOUGH_BALANCE_TO_TRANSACT);
+
+        callback("onCoinbaseAddressChange", pool, RULE.getRandomAddress(BigInteger.ZERO));
+        assertEquals("BROKEN", getPoolStatus(pool));
+        callback("onCoinbaseAddressChange", pool, coinbaseAddress);
+        assertEquals("ACTIVE", getPoolStatus(pool));
+
+        callback("onListenerRemoved", pool);
+        assertEquals("BROKEN", getPoolStatus(pool));
+        callback("onListenerAdded", pool);
+        assertEquals("ACTIVE", getPoolStatus(pool));
+
+        callback("onActiveStatusChange", pool, false);
+        assertEquals("BROKEN", getPoolStatus(pool));
+        callback("onActiveStatusChange", pool, true);
+        assertEquals("ACTIVE", getPoolStatus(pool));
+
+        callback("onSlashing", pool, 100L);
+        assertEquals("BROKEN", getPoolStatus(pool));
+        assertEquals(nStake(1).longValue() - 100L, getSelfStake(pool));
+    }
+
+    @Test
+    public void testDelegateEnergyIsIndependentOfOtherPools() {
+        Address smallPool = setupNewPool(10);
+        // the first delegator of a pool initializes its storage, so measure the second
+        delegate(RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT), smallPool, BigInteger.TEN);
+        long before = delegate(RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT), smallPool, BigInteger.TEN);
+
+        // grow another pool
+        Address largePool = setupNewPool(10);
+        for (int i = 0; i < 100; i++) {
+            delegate(RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT), largePool, BigInteger.TEN);
+        }
+
+        long after = delegate(RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT), smallPool, BigInteger.TEN);
+        assertEquals(before, after);
+    }
+
     /**
      * N unit of MIN_SELF_STAKE.
      *
@@ -507,6 +973,101 @@ public class PoolRegistryTest {
         return PoolRegistry.MIN_SELF_STAKE.multiply(BigInteger.valueOf(n));
     }
 
+    private void callback(String method, Object... args) {
+        byte[] txData = ABIUtil.encodeMethodArguments(method, args);
+        AvmRule.ResultWrapper result = RULE.call(stakerRegistry, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+    }
+
+    private String getPoolStatus(Address pool) {
+        byte[] txData = ABIUtil.encodeMethodArguments("getPoolStatus", pool);
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        return (String) result.getDecodedReturnData();
+    }
+
+    private long getSelfStake(Address pool) {
+        byte[] txData = ABIUtil.encodeMethodArguments("getSelfStake", pool);
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        return (long) result.getDecodedReturnData();
+    }
+
+    private long delegate(Address delegator, Address pool, BigInteger stake) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("delegate")
+                .encodeOneAddress(pool)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(delegator, poolRegistry, stake, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        return result.getTransactionResult().energyUsed;
+    }
+
+    /**
+     * Compounds the rewards of a delegator through a keeper which delegates its fee from within
+     * the call paying it, and checks the pool counted the keeper's stake.
+     */
+    private void checkReenteringKeeper(String method) {
+        Address pool = setupNewPool(4);
+        Address delegator = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        delegate(delegator, pool, nStake(1));
+        enableAutoRewardsDelegation(delegator, pool, 50);
+        generateBlock(pool, 1000);
+
+        // the owner's withdrawal moves the block rewards out of the coinbase first, since the
+        // embedded AVM shows a balance drained to zero within a transaction as unchanged to a
+        // re-entered call
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("withdraw")
+                .encodeOneAddress(pool)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(pool, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+
+        // the keeper delegates its fee of 240 from within the call
+        Address keeper = deployReenteringKeeper(pool);
+        ABIStreamingEncoder encoder = new ABIStreamingEncoder().encodeOneString(method);
+        txData = method.equals("autoDelegateRewards")
+                ? encoder.encodeOneAddress(delegator).toBytes()
+                : encoder.encodeOneAddressArray(new Address[]{delegator}).toBytes();
+        result = RULE.call(preminedAddress, keeper, BigInteger.ZERO, txData, 5_000_000L, 1L);
+        assertTrue(result.getReceiptStatus().isSuccess());
+
+        // the rewards of the next block are shared by all 2480 of stake, the keeper's included
+        generateBlock(pool, 1000);
+        long[] rewards = getRewardsBatch(pool, delegator, pool, keeper);
+        assertEquals(960 * 240 / 2480, rewards[2]);
+        assertTrue(rewards[0] + rewards[1] + rewards[2] <= 1000);
+    }
+
+    private void enableAutoRewardsDelegation(Address delegator, Address pool, int fee) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("enableAutoRewardsDelegation")
+                .encodeOneAddress(pool)
+                .encodeOneInteger(fee)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(delegator, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+    }
+
+    private long[] getRewardsBatch(Address pool, Address... delegators) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("getRewardsBatch")
+                .encodeOneAddress(pool)
+                .encodeOneAddressArray(delegators)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, poolRegistry, BigInteger.ZERO, txData);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        return (long[]) result.getDecodedReturnData();
+    }
+
+    private Address deployReenteringKeeper(Address pool) {
+        byte[] jar = RULE.getDappBytes(ReenteringKeeper.class, ABIUtil.encodeDeploymentArguments(poolRegistry, pool));
+        AvmRule.ResultWrapper result = RULE.deploy(preminedAddress, BigInteger.ZERO, jar);
+        assertTrue(result.getReceiptStatus().isSuccess());
+        return result.getDappAddress();
+    }
+
     private void generateBlock(Address pool, long blockRewards) {
         byte[] txData = new ABIStreamingEncoder()
                 .encodeOneString("getCoinbaseAddress")
@@ -529,7 +1090,7 @@ public class PoolRegistryTest {
 
     private void tweakBlockNumber(long number) {
         try {
-            Field f = TestingKernel.class.getDeclaredField("blockNumber");
+            Field f = TestingState.class.getDeclaredField("blockNumber");
             f.setAccessible(true);
 
             f.set(RULE.kernel, number);
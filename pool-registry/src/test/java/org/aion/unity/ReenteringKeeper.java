@@ -0,0 +1,56 @@
+package org.aion.unity;
+
+import avm.Address;
+import avm.Blockchain;
+import org.aion.avm.tooling.abi.Callable;
+import org.aion.avm.tooling.abi.Fallback;
+import org.aion.avm.userlib.abi.ABIDecoder;
+import org.aion.avm.userlib.abi.ABIStreamingEncoder;
+
+import java.math.BigInteger;
+
+/**
+ * A keeper contract which compounds the rewards of delegators, and re-enters the pool registry
+ * to delegate every auto-redelegation fee it is paid, while the paying call is still running.
+ */
+public class ReenteringKeeper {
+
+    private static final Address poolRegistry;
+    private static final Address pool;
+
+    static {
+        ABIDecoder decoder = new ABIDecoder(Blockchain.getData());
+        poolRegistry = decoder.decodeOneAddress();
+        pool = decoder.decodeOneAddress();
+    }
+
+    @Callable
+    public static void autoDelegateRewards(Address delegator) {
+        call(new ABIStreamingEncoder()
+                .encodeOneString("autoDelegateRewards")
+                .encodeOneAddress(pool)
+                .encodeOneAddress(delegator)
+                .toBytes(), BigInteger.ZERO);
+    }
+
+    @Callable
+    public static void autoDelegateRewardsBatch(Address[] delegators) {
+        call(new ABIStreamingEncoder()
+                .encodeOneString("autoDelegateRewardsBatch")
+                .encodeOneAddress(pool)
+                .encodeOneAddressArray(delegators)
+                .toBytes(), BigInteger.ZERO);
+    }
+
+    @Fallback
+    public static void onFee() {
+        call(new ABIStreamingEncoder()
+                .encodeOneString("delegate")
+                .encodeOneAddress(pool)
+                .toBytes(), Blockchain.getValue());
+    }
+
+    private static void call(byte[] data, BigInteger value) {
+        Blockchain.require(Blockchain.call(poolRegistry, value, data, Blockchain.getRemainingEnergy()).isSuccess());
+    }
+}
@@ -0,0 +1,56 @@
+package org.aion.unity;
+
+import java.math.BigInteger;
+
+/**
+ * The BigInteger-backed implementation {@link Decimal} used to have, kept as the reference
+ * for {@link DecimalTest}.
+ */
+public class ReferenceDecimal {
+
+    private static BigInteger precisionInt = BigInteger.valueOf(1_000_000_000_000_000_000L);
+    private final BigInteger value;
+
+    private ReferenceDecimal(BigInteger v) {
+        this.value = v;
+    }
+
+    public static ReferenceDecimal valueOf(long v) {
+        return new ReferenceDecimal(BigInteger.valueOf(v).multiply(precisionInt));
+    }
+
+    public BigInteger getTruncated() {
+        return chopPrecisionAndTruncate(value);
+    }
+
+    public BigInteger unscaledValue() {
+        return value;
+    }
+
+    public int compareTo(ReferenceDecimal d) {
+        return value.compareTo(d.value);
+    }
+
+    public ReferenceDecimal add(ReferenceDecimal d) {
+        return new ReferenceDecimal(value.add(d.value));
+    }
+
+    public ReferenceDecimal subtract(ReferenceDecimal d) {
+        return new ReferenceDecimal(value.subtract(d.value));
+    }
+
+    public ReferenceDecimal multiplyTruncate(ReferenceDecimal d) {
+        BigInteger mul = value.multiply(d.value);
+        return new ReferenceDecimal(chopPrecisionAndTruncate(mul));
+    }
+
+    public ReferenceDecimal divideTruncate(ReferenceDecimal d) {
+        BigInteger mul = value.multiply(precisionInt).multiply(precisionInt);
+        BigInteger quo = mul.divide(d.value);
+        return new ReferenceDecimal(chopPrecisionAndTruncate(quo));
+    }
+
+    private BigInteger chopPrecisionAndTruncate(BigInteger d) {
+        return d.divide(precisionInt);
+    }
+}
@@ -0,0 +1,122 @@
+package org.aion.unity.simulator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sweeps the F1 rewards engine over every combination of fee, delegator count and reward
+ * interval, in parallel, and writes a JSON report of the rounding dust and the invariant
+ * violations per scenario. Exits with status 1 if any invariant was violated.
+ * <p>
+ * Usage: {@code PoolSimulator [--fees 0,10,100] [--delegators 10,1000] [--intervals 1,10]
+ * [--blocks 10000] [--events 10] [--seed 1] [--parallelism 8]
+ * [--output target/simulation-report.json]}
+ */
+public class PoolSimulator {
+
+    private static final int[] DEFAULT_FEES = {0, 5, 10, 50, 100};
+    private static final int[] DEFAULT_DELEGATORS = {1, 10, 1_000, 10_000};
+    private static final int[] DEFAULT_INTERVALS = {1, 10, 100};
+    private static final int DEFAULT_BLOCKS = 10_000;
+    private static final int DEFAULT_EVENTS = 10;
+    private static final String DEFAULT_OUTPUT = "target/simulation-report.json";
+
+    public static void main(String[] args) throws IOException {
+        int[] fees = DEFAULT_FEES;
+        int[] delegatorCounts = DEFAULT_DELEGATORS;
+        int[] intervals = DEFAULT_INTERVALS;
+        int blocks = DEFAULT_BLOCKS;
+        int events = DEFAULT_EVENTS;
+        long seed = 1L;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        Path output = Paths.get(DEFAULT_OUTPUT);
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--fees":
+                    fees = parseInts(value);
+                    break;
+                case "--delegators":
+                    delegatorCounts = parseInts(value);
+                    break;
+                case "--intervals":
+                    intervals = parseInts(value);
+                    break;
+                case "--blocks":
+                    blocks = Integer.parseInt(value);
+                    break;
+                case "--events":
+                    events = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--parallelism":
+                    parallelism = Integer.parseInt(value);
+                    break;
+                case "--output":
+                    output = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        List<Scenario> scenarios = new ArrayList<>();
+        for (int fee : fees) {
+            for (int delegators : delegatorCounts) {
+                for (int interval : intervals) {
+                    scenarios.add(new Scenario(fee, delegators, interval, blocks, events, seed + scenarios.size()));
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        List<ScenarioResult> results = ScenarioSweep.run(scenarios, parallelism);
+        long nanos = System.nanoTime() - start;
+
+        long totalEvents = 0;
+        boolean holds = true;
+        for (ScenarioResult result : results) {
+            System.out.println(result.toJson());
+            totalEvents += result.events;
+            holds &= result.holds();
+        }
+        System.out.println(totalEvents + " events in " + nanos / 1_000_000 + " ms ("
+                + totalEvents * 1_000_000_000L / Math.max(1, nanos) + " events/s)");
+
+        writeReport(results, output);
+        if (!holds) {
+            System.exit(1);
+        }
+    }
+
+    public static void writeReport(List<ScenarioResult> results, Path output) throws IOException {
+        StringBuilder sb = new StringBuilder("{\n  \"results\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            sb.append("    ").append(results.get(i).toJson());
+            sb.append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        sb.append("  ]\n}\n");
+
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Files.write(output, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int[] parseInts(String value) {
+        String[] parts = value.split(",");
+        int[] ints = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            ints[i] = Integer.parseInt(parts[i].trim());
+        }
+        return ints;
+    }
+}
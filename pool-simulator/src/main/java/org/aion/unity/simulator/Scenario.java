@@ -0,0 +1,40 @@
+package org.aion.unity.simulator;
+
+/**
+ * The parameters of one simulation: the pool fee, the number of delegators, the reward
+ * cadence, and the number of blocks and delegator events per block.
+ */
+public class Scenario {
+
+    public final int fee;
+    public final int delegators;
+    public final int rewardInterval;
+    public final int blocks;
+    public final int eventsPerBlock;
+    public final long seed;
+
+    public Scenario(int fee, int delegators, int rewardInterval, int blocks, int eventsPerBlock, long seed) {
+        if (fee < 0 || fee > 100) {
+            throw new IllegalArgumentException("Invalid fee: " + fee);
+        }
+        if (delegators <= 0 || rewardInterval <= 0 || blocks <= 0 || eventsPerBlock < 0) {
+            throw new IllegalArgumentException("Invalid scenario");
+        }
+        this.fee = fee;
+        this.delegators = delegators;
+        this.rewardInterval = rewardInterval;
+        this.blocks = blocks;
+        this.eventsPerBlock = eventsPerBlock;
+        this.seed = seed;
+    }
+
+    public String toJson() {
+        return "{\"fee\": " + fee
+                + ", \"delegators\": " + delegators
+                + ", \"rewardInterval\": " + rewardInterval
+                + ", \"blocks\": " + blocks
+                + ", \"eventsPerBlock\": " + eventsPerBlock
+                + ", \"seed\": " + seed
+                + "}";
+    }
+}
@@ -0,0 +1,63 @@
+package org.aion.unity.simulator;
+
+/**
+ * The outcome of one simulation.
+ * <p>
+ * The rounding dust is what the pool still owns once every delegator has un-voted and
+ * withdrawn, and the operator has withdrawn the commission: the rewards lost to the
+ * truncating arithmetic. It must never be negative, i.e. the pool never pays out more
+ * than it received.
+ */
+public class ScenarioResult {
+
+    public final Scenario scenario;
+
+    public long events;
+    public long wallTimeNanos;
+
+    public long blockRewards;
+    public long delegatorRewards;
+    public long commission;
+    public long dust;
+
+    /**
+     * The largest shortfall seen at a checkpoint, i.e. the outstanding rewards minus what is
+     * owed to the delegators and the operator.
+     */
+    public long maxIntermediateDust;
+
+    public long violations;
+    public String firstViolation;
+
+    ScenarioResult(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    void violation(long blockNumber, String message) {
+        if (violations++ == 0) {
+            firstViolation = "block " + blockNumber + ": " + message;
+        }
+    }
+
+    public boolean holds() {
+        return violations == 0;
+    }
+
+    public long eventsPerSecond() {
+        return wallTimeNanos == 0 ? 0 : events * 1_000_000_000L / wallTimeNanos;
+    }
+
+    public String toJson() {
+        return "{\"scenario\": " + scenario.toJson()
+                + ", \"events\": " + events
+                + ", \"eventsPerSecond\": " + eventsPerSecond()
+                + ", \"blockRewards\": " + blockRewards
+                + ", \"delegatorRewards\": " + delegatorRewards
+                + ", \"commission\": " + commission
+                + ", \"dust\": " + dust
+                + ", \"maxIntermediateDust\": " + maxIntermediateDust
+                + ", \"violations\": " + violations
+                + (firstViolation == null ? "" : ", \"firstViolation\": \"" + firstViolation + "\"")
+                + "}";
+    }
+}
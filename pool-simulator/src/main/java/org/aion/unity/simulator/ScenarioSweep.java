@@ -0,0 +1,49 @@
+package org.aion.unity.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs a list of scenarios on a fork-join pool, splitting the list in halves until a
+ * single scenario is left. Each scenario has its own pool and random source, so the
+ * results do not depend on the parallelism, and come back in the order of the list.
+ */
+public class ScenarioSweep extends RecursiveTask<List<ScenarioResult>> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Scenario> scenarios;
+
+    public ScenarioSweep(List<Scenario> scenarios) {
+        this.scenarios = scenarios;
+    }
+
+    public static List<ScenarioResult> run(List<Scenario> scenarios, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new ScenarioSweep(scenarios));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    protected List<ScenarioResult> compute() {
+        if (scenarios.size() <= 1) {
+            List<ScenarioResult> results = new ArrayList<>();
+            for (Scenario scenario : scenarios) {
+                results.add(Simulator.run(scenario));
+            }
+            return results;
+        }
+
+        int middle = scenarios.size() / 2;
+        ScenarioSweep left = new ScenarioSweep(scenarios.subList(0, middle));
+        ScenarioSweep right = new ScenarioSweep(scenarios.subList(middle, scenarios.size()));
+        left.fork();
+        List<ScenarioResult> results = new ArrayList<>(right.compute());
+        results.addAll(0, left.join());
+        return results;
+    }
+}
@@ -0,0 +1,82 @@
+package org.aion.unity.simulator;
+
+import org.aion.unity.PoolRewardsEngine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A pool whose per-delegator state is kept on the {@link Delegator} objects, so an update
+ * costs no storage lookup at all. The CRR checkpoints are kept in a map.
+ */
+public class SimulatedPool extends PoolRewardsEngine<SimulatedPool.Delegator> {
+
+    private final Map<Long, HistoricalCRR> history = new HashMap<>();
+
+    public SimulatedPool(int fee) {
+        super(fee);
+    }
+
+    @Override
+    protected StartingInfo getStartingInfo(Delegator delegator) {
+        return delegator.startingInfo;
+    }
+
+    @Override
+    protected void putStartingInfo(Delegator delegator, StartingInfo startingInfo) {
+        delegator.startingInfo = startingInfo;
+    }
+
+    @Override
+    protected void removeStartingInfo(Delegator delegator) {
+        delegator.startingInfo = null;
+    }
+
+    @Override
+    protected long getSettledRewards(Delegator delegator) {
+        return delegator.settledRewards;
+    }
+
+    @Override
+    protected void putSettledRewards(Delegator delegator, long rewards) {
+        delegator.settledRewards = rewards;
+    }
+
+    @Override
+    public long getWithdrawnRewards(Delegator delegator) {
+        return delegator.withdrawnRewards;
+    }
+
+    @Override
+    protected void putWithdrawnRewards(Delegator delegator, long rewards) {
+        delegator.withdrawnRewards = rewards;
+    }
+
+    @Override
+    protected HistoricalCRR getHistoricalCRR(long period) {
+        return history.get(period);
+    }
+
+    @Override
+    protected void putHistoricalCRR(long period, HistoricalCRR historicalCRR) {
+        history.put(period, historicalCRR);
+    }
+
+    @Override
+    protected void removeHistoricalCRR(long period) {
+        history.remove(period);
+    }
+
+    /**
+     * @return the number of CRR checkpoints currently kept
+     */
+    public int getHistorySize() {
+        return history.size();
+    }
+
+    public static class Delegator {
+        private StartingInfo startingInfo;
+        private long settledRewards;
+        private long withdrawnRewards;
+    }
+}
@@ -0,0 +1,139 @@
+package org.aion.unity.simulator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Replays a synthetic stream of votes, un-votes, withdrawals and block rewards against a
+ * {@link SimulatedPool}, checking the rewards invariants as it goes.
+ * <p>
+ * Every withdrawal must pay what the pending rewards projected. Every block, the outstanding
+ * rewards plus the undistributed block rewards must equal the block rewards received minus
+ * everything withdrawn. At each checkpoint, the outstanding rewards must also cover the
+ * rewards of every delegator plus the commission, and the CRR history must hold no more
+ * checkpoints than the bonded delegations plus the last period. At the end, everyone
+ * un-votes and withdraws, the history must be pruned down to the last period, and the
+ * remainder is the rounding dust.
+ */
+public final class Simulator {
+
+    static final long MAX_BLOCK_REWARD = 5_000_000_000L;
+    static final long MAX_STAKE = 1_000_000_000_000_000L;
+
+    private static final int CHECKPOINTS = 64;
+
+    private Simulator() {
+    }
+
+    public static ScenarioResult run(Scenario scenario) {
+        ScenarioResult result = new ScenarioResult(scenario);
+        SplittableRandom random = new SplittableRandom(scenario.seed);
+
+        SimulatedPool pool = new SimulatedPool(scenario.fee);
+        SimulatedPool.Delegator[] delegators = new SimulatedPool.Delegator[scenario.delegators];
+        for (int i = 0; i < delegators.length; i++) {
+            delegators[i] = new SimulatedPool.Delegator();
+        }
+        int checkpointInterval = Math.max(1, scenario.blocks / CHECKPOINTS);
+
+        long start = System.nanoTime();
+        for (long block = 1; block <= scenario.blocks; block++) {
+            if (block % scenario.rewardInterval == 0 && pool.getAccumulatedStake() > 0) {
+                long reward = 1 + random.nextLong(MAX_BLOCK_REWARD);
+                pool.onBlock(block, reward);
+                result.blockRewards += reward;
+                result.events++;
+            }
+
+            for (int i = 0; i < scenario.eventsPerBlock; i++) {
+                SimulatedPool.Delegator delegator = delegators[random.nextInt(delegators.length)];
+                int op = random.nextInt(10);
+                long stake = pool.getStake(delegator);
+                if (op < 4 || (op < 6 && stake == 0)) {
+                    pool.onVote(delegator, block, 1 + random.nextLong(MAX_STAKE));
+                } else if (op < 6) {
+                    // a quarter of the un-votes are full
+                    pool.onUnvote(delegator, block, random.nextInt(4) == 0 ? stake : 1 + random.nextLong(stake));
+                } else if (op < 9) {
+                    result.delegatorRewards += withdraw(pool, delegator, block, result);
+                } else {
+                    result.commission += pool.onWithdrawOperator();
+                }
+                result.events++;
+            }
+
+            checkConservation(pool, block, result);
+            if (block % checkpointInterval == 0) {
+                checkSolvency(pool, delegators, block, result);
+            }
+        }
+
+        // everyone leaves
+        long end = scenario.blocks + 1L;
+        for (SimulatedPool.Delegator delegator : delegators) {
+            long stake = pool.getStake(delegator);
+            if (stake > 0) {
+                pool.onUnvote(delegator, end, stake);
+                result.events++;
+            }
+        }
+        for (SimulatedPool.Delegator delegator : delegators) {
+            result.delegatorRewards += withdraw(pool, delegator, end, result);
+            result.events++;
+        }
+        result.commission += pool.onWithdrawOperator();
+        result.events++;
+        result.wallTimeNanos = System.nanoTime() - start;
+
+        checkConservation(pool, end, result);
+        if (pool.getAccumulatedStake() != 0 || pool.getAccumulatedCommission() != 0) {
+            result.violation(end, "pool not drained");
+        }
+        if (pool.getHistorySize() > 1) {
+            result.violation(end, "history not pruned, " + pool.getHistorySize() + " checkpoints left");
+        }
+        result.dust = pool.getOutstandingRewards();
+        if (result.dust < 0) {
+            result.violation(end, "negative dust " + result.dust);
+        }
+        return result;
+    }
+
+    private static long withdraw(SimulatedPool pool, SimulatedPool.Delegator delegator, long block, ScenarioResult result) {
+        long pending = pool.getPendingRewards(delegator, block, 0);
+        long rewards = pool.onWithdraw(delegator, block);
+        if (rewards < 0) {
+            result.violation(block, "negative withdrawal " + rewards);
+        }
+        if (rewards != pending) {
+            result.violation(block, "withdrew " + rewards + ", expected " + pending);
+        }
+        return rewards;
+    }
+
+    private static void checkConservation(SimulatedPool pool, long block, ScenarioResult result) {
+        long held = pool.getOutstandingRewards() + pool.getAccumulatedBlockRewards();
+        long expected = result.blockRewards - result.delegatorRewards - result.commission;
+        if (held != expected) {
+            result.violation(block, "outstanding rewards " + held + " != " + expected);
+        }
+    }
+
+    private static void checkSolvency(SimulatedPool pool, SimulatedPool.Delegator[] delegators, long block, ScenarioResult result) {
+        long owed = pool.getAccumulatedCommission();
+        int bonded = 0;
+        for (SimulatedPool.Delegator delegator : delegators) {
+            owed += pool.getRewards(delegator, block);
+            if (pool.getStake(delegator) > 0) {
+                bonded++;
+            }
+        }
+        if (pool.getHistorySize() > bonded + 1) {
+            result.violation(block, pool.getHistorySize() + " checkpoints for " + bonded + " delegations");
+        }
+        long dust = pool.getOutstandingRewards() - owed;
+        if (dust < 0) {
+            result.violation(block, "owed " + owed + " > outstanding " + pool.getOutstandingRewards());
+        }
+        result.maxIntermediateDust = Math.max(result.maxIntermediateDust, dust);
+    }
+}
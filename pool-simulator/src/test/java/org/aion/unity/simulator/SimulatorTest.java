@@ -0,0 +1,150 @@
+package org.aion.unity.simulator;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SimulatorTest {
+
+    @Test
+    public void testRewardsSplit() {
+        SimulatedPool pool = new SimulatedPool(10);
+        SimulatedPool.Delegator a = new SimulatedPool.Delegator();
+        SimulatedPool.Delegator b = new SimulatedPool.Delegator();
+
+        pool.onVote(a, 1, 1000);
+        pool.onVote(b, 1, 1000);
+        pool.onBlock(2, 100);
+
+        // a 100 block reward, 10% commission, shared by two equal stakes
+        assertEquals(45L, pool.onWithdraw(a, 3));
+        assertEquals(45L, pool.onWithdraw(b, 3));
+        assertEquals(10L, pool.onWithdrawOperator());
+        assertEquals(0L, pool.getOutstandingRewards());
+        assertEquals(45L, pool.getWithdrawnRewards(a));
+    }
+
+    @Test
+    public void testPendingRewards() {
+        SimulatedPool pool = new SimulatedPool(10);
+        SimulatedPool.Delegator a = new SimulatedPool.Delegator();
+        SimulatedPool.Delegator b = new SimulatedPool.Delegator();
+
+        pool.onVote(a, 1, 1000);
+        pool.onVote(b, 1, 3000);
+        pool.onBlock(2, 100);
+
+        // the undistributed and the projected block rewards are included, nothing changes
+        assertEquals(0L, pool.getRewards(a, 3));
+        assertEquals(22L, pool.getPendingRewards(a, 3, 0));
+        assertEquals(45L, pool.getPendingRewards(a, 3, 100));
+        assertEquals(20L, pool.getPendingCommission(100));
+        assertEquals(22L, pool.getPendingRewards(a, 3, 0));
+
+        // nothing is pending in the block of the delegation
+        assertEquals(0L, pool.getPendingRewards(a, 1, 0));
+
+        assertEquals(22L, pool.onWithdraw(a, 3));
+        assertEquals(67L, pool.getPendingRewards(b, 3, 0));
+        assertEquals(67L, pool.onWithdraw(b, 3));
+        assertEquals(10L, pool.onWithdrawOperator());
+    }
+
+    @Test
+    public void testHistoryPruned() {
+        SimulatedPool pool = new SimulatedPool(0);
+        SimulatedPool.Delegator a = new SimulatedPool.Delegator();
+        SimulatedPool.Delegator b = new SimulatedPool.Delegator();
+
+        pool.onVote(a, 1, 1000);
+        assertEquals(0L, pool.getPeriod());
+        assertEquals(0L, pool.getStartingPeriod(a));
+        pool.onBlock(2, 100);
+        pool.onVote(b, 3, 1000);
+        assertEquals(1L, pool.getPeriod());
+        assertEquals(1L, pool.getStartingPeriod(b));
+        assertEquals(2, pool.getHistorySize());
+
+        // a period without rewards repeats the last CRR, so none is started
+        pool.onUnvote(b, 3, 1000);
+        pool.onVote(b, 3, 1000);
+        assertEquals(1L, pool.getPeriod());
+
+        pool.onBlock(4, 200);
+        assertEquals(200L, pool.onWithdraw(a, 5));
+        assertEquals(2L, pool.getPeriod());
+
+        // the rewards of a stake between two checkpoints
+        assertEquals(100L, pool.getRewardsBetween(1, 2, 1000));
+        assertEquals(0L, pool.getRewardsBetween(2, 2, 1000));
+
+        // a's delegation restarted, so nothing refers to period 0 anymore
+        assertEquals(2, pool.getHistorySize());
+        assertEquals(-1L, pool.getRewardsBetween(0, 2, 1000));
+
+        pool.onUnvote(a, 6, 1000);
+        pool.onUnvote(b, 6, 1000);
+        assertEquals(-1L, pool.getStartingPeriod(a));
+        assertEquals(1, pool.getHistorySize());
+        assertEquals(0L, pool.onWithdraw(a, 6));
+        assertEquals(100L, pool.onWithdraw(b, 6));
+    }
+
+    @Test
+    public void testUnevenStakesLeaveDust() {
+        SimulatedPool pool = new SimulatedPool(0);
+        SimulatedPool.Delegator a = new SimulatedPool.Delegator();
+        SimulatedPool.Delegator b = new SimulatedPool.Delegator();
+
+        pool.onVote(a, 1, 1);
+        pool.onVote(b, 1, 2);
+        pool.onBlock(2, 100);
+        pool.onUnvote(a, 3, 1);
+        pool.onUnvote(b, 3, 2);
+
+        // 100 / 3 is truncated, so one unit stays in the pool
+        assertEquals(33L, pool.onWithdraw(a, 3));
+        assertEquals(66L, pool.onWithdraw(b, 3));
+        assertEquals(1L, pool.getOutstandingRewards());
+    }
+
+    @Test
+    public void testSweep() {
+        List<Scenario> scenarios = new ArrayList<>();
+        for (int fee : new int[]{0, 10, 100}) {
+            for (int delegators : new int[]{1, 50}) {
+                scenarios.add(new Scenario(fee, delegators, 3, 500, 5, scenarios.size()));
+            }
+        }
+
+        List<ScenarioResult> results = ScenarioSweep.run(scenarios, 4);
+        assertEquals(scenarios.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ScenarioResult result = results.get(i);
+            assertEquals(scenarios.get(i), result.scenario);
+            assertTrue(result.firstViolation, result.holds());
+            assertTrue(result.dust >= 0);
+            assertEquals(result.blockRewards, result.delegatorRewards + result.commission + result.dust);
+        }
+
+        // the commission of a 0% pool is always 0, and a 100% pool keeps all rewards
+        assertEquals(0L, results.get(0).commission);
+        assertEquals(0L, results.get(4).delegatorRewards);
+    }
+
+    @Test
+    public void testDeterministic() {
+        Scenario scenario = new Scenario(7, 20, 2, 300, 8, 42);
+        ScenarioResult first = Simulator.run(scenario);
+        ScenarioResult second = Simulator.run(scenario);
+
+        assertEquals(first.events, second.events);
+        assertEquals(first.blockRewards, second.blockRewards);
+        assertEquals(first.delegatorRewards, second.delegatorRewards);
+        assertEquals(first.dust, second.dust);
+    }
+}
@@ -0,0 +1,135 @@
+package org.aion.unity.indexer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Interns 32-byte addresses into dense int ids, in order of first appearance, so that the
+ * indexes can key their maps by packed ids instead of byte arrays.
+ */
+public class AddressTable {
+
+    public static final int ADDRESS_LENGTH = 32;
+
+    private byte[] addresses = new byte[ADDRESS_LENGTH * 16];
+    private int[] slots = new int[32]; // id + 1, or 0 if empty
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id of the address, or -1 if it has not been seen.
+     */
+    public int get(byte[] address) {
+        requireAddress(address);
+        return slots[find(address)] - 1;
+    }
+
+    /**
+     * Returns the id of the address, assigning the next id if it has not been seen.
+     */
+    public int intern(byte[] address) {
+        requireAddress(address);
+        int slot = find(address);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+
+        int id = size++;
+        if (addresses.length < size * ADDRESS_LENGTH) {
+            addresses = Arrays.copyOf(addresses, addresses.length * 2);
+        }
+        System.arraycopy(address, 0, addresses, id * ADDRESS_LENGTH, ADDRESS_LENGTH);
+        slots[slot] = id + 1;
+
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Returns a copy of the address with the given id.
+     */
+    public byte[] address(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown address id: " + id);
+        }
+        return Arrays.copyOfRange(addresses, id * ADDRESS_LENGTH, (id + 1) * ADDRESS_LENGTH);
+    }
+
+    /* ----------------------------------------------------------------------
+     * Snapshot
+     * ----------------------------------------------------------------------*/
+
+    int encodedSize() {
+        return Integer.BYTES + size * ADDRESS_LENGTH;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(size);
+        buffer.put(addresses, 0, size * ADDRESS_LENGTH);
+    }
+
+    static AddressTable readFrom(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        AddressTable table = new AddressTable();
+        byte[] address = new byte[ADDRESS_LENGTH];
+        for (int i = 0; i < size; i++) {
+            buffer.get(address);
+            table.intern(address);
+        }
+        return table;
+    }
+
+    /* ----------------------------------------------------------------------
+     * Internals
+     * ----------------------------------------------------------------------*/
+
+    private int find(byte[] address) {
+        int mask = slots.length - 1;
+        int slot = hash(address, 0) & mask;
+        while (slots[slot] != 0 && !equalsAt(slots[slot] - 1, address)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(addresses, id * ADDRESS_LENGTH) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private boolean equalsAt(int id, byte[] address) {
+        int offset = id * ADDRESS_LENGTH;
+        for (int i = 0; i < ADDRESS_LENGTH; i++) {
+            if (addresses[offset + i] != address[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] bytes, int offset) {
+        int h = 1;
+        for (int i = offset; i < offset + ADDRESS_LENGTH; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static void requireAddress(byte[] address) {
+        if (address == null || address.length != ADDRESS_LENGTH) {
+            throw new IllegalArgumentException("Not an address");
+        }
+    }
+}
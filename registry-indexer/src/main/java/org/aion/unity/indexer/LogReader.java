@@ -0,0 +1,84 @@
+package org.aion.unity.indexer;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the logs written by {@link LogWriter}, in order.
+ */
+public class LogReader implements Iterator<LogRecord>, Closeable {
+
+    private final DataInputStream in;
+    private LogRecord next;
+    private boolean done;
+
+    public LogReader(InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+    }
+
+    public static LogReader open(Path file) throws IOException {
+        return new LogReader(Files.newInputStream(file));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            next = read();
+            done = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public LogRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        LogRecord record = next;
+        next = null;
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private LogRecord read() {
+        try {
+            long blockNumber;
+            try {
+                blockNumber = in.readLong();
+            } catch (EOFException e) {
+                return null;
+            }
+
+            byte[] address = new byte[AddressTable.ADDRESS_LENGTH];
+            in.readFully(address);
+            byte[][] topics = new byte[in.readUnsignedByte()][];
+            for (int i = 0; i < topics.length; i++) {
+                topics[i] = new byte[LogRecord.TOPIC_LENGTH];
+                in.readFully(topics[i]);
+            }
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Malformed log file");
+            }
+            byte[] data = new byte[length];
+            in.readFully(data);
+
+            return new LogRecord(blockNumber, address, topics, data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
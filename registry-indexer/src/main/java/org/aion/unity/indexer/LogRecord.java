@@ -0,0 +1,81 @@
+package org.aion.unity.indexer;
+
+import java.util.Arrays;
+
+/**
+ * A log emitted by a contract, with the number of the block which includes it.
+ * <p>
+ * Topics are normalized to 32 bytes, zero-padded on the right, as the AVM stores them.
+ */
+public class LogRecord {
+
+    public static final int TOPIC_LENGTH = 32;
+
+    private final long blockNumber;
+    private final byte[] address;
+    private final byte[][] topics;
+    private final byte[] data;
+
+    public LogRecord(long blockNumber, byte[] address, byte[][] topics, byte[] data) {
+        if (address == null || address.length != AddressTable.ADDRESS_LENGTH) {
+            throw new IllegalArgumentException("Not an address");
+        }
+        if (topics == null || topics.length == 0 || topics.length > 4 || data == null) {
+            throw new IllegalArgumentException("Malformed log");
+        }
+        this.blockNumber = blockNumber;
+        this.address = address.clone();
+        this.topics = new byte[topics.length][];
+        for (int i = 0; i < topics.length; i++) {
+            this.topics[i] = topic(topics[i]);
+        }
+        this.data = data.clone();
+    }
+
+    /**
+     * Pads or truncates a topic to 32 bytes.
+     */
+    public static byte[] topic(byte[] topic) {
+        return Arrays.copyOf(topic, TOPIC_LENGTH);
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public byte[] getAddress() {
+        return address.clone();
+    }
+
+    public int getTopicCount() {
+        return topics.length;
+    }
+
+    public byte[] getTopic(int index) {
+        return topics[index].clone();
+    }
+
+    public byte[] getData() {
+        return data.clone();
+    }
+
+    boolean hasTopic(int index, byte[] topic) {
+        return index < topics.length && Arrays.equals(topics[index], topic);
+    }
+
+    boolean hasAddress(byte[] address) {
+        return Arrays.equals(this.address, address);
+    }
+
+    // internal accessors, which skip the defensive copies
+    byte[] topic(int index) {
+        if (index >= topics.length) {
+            throw new IllegalArgumentException("Missing topic " + index);
+        }
+        return topics[index];
+    }
+
+    byte[] data() {
+        return data;
+    }
+}
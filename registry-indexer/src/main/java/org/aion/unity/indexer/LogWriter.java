@@ -0,0 +1,44 @@
+package org.aion.unity.indexer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes logs to a stream, e.g. for an exporter which follows the chain.
+ * <p>
+ * Each log is written as the block number (8 bytes), the contract address (32 bytes), the
+ * topic count (1 byte) and the topics (32 bytes each), the data length (4 bytes) and the data.
+ */
+public class LogWriter implements Closeable {
+
+    private final DataOutputStream out;
+
+    public LogWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    public static LogWriter open(Path file) throws IOException {
+        return new LogWriter(Files.newOutputStream(file));
+    }
+
+    public void write(LogRecord record) throws IOException {
+        out.writeLong(record.getBlockNumber());
+        out.write(record.getAddress());
+        out.writeByte(record.getTopicCount());
+        for (int i = 0; i < record.getTopicCount(); i++) {
+            out.write(record.topic(i));
+        }
+        out.writeInt(record.data().length);
+        out.write(record.data());
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,186 @@
+package org.aion.unity.indexer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An open-addressing hash map from long to long, with linear probing and backward-shift
+ * deletion, so that neither the keys nor the values are boxed.
+ */
+public class LongLongHashMap {
+
+    /**
+     * Receives the entries of the map, in no particular order.
+     */
+    public interface Visitor {
+        void visit(long key, long value);
+    }
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+
+    public LongLongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(long key) {
+        return used[find(key)];
+    }
+
+    /**
+     * Returns the value of the key, or the given default if absent.
+     */
+    public long get(long key, long missing) {
+        int slot = find(key);
+        return used[slot] ? values[slot] : missing;
+    }
+
+    public void put(long key, long value) {
+        int slot = find(key);
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+
+        if (size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Adds the delta to the value of the key, absent keys counting as zero, and removes the
+     * entry if the result is zero.
+     *
+     * @return the new value
+     */
+    public long add(long key, long delta) {
+        long value = Math.addExact(get(key, 0L), delta);
+        if (value == 0L) {
+            remove(key);
+        } else {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return whether the key was present
+     */
+    public boolean remove(long key) {
+        int slot = find(key);
+        if (!used[slot]) {
+            return false;
+        }
+
+        // shift back the following entries of the probe sequence, so lookups need no tombstones
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (used[next]) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[hole] = false;
+        size--;
+        return true;
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    /* ----------------------------------------------------------------------
+     * Snapshot
+     * ----------------------------------------------------------------------*/
+
+    int encodedSize() {
+        return Integer.BYTES + size * Long.BYTES * 2;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(size);
+        forEach((key, value) -> buffer.putLong(key).putLong(value));
+    }
+
+    static LongLongHashMap readFrom(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        LongLongHashMap map = new LongLongHashMap(size);
+        for (int i = 0; i < size; i++) {
+            map.put(buffer.getLong(), buffer.getLong());
+        }
+        return map;
+    }
+
+    /* ----------------------------------------------------------------------
+     * Internals
+     * ----------------------------------------------------------------------*/
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = find(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+
+    private static int hash(long key) {
+        // the murmur3 finalizer, as the keys are often packed ids with few varying bits
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
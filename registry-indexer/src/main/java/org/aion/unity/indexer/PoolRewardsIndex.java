@@ -0,0 +1,203 @@
+package org.aion.unity.indexer;
+
+import org.aion.avm.userlib.AionBuffer;
+import org.aion.unity.Decimal;
+import org.aion.unity.PoolRewardsEngine;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The F1 rewards state of one pool, replaying the updates through {@link PoolRewardsEngine},
+ * so the rewards match the contract to the last unit.
+ * <p>
+ * Delegators are identified by their {@link AddressTable} id, and their state is kept in
+ * parallel arrays, indexed by a row assigned on first appearance. The CRR checkpoints are
+ * kept in a map.
+ */
+public class PoolRewardsIndex extends PoolRewardsEngine<Integer> {
+
+    private static final int STARTING_INFO_SIZE = Long.BYTES * 3;
+    private static final int HISTORICAL_CRR_SIZE = Decimal.ENCODED_SIZE + Integer.BYTES;
+
+    // delegator id -> row
+    private final LongLongHashMap rows;
+    private int rowCount;
+
+    // the starting info, or null if not bonded
+    private StartingInfo[] startingInfo;
+    private long[] settledRewards;
+    private long[] withdrawnRewards;
+
+    private final Map<Long, HistoricalCRR> history = new HashMap<>();
+
+    public PoolRewardsIndex(int fee) {
+        this(fee, new LongLongHashMap(), 16);
+    }
+
+    private PoolRewardsIndex(int fee, LongLongHashMap rows, int capacity) {
+        super(fee);
+        this.rows = rows;
+        startingInfo = new StartingInfo[capacity];
+        settledRewards = new long[capacity];
+        withdrawnRewards = new long[capacity];
+    }
+
+    /**
+     * Same as {@link PoolRewardsEngine#onUnvote}, but rejects an un-vote the contract could not
+     * have made, rather than letting the rewards diverge.
+     */
+    @Override
+    public void onUnvote(Integer delegator, long blockNumber, long amount) {
+        if (amount > getStake(delegator)) {
+            throw new IllegalStateException("Un-vote exceeds the stake of delegator " + delegator);
+        }
+        super.onUnvote(delegator, blockNumber, amount);
+    }
+
+    /* ----------------------------------------------------------------------
+     * Storage hooks
+     * ----------------------------------------------------------------------*/
+
+    @Override
+    protected StartingInfo getStartingInfo(Integer delegator) {
+        int row = find(delegator);
+        return row < 0 ? null : startingInfo[row];
+    }
+
+    @Override
+    protected void putStartingInfo(Integer delegator, StartingInfo info) {
+        startingInfo[row(delegator)] = info;
+    }
+
+    @Override
+    protected void removeStartingInfo(Integer delegator) {
+        int row = find(delegator);
+        if (row >= 0) {
+            startingInfo[row] = null;
+        }
+    }
+
+    @Override
+    protected long getSettledRewards(Integer delegator) {
+        int row = find(delegator);
+        return row < 0 ? 0L : settledRewards[row];
+    }
+
+    @Override
+    protected void putSettledRewards(Integer delegator, long rewards) {
+        settledRewards[row(delegator)] = rewards;
+    }
+
+    @Override
+    public long getWithdrawnRewards(Integer delegator) {
+        int row = find(delegator);
+        return row < 0 ? 0L : withdrawnRewards[row];
+    }
+
+    @Override
+    protected void putWithdrawnRewards(Integer delegator, long rewards) {
+        withdrawnRewards[row(delegator)] = rewards;
+    }
+
+    @Override
+    protected HistoricalCRR getHistoricalCRR(long period) {
+        return history.get(period);
+    }
+
+    @Override
+    protected void putHistoricalCRR(long period, HistoricalCRR historicalCRR) {
+        history.put(period, historicalCRR);
+    }
+
+    @Override
+    protected void removeHistoricalCRR(long period) {
+        history.remove(period);
+    }
+
+    private int find(int delegator) {
+        return (int) rows.get(delegator, -1L);
+    }
+
+    private int row(int delegator) {
+        int row = find(delegator);
+        if (row < 0) {
+            row = rowCount++;
+            rows.put(delegator, row);
+            if (row == startingInfo.length) {
+                grow(row * 2);
+            }
+        }
+        return row;
+    }
+
+    private void grow(int capacity) {
+        startingInfo = Arrays.copyOf(startingInfo, capacity);
+        settledRewards = Arrays.copyOf(settledRewards, capacity);
+        withdrawnRewards = Arrays.copyOf(withdrawnRewards, capacity);
+    }
+
+    /* ----------------------------------------------------------------------
+     * Snapshot
+     * ----------------------------------------------------------------------*/
+
+    int encodedSize() {
+        return STATE_SIZE
+                + rows.encodedSize()
+                + Integer.BYTES + rowCount * (1 + STARTING_INFO_SIZE + Long.BYTES * 2)
+                + Integer.BYTES + history.size() * (Long.BYTES + HISTORICAL_CRR_SIZE);
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        AionBuffer state = AionBuffer.allocate(STATE_SIZE);
+        writeStateTo(state);
+        buffer.put(state.getArray());
+
+        rows.writeTo(buffer);
+        buffer.putInt(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            StartingInfo info = startingInfo[row];
+            buffer.put((byte) (info != null ? 1 : 0))
+                    .put(info != null ? info.toBytes() : new byte[STARTING_INFO_SIZE])
+                    .putLong(settledRewards[row])
+                    .putLong(withdrawnRewards[row]);
+        }
+
+        buffer.putInt(history.size());
+        for (Map.Entry<Long, HistoricalCRR> entry : history.entrySet()) {
+            buffer.putLong(entry.getKey()).put(entry.getValue().toBytes());
+        }
+    }
+
+    static PoolRewardsIndex readFrom(ByteBuffer buffer) {
+        AionBuffer state = AionBuffer.wrap(read(buffer, STATE_SIZE));
+
+        LongLongHashMap rows = LongLongHashMap.readFrom(buffer);
+        int rowCount = buffer.getInt();
+        PoolRewardsIndex index = new PoolRewardsIndex(0, rows, Math.max(16, rowCount));
+        index.readStateFrom(state);
+        index.rowCount = rowCount;
+        for (int row = 0; row < rowCount; row++) {
+            boolean bonded = buffer.get() != 0;
+            byte[] info = read(buffer, STARTING_INFO_SIZE);
+            index.startingInfo[row] = bonded ? StartingInfo.fromBytes(info) : null;
+            index.settledRewards[row] = buffer.getLong();
+            index.withdrawnRewards[row] = buffer.getLong();
+        }
+
+        int historySize = buffer.getInt();
+        for (int i = 0; i < historySize; i++) {
+            long period = buffer.getLong();
+            index.history.put(period, HistoricalCRR.fromBytes(read(buffer, HISTORICAL_CRR_SIZE)));
+        }
+        return index;
+    }
+
+    private static byte[] read(ByteBuffer buffer, int size) {
+        byte[] bytes = new byte[size];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
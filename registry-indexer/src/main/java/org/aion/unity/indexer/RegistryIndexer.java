@@ -0,0 +1,644 @@
+package org.aion.unity.indexer;
+
+import org.aion.unity.StakerRegistry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Rebuilds the state of the staker registry and the pool registry from their events, see
+ * {@code StakerRegistryEvents} and {@code PoolRegistryEvents}, in one pass over the logs.
+ * <p>
+ * Logs must be applied in chain order. Logs of other contracts and events which don't
+ * change the indexed state are skipped. The indexer can be checkpointed to a snapshot
+ * file at any point; a restored indexer resumes from log number {@link #getLogCount()}.
+ * <p>
+ * The rewards are replayed with the arithmetic of the contract, and every reported
+ * withdrawal is checked against the replayed amount, so a divergence fails fast with an
+ * {@link IllegalStateException} rather than producing wrong balances.
+ */
+public class RegistryIndexer {
+
+    private static final int SNAPSHOT_MAGIC = 0x55494458; // "UIDX"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final byte[] stakerRegistry;
+    private final byte[] poolRegistry;
+
+    private final AddressTable addresses;
+    private long logCount;
+    private long blockNumber;
+
+    // staker registry state; addresses are keyed by id, pairs by (id << 32 | id)
+    private final LongLongHashMap stakerAddresses;  // staker -> (signing, coinbase)
+    private final LongLongHashMap selfBondAddresses; // staker -> self-bond address
+    private final LongLongHashMap totalStakes;      // staker -> total stake
+    private final LongLongHashMap stakes;           // (staker, voter) -> stake
+    private final LongLongHashMap unvoteAmounts;    // pending unvote id -> amount
+    private final LongLongHashMap unvoteBlocks;     // pending unvote id -> block number
+    private final LongLongHashMap unvoteRecipients; // pending unvote id -> recipient
+    private final LongLongHashMap transferAmounts;  // pending transfer id -> amount
+    private final LongLongHashMap transferTargets;  // pending transfer id -> (to staker, recipient)
+
+    // the pending unvote ids in creation order, which is maturity order as the lock-up
+    // period is the same for all; finalized ids are dropped lazily
+    private long[] unvoteQueue;
+    private int unvoteQueueHead;
+    private int unvoteQueueTail;
+
+    // pool registry state
+    private final LongLongHashMap poolIndexes; // pool -> index in pools
+    private final List<Pool> pools;
+
+    private static class Pool {
+        private final int pool;
+        private final int commissionRate;
+        private boolean isActive;
+        private final LongLongHashMap delegatorStakes; // delegator -> stake
+        private final PoolRewardsIndex rewards;
+
+        private Pool(int pool, int commissionRate, boolean isActive, LongLongHashMap delegatorStakes, PoolRewardsIndex rewards) {
+            this.pool = pool;
+            this.commissionRate = commissionRate;
+            this.isActive = isActive;
+            this.delegatorStakes = delegatorStakes;
+            this.rewards = rewards;
+        }
+
+        private int encodedSize() {
+            return Integer.BYTES * 2 + 1 + delegatorStakes.encodedSize() + rewards.encodedSize();
+        }
+
+        private void writeTo(ByteBuffer buffer) {
+            buffer.putInt(pool).putInt(commissionRate).put((byte) (isActive ? 1 : 0));
+            delegatorStakes.writeTo(buffer);
+            rewards.writeTo(buffer);
+        }
+
+        private static Pool readFrom(ByteBuffer buffer) {
+            return new Pool(buffer.getInt(), buffer.getInt(), buffer.get() != 0,
+                    LongLongHashMap.readFrom(buffer), PoolRewardsIndex.readFrom(buffer));
+        }
+    }
+
+    /**
+     * Creates an empty indexer, for the logs from the deployment of the registries on.
+     *
+     * @param stakerRegistry the address of the staker registry
+     * @param poolRegistry   the address of the pool registry
+     */
+    public RegistryIndexer(byte[] stakerRegistry, byte[] poolRegistry) {
+        this(stakerRegistry, poolRegistry, new AddressTable(),
+                new LongLongHashMap(), new LongLongHashMap(), new LongLongHashMap(), new LongLongHashMap(),
+                new LongLongHashMap(), new LongLongHashMap(), new LongLongHashMap(),
+                new LongLongHashMap(), new LongLongHashMap(), new LongLongHashMap());
+    }
+
+    private RegistryIndexer(byte[] stakerRegistry, byte[] poolRegistry, AddressTable addresses,
+                            LongLongHashMap stakerAddresses, LongLongHashMap selfBondAddresses,
+                            LongLongHashMap totalStakes, LongLongHashMap stakes,
+                            LongLongHashMap unvoteAmounts, LongLongHashMap unvoteBlocks, LongLongHashMap unvoteRecipients,
+                            LongLongHashMap transferAmounts, LongLongHashMap transferTargets,
+                            LongLongHashMap poolIndexes) {
+        if (stakerRegistry == null || stakerRegistry.length != AddressTable.ADDRESS_LENGTH
+                || poolRegistry == null || poolRegistry.length != AddressTable.ADDRESS_LENGTH) {
+            throw new IllegalArgumentException("Not an address");
+        }
+        this.stakerRegistry = stakerRegistry.clone();
+        this.poolRegistry = poolRegistry.clone();
+        this.addresses = addresses;
+        this.stakerAddresses = stakerAddresses;
+        this.selfBondAddresses = selfBondAddresses;
+        this.totalStakes = totalStakes;
+        this.stakes = stakes;
+        this.unvoteAmounts = unvoteAmounts;
+        this.unvoteBlocks = unvoteBlocks;
+        this.unvoteRecipients = unvoteRecipients;
+        this.transferAmounts = transferAmounts;
+        this.transferTargets = transferTargets;
+        this.poolIndexes = poolIndexes;
+        this.pools = new ArrayList<>();
+        this.unvoteQueue = new long[16];
+    }
+
+    /* ----------------------------------------------------------------------
+     * Applying logs
+     * ----------------------------------------------------------------------*/
+
+    public void applyAll(Iterator<LogRecord> logs) {
+        while (logs.hasNext()) {
+            apply(logs.next());
+        }
+    }
+
+    public void apply(LogRecord log) {
+        if (log.getBlockNumber() < blockNumber) {
+            throw new IllegalArgumentException("Log of block " + log.getBlockNumber() + " after block " + blockNumber);
+        }
+        blockNumber = log.getBlockNumber();
+
+        if (log.hasAddress(stakerRegistry)) {
+            applyStakerRegistryEvent(log);
+        } else if (log.hasAddress(poolRegistry)) {
+            applyPoolRegistryEvent(log);
+        }
+        logCount++;
+    }
+
+    private void applyStakerRegistryEvent(LogRecord log) {
+        byte[] data = log.data();
+        switch (eventName(log)) {
+            case "StakerRegistered": {
+                int staker = id(log, 1);
+                stakerAddresses.put(staker, pack(id(log, 2), id(log, 3)));
+                selfBondAddresses.put(staker, addresses.intern(Arrays.copyOfRange(data, 32, 64)));
+                break;
+            }
+            case "Voted": {
+                int staker = id(log, 1);
+                long amount = amount(data, 0);
+                stakes.add(pack(staker, id(log, 2)), amount);
+                totalStakes.add(staker, amount);
+                break;
+            }
+            case "Unvoted": {
+                int staker = id(log, 1);
+                long id = ByteBuffer.wrap(data).getLong();
+                long amount = amount(data, Long.BYTES);
+                stakes.add(pack(staker, id(log, 2)), -amount);
+                totalStakes.add(staker, -amount);
+
+                unvoteAmounts.put(id, amount);
+                unvoteBlocks.put(id, log.getBlockNumber());
+                unvoteRecipients.put(id, id(log, 3));
+                if (unvoteQueueTail == unvoteQueue.length) {
+                    compactUnvoteQueue();
+                }
+                unvoteQueue[unvoteQueueTail++] = id;
+                break;
+            }
+            case "StakeTransferred": {
+                int fromStaker = id(log, 1);
+                long id = ByteBuffer.wrap(data).getLong();
+                int recipient = addresses.intern(Arrays.copyOfRange(data, Long.BYTES, Long.BYTES + 32));
+                long amount = amount(data, Long.BYTES + 32);
+                stakes.add(pack(fromStaker, id(log, 3)), -amount);
+                totalStakes.add(fromStaker, -amount);
+
+                transferAmounts.put(id, amount);
+                transferTargets.put(id, pack(id(log, 2), recipient));
+                break;
+            }
+            case "UnvoteFinalized": {
+                long id = ByteBuffer.wrap(log.topic(1)).getLong();
+                unvoteAmounts.remove(id);
+                unvoteBlocks.remove(id);
+                unvoteRecipients.remove(id);
+                while (unvoteQueueHead < unvoteQueueTail && !unvoteAmounts.containsKey(unvoteQueue[unvoteQueueHead])) {
+                    unvoteQueueHead++;
+                }
+                break;
+            }
+            case "TransferFinalized": {
+                long id = ByteBuffer.wrap(log.topic(1)).getLong();
+                long amount = transferAmounts.get(id, -1L);
+                if (amount < 0) {
+                    throw new IllegalStateException("Unknown transfer " + id);
+                }
+                long target = transferTargets.get(id, 0L);
+                stakes.add(target, amount);
+                totalStakes.add(high(target), amount);
+                transferAmounts.remove(id);
+                transferTargets.remove(id);
+                break;
+            }
+            case "Slashed": {
+                // the data is the amount deducted from the self-bond stake
+                int staker = id(log, 1);
+                long amount = amount(data, 0);
+                stakes.add(pack(staker, id(log, 3)), -amount);
+                totalStakes.add(staker, -amount);
+                break;
+            }
+            case "SigningAddressChanged": {
+                int staker = id(log, 1);
+                stakerAddresses.put(staker, pack(id(log, 2), low(stakerAddresses.get(staker, 0L))));
+                break;
+            }
+            case "CoinbaseAddressChanged": {
+                int staker = id(log, 1);
+                stakerAddresses.put(staker, pack(high(stakerAddresses.get(staker, 0L)), id(log, 2)));
+                break;
+            }
+            case "SelfBondAddressChanged":
+                selfBondAddresses.put(id(log, 1), id(log, 2));
+                break;
+            default:
+                // not indexed, e.g. listener changes
+        }
+    }
+
+    private void applyPoolRegistryEvent(LogRecord log) {
+        byte[] data = log.data();
+        long blockNumber = log.getBlockNumber();
+        switch (eventName(log)) {
+            case "PoolRegistered": {
+                int pool = id(log, 1);
+                poolIndexes.put(pool, pools.size());
+                // the rewards start without commission, until the pool becomes active
+                pools.add(new Pool(pool, ByteBuffer.wrap(data).getInt(), false, new LongLongHashMap(), new PoolRewardsIndex(0)));
+                break;
+            }
+            case "Delegated": {
+                Pool pool = pool(log);
+                int delegator = id(log, 2);
+                long amount = amount(data, 0);
+                pool.delegatorStakes.add(delegator, amount);
+                pool.rewards.onVote(delegator, blockNumber, amount);
+                break;
+            }
+            case "Undelegated": {
+                Pool pool = pool(log);
+                int delegator = id(log, 2);
+                long amount = amount(data, Long.BYTES);
+                pool.delegatorStakes.add(delegator, -amount);
+                pool.rewards.onUnvote(delegator, blockNumber, amount);
+                break;
+            }
+            case "StakeTransferred": {
+                // the stake is credited to the other pool by the Delegated event of the finalization
+                Pool pool = pool(log);
+                int delegator = id(log, 3);
+                long amount = amount(data, Long.BYTES);
+                pool.delegatorStakes.add(delegator, -amount);
+                pool.rewards.onUnvote(delegator, blockNumber, amount);
+                break;
+            }
+            case "RewardsWithdrawn":
+            case "RewardsRedelegated":
+            case "RewardsAutoDelegated": {
+                Pool pool = pool(log);
+                int delegator = id(log, 2);
+                long amount = pool.rewards.onWithdraw(delegator, blockNumber);
+                if (delegator == pool.pool) {
+                    amount += pool.rewards.onWithdrawOperator();
+                }
+                if (amount != amount(data, 0)) {
+                    throw new IllegalStateException("Rewards of delegator " + delegator + " diverged at block " + blockNumber);
+                }
+                break;
+            }
+            case "BlockRewardsReceived":
+                pool(log).rewards.onBlock(blockNumber, amount(data, 0));
+                break;
+            case "PoolActivated": {
+                Pool pool = pool(log);
+                pool.isActive = true;
+                pool.rewards.setCommissionRate(pool.commissionRate);
+                break;
+            }
+            case "PoolBroken": {
+                Pool pool = pool(log);
+                pool.isActive = false;
+                pool.rewards.setCommissionRate(0);
+                break;
+            }
+            default:
+                // not indexed
+        }
+    }
+
+    /* ----------------------------------------------------------------------
+     * Staker registry queries
+     * ----------------------------------------------------------------------*/
+
+    public boolean isStaker(byte[] staker) {
+        int id = addresses.get(staker);
+        return id >= 0 && stakerAddresses.containsKey(id);
+    }
+
+    public byte[] getSigningAddress(byte[] staker) {
+        return addresses.address(high(stakerAddresses.get(requireStaker(staker), 0L)));
+    }
+
+    public byte[] getCoinbaseAddress(byte[] staker) {
+        return addresses.address(low(stakerAddresses.get(requireStaker(staker), 0L)));
+    }
+
+    public byte[] getSelfBondAddress(byte[] staker) {
+        return addresses.address((int) selfBondAddresses.get(requireStaker(staker), 0L));
+    }
+
+    public long getTotalStake(byte[] staker) {
+        return totalStakes.get(requireStaker(staker), 0L);
+    }
+
+    public long getStake(byte[] staker, byte[] voter) {
+        int stakerId = addresses.get(staker);
+        int voterId = addresses.get(voter);
+        return stakerId < 0 || voterId < 0 ? 0L : stakes.get(pack(stakerId, voterId), 0L);
+    }
+
+    public int getPendingUnvoteCount() {
+        return unvoteAmounts.size();
+    }
+
+    /**
+     * Returns the ids of the pending un-votes which have passed the lock-up period at the
+     * given block, oldest first.
+     *
+     * @param recipient the recipient to filter on, or null for all
+     */
+    public long[] getMaturedUnvotes(byte[] recipient, long blockNumber) {
+        int recipientId = recipient == null ? -1 : addresses.get(recipient);
+        if (recipient != null && recipientId < 0) {
+            return new long[0];
+        }
+
+        long[] ids = new long[16];
+        int count = 0;
+        for (int i = unvoteQueueHead; i < unvoteQueueTail; i++) {
+            long id = unvoteQueue[i];
+            long created = unvoteBlocks.get(id, -1L);
+            if (created < 0) {
+                continue;
+            }
+            if (blockNumber < created + StakerRegistry.UNVOTE_LOCK_UP_PERIOD) {
+                break;
+            }
+            if (recipientId < 0 || unvoteRecipients.get(id, -1L) == recipientId) {
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    public long getPendingUnvoteAmount(long id) {
+        return unvoteAmounts.get(id, 0L);
+    }
+
+    /* ----------------------------------------------------------------------
+     * Pool registry queries
+     * ----------------------------------------------------------------------*/
+
+    public boolean isPool(byte[] pool) {
+        int id = addresses.get(pool);
+        return id >= 0 && poolIndexes.containsKey(id);
+    }
+
+    public boolean isPoolActive(byte[] pool) {
+        return requirePool(pool).isActive;
+    }
+
+    /**
+     * Returns the delegators with stake in the pool, in no particular order.
+     */
+    public List<byte[]> getDelegators(byte[] pool) {
+        List<byte[]> delegators = new ArrayList<>();
+        requirePool(pool).delegatorStakes.forEach((delegator, stake) -> delegators.add(addresses.address((int) delegator)));
+        return delegators;
+    }
+
+    public long getDelegatorStake(byte[] pool, byte[] delegator) {
+        int id = addresses.get(delegator);
+        return id < 0 ? 0L : requirePool(pool).delegatorStakes.get(id, 0L);
+    }
+
+    /**
+     * Returns the rewards of a delegator as the pool registry would at the given block,
+     * without the block rewards not yet collected from the pool coinbase.
+     */
+    public long getRewards(byte[] pool, byte[] delegator, long blockNumber) {
+        int id = addresses.get(delegator);
+        return id < 0 ? 0L : requirePool(pool).rewards.getRewards(id, blockNumber);
+    }
+
+    public long getWithdrawnRewards(byte[] pool, byte[] delegator) {
+        int id = addresses.get(delegator);
+        return id < 0 ? 0L : requirePool(pool).rewards.getWithdrawnRewards(id);
+    }
+
+    public PoolRewardsIndex getPoolRewards(byte[] pool) {
+        return requirePool(pool).rewards;
+    }
+
+    /* ----------------------------------------------------------------------
+     * Position
+     * ----------------------------------------------------------------------*/
+
+    /**
+     * Returns the number of logs applied, which is where a restored indexer resumes.
+     */
+    public long getLogCount() {
+        return logCount;
+    }
+
+    /**
+     * Returns the block number of the last applied log.
+     */
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    /* ----------------------------------------------------------------------
+     * Snapshot
+     * ----------------------------------------------------------------------*/
+
+    /**
+     * Writes the indexer state to a memory-mapped snapshot file. The snapshot is written
+     * next to the file and moved over it, so an interrupted checkpoint keeps the previous one.
+     */
+    public void checkpoint(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, encodedSize());
+            writeTo(buffer);
+            buffer.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores an indexer from a snapshot written by {@link #checkpoint(Path)}.
+     */
+    public static RegistryIndexer restore(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readFrom(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private long encodedSize() {
+        long size = Integer.BYTES * 2 + AddressTable.ADDRESS_LENGTH * 2 + Long.BYTES * 2
+                + addresses.encodedSize()
+                + stakerAddresses.encodedSize() + selfBondAddresses.encodedSize()
+                + totalStakes.encodedSize() + stakes.encodedSize()
+                + unvoteAmounts.encodedSize() + unvoteBlocks.encodedSize() + unvoteRecipients.encodedSize()
+                + transferAmounts.encodedSize() + transferTargets.encodedSize()
+                + Integer.BYTES + (long) (unvoteQueueTail - unvoteQueueHead) * Long.BYTES
+                + poolIndexes.encodedSize() + Integer.BYTES;
+        for (Pool pool : pools) {
+            size += pool.encodedSize();
+        }
+        return size;
+    }
+
+    private void writeTo(ByteBuffer buffer) {
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION)
+                .put(stakerRegistry).put(poolRegistry)
+                .putLong(logCount).putLong(blockNumber);
+        addresses.writeTo(buffer);
+        stakerAddresses.writeTo(buffer);
+        selfBondAddresses.writeTo(buffer);
+        totalStakes.writeTo(buffer);
+        stakes.writeTo(buffer);
+        unvoteAmounts.writeTo(buffer);
+        unvoteBlocks.writeTo(buffer);
+        unvoteRecipients.writeTo(buffer);
+        transferAmounts.writeTo(buffer);
+        transferTargets.writeTo(buffer);
+
+        buffer.putInt(unvoteQueueTail - unvoteQueueHead);
+        for (int i = unvoteQueueHead; i < unvoteQueueTail; i++) {
+            buffer.putLong(unvoteQueue[i]);
+        }
+
+        poolIndexes.writeTo(buffer);
+        buffer.putInt(pools.size());
+        for (Pool pool : pools) {
+            pool.writeTo(buffer);
+        }
+    }
+
+    private static RegistryIndexer readFrom(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < Integer.BYTES * 2 || buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a registry indexer snapshot");
+        }
+
+        byte[] stakerRegistry = new byte[AddressTable.ADDRESS_LENGTH];
+        byte[] poolRegistry = new byte[AddressTable.ADDRESS_LENGTH];
+        buffer.get(stakerRegistry).get(poolRegistry);
+        long logCount = buffer.getLong();
+        long blockNumber = buffer.getLong();
+
+        AddressTable addresses = AddressTable.readFrom(buffer);
+        LongLongHashMap[] maps = new LongLongHashMap[9];
+        for (int i = 0; i < maps.length; i++) {
+            maps[i] = LongLongHashMap.readFrom(buffer);
+        }
+
+        int queueSize = buffer.getInt();
+        long[] unvoteQueue = new long[Math.max(16, queueSize)];
+        for (int i = 0; i < queueSize; i++) {
+            unvoteQueue[i] = buffer.getLong();
+        }
+
+        RegistryIndexer indexer = new RegistryIndexer(stakerRegistry, poolRegistry, addresses,
+                maps[0], maps[1], maps[2], maps[3], maps[4], maps[5], maps[6], maps[7], maps[8],
+                LongLongHashMap.readFrom(buffer));
+        indexer.logCount = logCount;
+        indexer.blockNumber = blockNumber;
+        indexer.unvoteQueue = unvoteQueue;
+        indexer.unvoteQueueTail = queueSize;
+
+        int poolCount = buffer.getInt();
+        for (int i = 0; i < poolCount; i++) {
+            indexer.pools.add(Pool.readFrom(buffer));
+        }
+        return indexer;
+    }
+
+    /* ----------------------------------------------------------------------
+     * Internals
+     * ----------------------------------------------------------------------*/
+
+    private static String eventName(LogRecord log) {
+        byte[] topic = log.topic(0);
+        int length = topic.length;
+        while (length > 0 && topic[length - 1] == 0) {
+            length--;
+        }
+        return new String(topic, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private int id(LogRecord log, int topic) {
+        return addresses.intern(log.topic(topic));
+    }
+
+    private Pool pool(LogRecord log) {
+        int id = id(log, 1);
+        long index = poolIndexes.get(id, -1L);
+        if (index < 0) {
+            throw new IllegalStateException("Event of an unregistered pool at block " + log.getBlockNumber());
+        }
+        return pools.get((int) index);
+    }
+
+    private int requireStaker(byte[] staker) {
+        int id = addresses.get(staker);
+        if (id < 0 || !stakerAddresses.containsKey(id)) {
+            throw new IllegalArgumentException("Not a staker");
+        }
+        return id;
+    }
+
+    private Pool requirePool(byte[] pool) {
+        int id = addresses.get(pool);
+        long index = id < 0 ? -1L : poolIndexes.get(id, -1L);
+        if (index < 0) {
+            throw new IllegalArgumentException("Not a pool");
+        }
+        return pools.get((int) index);
+    }
+
+    private void compactUnvoteQueue() {
+        int size = unvoteQueueTail - unvoteQueueHead;
+        long[] queue = size * 2 > unvoteQueue.length ? new long[unvoteQueue.length * 2] : unvoteQueue;
+        System.arraycopy(unvoteQueue, unvoteQueueHead, queue, 0, size);
+        unvoteQueue = queue;
+        unvoteQueueHead = 0;
+        unvoteQueueTail = size;
+    }
+
+    /**
+     * Reads a 32-byte unsigned amount, which must fit in a long like the registry APIs.
+     */
+    private static long amount(byte[] data, int offset) {
+        for (int i = offset; i < offset + 24; i++) {
+            if (data[i] != 0) {
+                throw new ArithmeticException("Amount out of range");
+            }
+        }
+        long amount = ByteBuffer.wrap(data, offset + 24, Long.BYTES).getLong();
+        if (amount < 0) {
+            throw new ArithmeticException("Amount out of range");
+        }
+        return amount;
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    private static int high(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int low(long packed) {
+        return (int) packed;
+    }
+}
@@ -0,0 +1,73 @@
+package org.aion.unity.indexer;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongLongHashMapTest {
+
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(42);
+        LongLongHashMap map = new LongLongHashMap();
+        Map<Long, Long> reference = new HashMap<>();
+
+        // a small key space, so that puts, updates and removals collide often
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            switch (random.nextInt(3)) {
+                case 0:
+                    map.put(key, i);
+                    reference.put(key, (long) i);
+                    break;
+                case 1:
+                    assertEquals(reference.remove(key) != null, map.remove(key));
+                    break;
+                default:
+                    long value = map.add(key, 1);
+                    long expected = reference.getOrDefault(key, 0L) + 1;
+                    if (expected == 0) {
+                        reference.remove(key);
+                    } else {
+                        reference.put(key, expected);
+                    }
+                    assertEquals(expected, value);
+            }
+            assertEquals(reference.size(), map.size());
+        }
+
+        for (long key = -1_000; key < 1_000; key++) {
+            assertEquals(reference.containsKey(key), map.containsKey(key));
+            assertEquals((long) reference.getOrDefault(key, -1L), map.get(key, -1L));
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        LongLongHashMap map = new LongLongHashMap();
+        for (long i = 0; i < 1_000; i++) {
+            map.put(i << 32 | i, -i);
+        }
+        map.remove(0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(map.encodedSize());
+        map.writeTo(buffer);
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+
+        LongLongHashMap copy = LongLongHashMap.readFrom(buffer);
+        assertEquals(999, copy.size());
+        assertFalse(copy.containsKey(0));
+        for (long i = 1; i < 1_000; i++) {
+            assertTrue(copy.containsKey(i << 32 | i));
+            assertEquals(-i, copy.get(i << 32 | i, 0));
+        }
+    }
+}
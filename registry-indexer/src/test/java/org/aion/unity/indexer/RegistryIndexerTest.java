@@ -0,0 +1,233 @@
+package org.aion.unity.indexer;
+
+import org.aion.unity.StakerRegistry;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RegistryIndexerTest {
+
+    private static final byte[] STAKER_REGISTRY = address(0xA1);
+    private static final byte[] POOL_REGISTRY = address(0xA2);
+
+    private final byte[] staker = address(1);
+    private final byte[] otherStaker = address(2);
+    private final byte[] voter = address(3);
+    private final byte[] signing = address(4);
+    private final byte[] coinbase = address(5);
+    private final byte[] delegator = address(6);
+
+    @Test
+    public void testStakes() {
+        RegistryIndexer indexer = new RegistryIndexer(STAKER_REGISTRY, POOL_REGISTRY);
+        indexer.applyAll(stakerLogs().iterator());
+
+        assertTrue(indexer.isStaker(staker));
+        assertArrayEquals(signing, indexer.getSigningAddress(staker));
+        assertArrayEquals(coinbase, indexer.getCoinbaseAddress(staker));
+        assertArrayEquals(staker, indexer.getSelfBondAddress(staker));
+
+        // 1000 voted, 100 un-voted, 200 transferred and finalized
+        assertEquals(700L, indexer.getStake(staker, voter));
+        assertEquals(700L, indexer.getTotalStake(staker));
+        assertEquals(200L, indexer.getStake(otherStaker, voter));
+        assertEquals(200L, indexer.getTotalStake(otherStaker));
+        assertEquals(0L, indexer.getStake(otherStaker, staker));
+    }
+
+    @Test
+    public void testSlashing() {
+        RegistryIndexer indexer = new RegistryIndexer(STAKER_REGISTRY, POOL_REGISTRY);
+        indexer.applyAll(stakerLogs().iterator());
+        indexer.apply(stakerLog(100, "Voted", amount(1000), staker, staker));
+        indexer.apply(stakerLog(101, "Slashed", amount(100), staker, voter, staker));
+
+        assertEquals(900L, indexer.getStake(staker, staker));
+        assertEquals(700L + 900L, indexer.getTotalStake(staker));
+        assertEquals(700L, indexer.getStake(staker, voter));
+    }
+
+    @Test
+    public void testMaturedUnvotes() {
+        RegistryIndexer indexer = new RegistryIndexer(STAKER_REGISTRY, POOL_REGISTRY);
+        indexer.applyAll(stakerLogs().iterator());
+        indexer.apply(stakerLog(100, "Unvoted", ByteBuffer.allocate(40).putLong(1).put(amount(50)).array(), staker, voter, delegator));
+
+        assertEquals(2, indexer.getPendingUnvoteCount());
+        assertArrayEquals(new long[0], indexer.getMaturedUnvotes(null, 10 + StakerRegistry.UNVOTE_LOCK_UP_PERIOD - 1));
+        assertArrayEquals(new long[]{0}, indexer.getMaturedUnvotes(null, 10 + StakerRegistry.UNVOTE_LOCK_UP_PERIOD));
+        assertArrayEquals(new long[]{0, 1}, indexer.getMaturedUnvotes(null, 100 + StakerRegistry.UNVOTE_LOCK_UP_PERIOD));
+        assertArrayEquals(new long[]{1}, indexer.getMaturedUnvotes(delegator, 100 + StakerRegistry.UNVOTE_LOCK_UP_PERIOD));
+
+        indexer.apply(stakerLog(10 + StakerRegistry.UNVOTE_LOCK_UP_PERIOD, "UnvoteFinalized", new byte[0], id(0)));
+        assertEquals(1, indexer.getPendingUnvoteCount());
+        assertArrayEquals(new long[]{1}, indexer.getMaturedUnvotes(null, 100 + StakerRegistry.UNVOTE_LOCK_UP_PERIOD));
+    }
+
+    @Test
+    public void testPoolRewards() {
+        RegistryIndexer indexer = new RegistryIndexer(STAKER_REGISTRY, POOL_REGISTRY);
+        indexer.applyAll(poolLogs().iterator());
+
+        assertTrue(indexer.isPool(staker));
+        assertTrue(indexer.isPoolActive(staker));
+        assertEquals(2, indexer.getDelegators(staker).size());
+        assertEquals(1000L, indexer.getDelegatorStake(staker, delegator));
+
+        // as in the contract, the block rewards are only distributed by the next update
+        assertEquals(0L, indexer.getRewards(staker, delegator, 3));
+
+        // a 100 block reward, 10% commission, shared by two equal stakes
+        indexer.apply(poolLog(3, "RewardsWithdrawn", amount(45), staker, delegator));
+        assertEquals(0L, indexer.getRewards(staker, delegator, 3));
+        assertEquals(45L, indexer.getWithdrawnRewards(staker, delegator));
+
+        // the operator also collects the commission
+        indexer.apply(poolLog(3, "RewardsWithdrawn", amount(55), staker, staker));
+        assertEquals(0L, indexer.getPoolRewards(staker).getOutstandingRewards());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDivergedRewards() {
+        RegistryIndexer indexer = new RegistryIndexer(STAKER_REGISTRY, POOL_REGISTRY);
+        indexer.applyAll(poolLogs().iterator());
+        indexer.apply(poolLog(3, "RewardsWithdrawn", amount(46), staker, delegator));
+    }
+
+    @Test
+    public void testZeroWithdrawalSettles() {
+        RegistryIndexer indexer = new RegistryIndexer(STAKER_REGISTRY, POOL_REGISTRY);
+        indexer.applyAll(poolLogs().iterator());
+        indexer.apply(poolLog(3, "BlockRewardsReceived", amount(100), staker));
+        indexer.apply(poolLog(3, "Delegated", amount(1000), staker, voter));
+        indexer.apply(poolLog(3, "BlockRewardsReceived", amount(100), staker));
+
+        // nothing to withdraw in the block of the delegation, but the rewards are distributed
+        indexer.apply(poolLog(3, "RewardsRedelegated", amount(0), staker, voter));
+        assertEquals(0L, indexer.getRewards(staker, voter, 3));
+        assertEquals(90L + 30L, indexer.getRewards(staker, delegator, 4));
+    }
+
+    @Test
+    public void testCheckpointAndRestore() throws IOException {
+        List<LogRecord> logs = new ArrayList<>(poolLogs());
+        logs.addAll(stakerLogs());
+
+        RegistryIndexer indexer = new RegistryIndexer(STAKER_REGISTRY, POOL_REGISTRY);
+        indexer.applyAll(logs.iterator());
+
+        Path file = Files.createTempFile("registry-indexer", ".snapshot");
+        try {
+            indexer.checkpoint(file);
+            RegistryIndexer restored = RegistryIndexer.restore(file);
+
+            assertEquals(indexer.getLogCount(), restored.getLogCount());
+            assertEquals(indexer.getBlockNumber(), restored.getBlockNumber());
+            assertEquals(700L, restored.getStake(staker, voter));
+            assertEquals(200L, restored.getTotalStake(otherStaker));
+            assertEquals(1, restored.getPendingUnvoteCount());
+            assertArrayEquals(indexer.getMaturedUnvotes(null, Long.MAX_VALUE), restored.getMaturedUnvotes(null, Long.MAX_VALUE));
+            assertTrue(restored.isPoolActive(staker));
+            assertEquals(1000L, restored.getDelegatorStake(staker, delegator));
+
+            // both continue identically
+            LogRecord next = poolLog(100, "RewardsWithdrawn", amount(45), staker, delegator);
+            indexer.apply(next);
+            restored.apply(next);
+            assertEquals(45L, restored.getWithdrawnRewards(staker, delegator));
+            assertEquals(indexer.getPoolRewards(staker).getOutstandingRewards(), restored.getPoolRewards(staker).getOutstandingRewards());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testLogFile() throws IOException {
+        List<LogRecord> logs = stakerLogs();
+        logs.add(new LogRecord(100, address(0xEE), new byte[][]{"Voted".getBytes()}, new byte[3]));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (LogWriter writer = new LogWriter(out)) {
+            for (LogRecord log : logs) {
+                writer.write(log);
+            }
+        }
+
+        RegistryIndexer indexer = new RegistryIndexer(STAKER_REGISTRY, POOL_REGISTRY);
+        try (LogReader reader = new LogReader(new ByteArrayInputStream(out.toByteArray()))) {
+            indexer.applyAll(reader);
+        }
+
+        // the log of another contract is counted, but not applied
+        assertEquals(logs.size(), indexer.getLogCount());
+        assertEquals(700L, indexer.getStake(staker, voter));
+        assertFalse(indexer.isStaker(address(0xEE)));
+    }
+
+    private List<LogRecord> stakerLogs() {
+        List<LogRecord> logs = new ArrayList<>();
+        logs.add(stakerLog(2, "StakerRegistered", concat(staker, staker), staker, signing, coinbase));
+        logs.add(stakerLog(2, "StakerRegistered", concat(otherStaker, otherStaker), otherStaker, address(8), address(9)));
+        logs.add(stakerLog(2, "Voted", amount(1000), staker, voter));
+        logs.add(stakerLog(10, "Unvoted", ByteBuffer.allocate(40).putLong(0).put(amount(100)).array(), staker, voter, voter));
+        logs.add(stakerLog(11, "StakeTransferred", ByteBuffer.allocate(72).putLong(5).put(voter).put(amount(200)).array(), staker, otherStaker, voter));
+        logs.add(stakerLog(11 + StakerRegistry.TRANSFER_LOCK_UP_PERIOD, "TransferFinalized", new byte[0], id(5)));
+        return logs;
+    }
+
+    private List<LogRecord> poolLogs() {
+        List<LogRecord> logs = new ArrayList<>();
+        logs.add(poolLog(1, "PoolRegistered", ByteBuffer.allocate(4).putInt(10).array(), staker, coinbase, address(10)));
+        logs.add(poolLog(1, "Delegated", amount(1000), staker, staker));
+        logs.add(poolLog(1, "PoolActivated", new byte[0], staker));
+        logs.add(poolLog(1, "Delegated", amount(1000), staker, delegator));
+        logs.add(poolLog(2, "BlockRewardsReceived", amount(100), staker));
+        return logs;
+    }
+
+    private static LogRecord stakerLog(long blockNumber, String event, byte[] data, byte[]... topics) {
+        return log(STAKER_REGISTRY, blockNumber, event, data, topics);
+    }
+
+    private static LogRecord poolLog(long blockNumber, String event, byte[] data, byte[]... topics) {
+        return log(POOL_REGISTRY, blockNumber, event, data, topics);
+    }
+
+    private static LogRecord log(byte[] contract, long blockNumber, String event, byte[] data, byte[]... topics) {
+        byte[][] all = new byte[topics.length + 1][];
+        all[0] = event.getBytes();
+        System.arraycopy(topics, 0, all, 1, topics.length);
+        return new LogRecord(blockNumber, contract, all, data);
+    }
+
+    private static byte[] address(int n) {
+        byte[] address = new byte[32];
+        address[0] = (byte) 0xa0;
+        address[31] = (byte) n;
+        return address;
+    }
+
+    private static byte[] amount(long amount) {
+        return ByteBuffer.allocate(32).putLong(24, amount).array();
+    }
+
+    private static byte[] id(long id) {
+        return ByteBuffer.allocate(8).putLong(id).array();
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        return ByteBuffer.allocate(a.length + b.length).put(a).put(b).array();
+    }
+}
@@ -2,102 +2,366 @@ package org.aion.unity;
 
 import avm.Address;
 import avm.Blockchain;
-import org.web3j.rlp.RlpDecoder;
-import org.web3j.rlp.RlpList;
-import org.web3j.rlp.RlpString;
-import org.web3j.rlp.RlpType;
 
-import java.util.List;
+import org.web3j.rlp.RlpDecoder;
+import org.web3j.rlp.RlpEncoder;
 
+/**
+ * A read-only view of an RLP encoded block header.
+ * <p>
+ * A PoW header has 15 fields, ending with the nonce and the solution. A PoS header has
+ * version {@link #SEAL_TYPE_POS} and 16 fields, ending with the seed, the signature and
+ * the public key of the signing address; the first 13 fields are common to both.
+ * <p>
+ * The constructor walks the encoding once with {@link RlpDecoder#walk} and only records
+ * where each field starts and how long it is. A field is copied out of the encoding when it is accessed, so
+ * the large fields, e.g. the logs bloom and the solution, cost nothing unless read.
+ */
 public class AionBlockHeader {
 
-    byte version;
+    public static final byte SEAL_TYPE_POW = 1;
+    public static final byte SEAL_TYPE_POS = 2;
 
-    long number;
+    // field positions in the header list
+    private static final int VERSION = 0;
+    private static final int NUMBER = 1;
+    private static final int PARENT_HASH = 2;
+    private static final int COINBASE = 3;
+    private static final int STATE_ROOT = 4;
+    private static final int TX_TRIE_ROOT = 5;
+    private static final int RECEIPT_TRIE_ROOT = 6;
+    private static final int LOGS_BLOOM = 7;
+    private static final int DIFFICULTY = 8;
+    private static final int EXTRA_DATA = 9;
+    private static final int ENERGY_CONSUMED = 10;
+    private static final int ENERGY_LIMIT = 11;
+    private static final int TIMESTAMP = 12;
+    private static final int NONCE = 13;
+    private static final int SOLUTION = 14;
+    private static final int SEED = 13;
+    private static final int SIGNATURE = 14;
+    private static final int SIGNING_PUBLIC_KEY = 15;
+    private static final int POW_FIELD_COUNT = 15;
+    private static final int POS_FIELD_COUNT = 16;
 
-    byte[] parentHash;
+    private static final int PUBLIC_KEY_LENGTH = 32;
+    private static final int SIGNATURE_LENGTH = 64;
 
-    byte[] coinbase;
+    private final byte[] encoded;
 
-    byte[] stateRoot;
+    // offset of the first field, and payload offset and length of each field, within the encoding
+    private final int fieldsOffset;
+    private final int fieldCount;
+    private final int[] offsets = new int[POS_FIELD_COUNT];
+    private final int[] lengths = new int[POS_FIELD_COUNT];
 
-    byte[] txTrieRoot;
+    // computed on first use
+    private byte[] hash;
 
-    byte[] receiptTrieRoot;
+    /**
+     * Creates a view of the given header encoding, which must not be modified afterwards.
+     *
+     * @param rlpEncoded the RLP encoded header
+     * @throws IllegalArgumentException if the encoding is not a well-formed header
+     */
+    public AionBlockHeader(byte[] rlpEncoded) {
+        FieldCollector collector = new FieldCollector(rlpEncoded.length, offsets, lengths);
+        require(RlpDecoder.walk(rlpEncoded, 0, rlpEncoded.length, collector) && collector.isComplete());
 
-    byte[] logsBloom;
+        this.encoded = rlpEncoded;
+        this.fieldsOffset = collector.fieldsOffset;
+        this.fieldCount = collector.count;
+    }
 
-    byte[] difficulty;
+    public byte getVersion() {
+        long version = getLong(VERSION);
+        require(version <= Byte.MAX_VALUE);
+        return (byte) version;
+    }
 
-    byte[] extraData;
+    public long getNumber() {
+        return getLong(NUMBER);
+    }
 
-    long energyConsumed;
+    public byte[] getParentHash() {
+        return getBytes(PARENT_HASH);
+    }
 
-    long energyLimit;
+    public byte[] getCoinbase() {
+        return getBytes(COINBASE);
+    }
 
-    long timestamp;
+    public byte[] getStateRoot() {
+        return getBytes(STATE_ROOT);
+    }
 
-    byte[] nonce;
+    public byte[] getTxTrieRoot() {
+        return getBytes(TX_TRIE_ROOT);
+    }
 
-    byte[] solution;
+    public byte[] getReceiptTrieRoot() {
+        return getBytes(RECEIPT_TRIE_ROOT);
+    }
 
-    public AionBlockHeader(byte[] rlpEncoded) {
-        List<RlpType> list = RlpDecoder.decode(rlpEncoded).getValues();
-        List<RlpType> header = ((RlpList) list.get(0)).getValues();
-
-        this.version = ((RlpString) (header.get(0))).asPositiveBigInteger().byteValueExact();
-        this.number = ((RlpString) (header.get(1))).asPositiveBigInteger().byteValueExact();
-        this.parentHash = ((RlpString) (header.get(2))).getBytes();
-        this.coinbase = ((RlpString) (header.get(3))).getBytes();
-        this.stateRoot = ((RlpString) (header.get(4))).getBytes();
-        this.txTrieRoot = ((RlpString) (header.get(5))).getBytes();
-        this.receiptTrieRoot = ((RlpString) (header.get(6))).getBytes();
-        this.logsBloom = ((RlpString) (header.get(7))).getBytes();
-        this.difficulty = ((RlpString) (header.get(8))).getBytes();
-        this.extraData = ((RlpString) (header.get(9))).getBytes();
-        this.energyConsumed = ((RlpString) (header.get(10))).asPositiveBigInteger().longValue();
-        this.energyLimit = ((RlpString) (header.get(11))).asPositiveBigInteger().longValue();
-        this.timestamp = ((RlpString) (header.get(12))).asPositiveBigInteger().longValue();
-        this.nonce = ((RlpString) (header.get(13))).getBytes();
-        this.solution = ((RlpString) (header.get(14))).getBytes();
+    public byte[] getLogsBloom() {
+        return getBytes(LOGS_BLOOM);
+    }
+
+    public byte[] getDifficulty() {
+        return getBytes(DIFFICULTY);
+    }
+
+    public byte[] getExtraData() {
+        return getBytes(EXTRA_DATA);
+    }
+
+    public long getEnergyConsumed() {
+        return getLong(ENERGY_CONSUMED);
+    }
+
+    public long getEnergyLimit() {
+        return getLong(ENERGY_LIMIT);
+    }
+
+    public long getTimestamp() {
+        return getLong(TIMESTAMP);
+    }
+
+    public byte[] getNonce() {
+        return getBytes(NONCE);
+    }
+
+    public byte[] getSolution() {
+        return getBytes(SOLUTION);
+    }
+
+    public boolean isPoS() {
+        return fieldCount == POS_FIELD_COUNT && getVersion() == SEAL_TYPE_POS;
+    }
+
+    public byte[] getSeed() {
+        requirePoS();
+        return getBytes(SEED);
+    }
+
+    public byte[] getSignature() {
+        requirePoS();
+        return getBytes(SIGNATURE);
+    }
+
+    public byte[] getSigningPublicKey() {
+        requirePoS();
+        return getBytes(SIGNING_PUBLIC_KEY);
     }
 
     public byte[] getEncoded() {
         return getEncoded(true, true);
     }
 
+    /**
+     * Returns the canonical encoding of the header, optionally without the nonce and the
+     * solution, i.e. the seal of a PoW header.
+     * <p>
+     * Fields which are already canonically encoded in the input are copied as they are; only
+     * integers with leading zeros are re-encoded.
+     */
     public byte[] getEncoded(boolean includeNonce, boolean includeSolution) {
-        // FIXME: implement the header codec
-        return "header".getBytes();
+        int excluded = (includeNonce ? 0 : 1 << NONCE) | (includeSolution ? 0 : 1 << SOLUTION);
+        return encode(excluded).clone();
     }
 
+    /**
+     * Returns the blake2b hash of the full encoding, which identifies the block.
+     */
     public byte[] getHash() {
-        return Blockchain.blake2b(getEncoded());
+        if (hash == null) {
+            hash = Blockchain.blake2b(encode(0));
+        }
+        return hash.clone();
     }
 
+    /**
+     * Returns the signing address of a PoS header, if the seal signature is valid; null
+     * otherwise.
+     * <p>
+     * The signature covers the blake2b hash of the header without the signature and the
+     * public key. The signing address is derived from the public key like any Aion account
+     * address: 0xa0 followed by the last 31 bytes of the blake2b hash of the key.
+     */
     public Address getSigner() {
-        // FIXME: extract signer from the header
-        return null;
+        if (!isPoS() || lengths[SIGNING_PUBLIC_KEY] != PUBLIC_KEY_LENGTH || lengths[SIGNATURE] != SIGNATURE_LENGTH) {
+            return null;
+        }
+
+        byte[] publicKey = getBytes(SIGNING_PUBLIC_KEY);
+        byte[] signedHash = Blockchain.blake2b(encode(1 << SIGNATURE | 1 << SIGNING_PUBLIC_KEY));
+        if (!Blockchain.edVerify(signedHash, getBytes(SIGNATURE), publicKey)) {
+            return null;
+        }
+
+        byte[] address = Blockchain.blake2b(publicKey);
+        address[0] = (byte) 0xa0;
+        return new Address(address);
+    }
+
+    /**
+     * Returns the encoding without the fields in the excluded bit set, which is the input
+     * itself if nothing is excluded and it is canonical; callers must not modify the result.
+     */
+    private byte[] encode(int excluded) {
+        if (excluded == 0 && isCanonical()) {
+            return encoded;
+        }
+
+        int payload = 0;
+        for (int i = 0; i < fieldCount; i++) {
+            if ((excluded & 1 << i) == 0) {
+                payload += isCanonical(i) ? itemEnd(i) - itemStart(i) : RlpEncoder.sizeOfLong(getLong(i));
+            }
+        }
+
+        byte[] result = new byte[RlpEncoder.sizeOfList(payload)];
+        int pos = RlpEncoder.writeListPrefix(result, 0, payload);
+        for (int i = 0; i < fieldCount; i++) {
+            if ((excluded & 1 << i) != 0) {
+                continue;
+            }
+            if (isCanonical(i)) {
+                System.arraycopy(encoded, itemStart(i), result, pos, itemEnd(i) - itemStart(i));
+                pos += itemEnd(i) - itemStart(i);
+            } else {
+                pos = RlpEncoder.writeLong(result, pos, getLong(i));
+            }
+        }
+        return result;
+    }
+
+    private boolean isCanonical() {
+        for (int i = 0; i < fieldCount; i++) {
+            if (!isCanonical(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether a field is encoded as the kernel would encode it. The walk has already
+     * rejected non-canonical prefixes, so only integers can differ, by leading zeros.
+     */
+    private boolean isCanonical(int field) {
+        boolean isInteger = field == VERSION || field == NUMBER
+                || field == ENERGY_CONSUMED || field == ENERGY_LIMIT || field == TIMESTAMP;
+        return !isInteger || lengths[field] == 0 || encoded[offsets[field]] != 0;
+    }
+
+    /**
+     * Returns the offset of the encoding of a field, including its prefix.
+     */
+    private int itemStart(int field) {
+        return field == 0 ? fieldsOffset : itemEnd(field - 1);
+    }
+
+    private int itemEnd(int field) {
+        return offsets[field] + lengths[field];
+    }
+
+    private byte[] getBytes(int field) {
+        byte[] bytes = new byte[lengths[field]];
+        System.arraycopy(encoded, offsets[field], bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Reads a field as an unsigned big-endian integer of at most 8 bytes, which must fit in a
+     * non-negative long, so block numbers and timestamps can be subtracted safely.
+     */
+    private long getLong(int field) {
+        require(lengths[field] <= Long.BYTES);
+        long value = 0;
+        for (int i = offsets[field]; i < offsets[field] + lengths[field]; i++) {
+            value = (value << 8) | (encoded[i] & 0xff);
+        }
+        require(value >= 0);
+        return value;
+    }
+
+    private static void require(boolean condition) {
+        if (!condition) {
+            throw new IllegalArgumentException("Malformed block header");
+        }
+    }
+
+    private void requirePoS() {
+        if (!isPoS()) {
+            throw new IllegalStateException("Not a PoS block header");
+        }
+    }
+
+    /**
+     * Records the fields of a header, which must be a single list of 15 or 16 strings
+     * spanning the whole encoding.
+     */
+    private static class FieldCollector implements RlpDecoder.Visitor {
+        private final int encodedLength;
+        private final int[] offsets;
+        private final int[] lengths;
+        private int fieldsOffset;
+        private boolean inHeader;
+        private int count;
+        private boolean malformed;
+
+        FieldCollector(int encodedLength, int[] offsets, int[] lengths) {
+            this.encodedLength = encodedLength;
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+
+        @Override
+        public boolean visit(int offset, int length, boolean isList) {
+            if (!inHeader) {
+                inHeader = true;
+                fieldsOffset = offset;
+                malformed = !isList || offset + length != encodedLength;
+                return !malformed;
+            }
+            if (isList || count == POS_FIELD_COUNT) {
+                malformed = true;
+            } else {
+                offsets[count] = offset;
+                lengths[count] = length;
+                count++;
+            }
+            return false;
+        }
+
+        @Override
+        public void endList() {
+        }
+
+        boolean isComplete() {
+            return !malformed && (count == POW_FIELD_COUNT || count == POS_FIELD_COUNT);
+        }
     }
 
     @Override
     public String toString() {
         return "AionBlockHeader{" +
-                "version=" + version +
-                ", number=" + number +
-                ", parentHash=" + bytesToHex(parentHash) +
-                ", coinbase=" + bytesToHex(coinbase) +
-                ", stateRoot=" + bytesToHex(stateRoot) +
-                ", txTrieRoot=" + bytesToHex(txTrieRoot) +
-                ", receiptTrieRoot=" + bytesToHex(receiptTrieRoot) +
-                ", logsBloom=" + bytesToHex(logsBloom) +
-                ", difficulty=" + bytesToHex(difficulty) +
-                ", extraData=" + bytesToHex(extraData) +
-                ", energyConsumed=" + energyConsumed +
-                ", energyLimit=" + energyLimit +
-                ", timestamp=" + timestamp +
-                ", nonce=" + bytesToHex(nonce) +
-                ", solution=" + bytesToHex(solution) +
+                "version=" + getVersion() +
+                ", number=" + getNumber() +
+                ", parentHash=" + bytesToHex(getParentHash()) +
+                ", coinbase=" + bytesToHex(getCoinbase()) +
+                ", stateRoot=" + bytesToHex(getStateRoot()) +
+                ", txTrieRoot=" + bytesToHex(getTxTrieRoot()) +
+                ", receiptTrieRoot=" + bytesToHex(getReceiptTrieRoot()) +
+                ", logsBloom=" + bytesToHex(getLogsBloom()) +
+                ", difficulty=" + bytesToHex(getDifficulty()) +
+                ", extraData=" + bytesToHex(getExtraData()) +
+                ", energyConsumed=" + getEnergyConsumed() +
+                ", energyLimit=" + getEnergyLimit() +
+                ", timestamp=" + getTimestamp() +
+                ", nonce=" + bytesToHex(getNonce()) +
+                ", solution=" + bytesToHex(getSolution()) +
                 '}';
     }
 
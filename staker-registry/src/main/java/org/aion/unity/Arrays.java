@@ -35,14 +35,23 @@ public class Arrays {
         return true;
     }
 
-    public static byte[] copyOfRange(byte[] bytes, int i, int length) {
-        byte[] ret = new byte[length];
-        System.arraycopy(bytes, i, ret, 0, length);
+    /**
+     * Copies bytes[from, to), like {@link java.util.Arrays#copyOfRange(byte[], int, int)}.
+     */
+    public static byte[] copyOfRange(byte[] bytes, int from, int to) {
+        byte[] ret = new byte[to - from];
+        System.arraycopy(bytes, from, ret, 0, to - from);
         return ret;
     }
 
-    public static byte[] copyOf(byte[] bytes, int i) {
-        return copyOfRange(bytes, i, bytes.length - i);
+    /**
+     * Copies bytes into an array of the new length, truncating or zero-padding, like
+     * {@link java.util.Arrays#copyOf(byte[], int)}.
+     */
+    public static byte[] copyOf(byte[] bytes, int newLength) {
+        byte[] ret = new byte[newLength];
+        System.arraycopy(bytes, 0, ret, 0, bytes.length < newLength ? bytes.length : newLength);
+        return ret;
     }
 
     public static <T> List<T> asList(T[] values) {
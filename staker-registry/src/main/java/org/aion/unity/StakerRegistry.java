@@ -4,13 +4,14 @@ import avm.Address;
 import avm.Blockchain;
 import avm.Result;
 import org.aion.avm.tooling.abi.Callable;
+import org.aion.avm.userlib.AionBuffer;
+import org.aion.avm.userlib.AionList;
 import org.aion.avm.userlib.AionMap;
-import org.aion.avm.userlib.AionSet;
 import org.aion.avm.userlib.abi.ABIStreamingEncoder;
 
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * A staker registry manages the staker database, and provides an interface for voters
@@ -19,17 +20,34 @@ import java.util.Set;
 public class StakerRegistry {
 
     // TODO: replace long with BigInteger once the ABI supports it.
-    // TODO: replace object graph-based collections with key-value storage.
-    // TODO: add events.
 
     public static final long SIGNING_ADDRESS_COOLING_PERIOD = 6 * 60 * 24 * 7;
     public static final long UNVOTE_LOCK_UP_PERIOD = 6 * 60 * 24 * 7;
     public static final long TRANSFER_LOCK_UP_PERIOD = 6 * 10;
+    // must not exceed the un-vote lock-up period, or stake could leave before being slashed
+    public static final long SLASHING_EVIDENCE_WINDOW = 6 * 60 * 24 * 7;
+
+    public static final int MAX_LISTENERS = 10;
+    // the energy limit of a listener call; a notification which can't be given this much
+    // is queued instead, see deliverNotifications
+    public static final long LISTENER_ENERGY_LIMIT = 2_000_000L;
+    // kept back while notifying, to queue the remaining notifications and finish the call
+    private static final long NOTIFICATION_ENERGY_RESERVE = 1_000_000L;
+    public static final int MAX_NOTIFICATION_BATCH = 20;
+    // a notification which fails this many deliveries is dropped, so a listener which always
+    // reverts can't hold back the ones behind it forever
+    public static final int MAX_DELIVERY_ATTEMPTS = 3;
 
     public static final BigInteger MIN_SELF_STAKE = BigInteger.valueOf(1000L);
     public static final BigInteger PENALTY_AMOUNT = BigInteger.valueOf(100L);
 
+    /**
+     * The staker record. The stakes of the voters and the listeners are kept under
+     * their own keys, see {@link StakerStorage}.
+     */
     private static class Staker {
+        private static final int ENCODED_SIZE = Address.LENGTH * 5 + Long.BYTES + 32 + 1;
+
         private Address identityAddress;
         private Address managementAddress;
         private Address signingAddress;
@@ -38,15 +56,10 @@ public class StakerRegistry {
 
         private long lastSigningAddressUpdate;
 
+        // the sum of the stakes of all voters
         private BigInteger totalStake;
         private boolean isActive;
 
-        // maps addresses to the stakes those addresses have sent to this staker
-        // the sum of stakes.values() should always equal totalStake
-        private Map<Address, BigInteger> stakes;
-
-        private Set<Address> listeners;
-
         public Staker(Address identityAddress, Address managementAddress, Address signingAddress, Address coinbaseAddress, Address selfBondAddress, long lastSigningAddressUpdate) {
             this.identityAddress = identityAddress;
             this.managementAddress = managementAddress;
@@ -55,10 +68,60 @@ public class StakerRegistry {
             this.selfBondAddress = selfBondAddress;
             this.lastSigningAddressUpdate = lastSigningAddressUpdate;
             this.totalStake = BigInteger.ZERO;
-            this.stakes = new AionMap<>();
-            this.listeners = new AionSet<>();
             this.isActive = true;
         }
+
+        private byte[] toBytes() {
+            return AionBuffer.allocate(ENCODED_SIZE)
+                    .putAddress(identityAddress)
+                    .putAddress(managementAddress)
+                    .putAddress(signingAddress)
+                    .putAddress(coinbaseAddress)
+                    .putAddress(selfBondAddress)
+                    .putLong(lastSigningAddressUpdate)
+                    .put32ByteInt(totalStake)
+                    .putBoolean(isActive)
+                    .getArray();
+        }
+
+        private static Staker fromBytes(byte[] bytes) {
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            Staker s = new Staker(buffer.getAddress(), buffer.getAddress(), buffer.getAddress(),
+                    buffer.getAddress(), buffer.getAddress(), buffer.getLong());
+            s.totalStake = buffer.get32ByteInt();
+            s.isActive = buffer.getBoolean();
+            return s;
+        }
+    }
+
+    /**
+     * The staker a signing address belongs to, and the blocks [fromBlock, toBlock) it is
+     * valid for. A signing address is never reused, so it has exactly one period; the
+     * period of the current signing address is open-ended.
+     */
+    private static class SigningPeriod {
+        private Address staker;
+        private long fromBlock;
+        private long toBlock;
+
+        public SigningPeriod(Address staker, long fromBlock, long toBlock) {
+            this.staker = staker;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        private byte[] toBytes() {
+            return AionBuffer.allocate(Address.LENGTH + Long.BYTES * 2)
+                    .putAddress(staker)
+                    .putLong(fromBlock)
+                    .putLong(toBlock)
+                    .getArray();
+        }
+
+        private static SigningPeriod fromBytes(byte[] bytes) {
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            return new SigningPeriod(buffer.getAddress(), buffer.getLong(), buffer.getLong());
+        }
     }
 
     private static class PendingUnvote {
@@ -73,6 +136,45 @@ public class StakerRegistry {
             this.value = value;
             this.blockNumber = blockNumber;
         }
+
+        private byte[] toBytes() {
+            return AionBuffer.allocate(Address.LENGTH * 2 + 32 + Long.BYTES)
+                    .putAddress(initiator)
+                    .putAddress(recipient)
+                    .put32ByteInt(value)
+                    .putLong(blockNumber)
+                    .getArray();
+        }
+
+        private static PendingUnvote fromBytes(byte[] bytes) {
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            return new PendingUnvote(buffer.getAddress(), buffer.getAddress(), buffer.get32ByteInt(), buffer.getLong());
+        }
+    }
+
+    /**
+     * A FIFO stored as entries at positions [head, tail). Used for the pending un-vote ids of
+     * a recipient, where insertion order is maturity order since the lock-up period is the
+     * same for all un-votes, and for the deferred notifications of a listener.
+     */
+    private static class Queue {
+        private long head;
+        private long tail;
+
+        private byte[] toBytes() {
+            return AionBuffer.allocate(Long.BYTES * 2)
+                    .putLong(head)
+                    .putLong(tail)
+                    .getArray();
+        }
+
+        private static Queue fromBytes(byte[] bytes) {
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            Queue q = new Queue();
+            q.head = buffer.getLong();
+            q.tail = buffer.getLong();
+            return q;
+        }
     }
 
     private static class PendingTransfer {
@@ -91,15 +193,27 @@ public class StakerRegistry {
             this.value = value;
             this.blockNumber = blockNumber;
         }
-    }
 
-    private static Map<Address, Staker> stakers = new AionMap<>();
-    private static Map<Address, Address> signingAddresses = new AionMap<>();
+        private byte[] toBytes() {
+            return AionBuffer.allocate(Address.LENGTH * 4 + 32 + Long.BYTES)
+                    .putAddress(initiator)
+                    .putAddress(fromStaker)
+                    .putAddress(toStaker)
+                    .putAddress(recipient)
+                    .put32ByteInt(value)
+                    .putLong(blockNumber)
+                    .getArray();
+        }
+
+        private static PendingTransfer fromBytes(byte[] bytes) {
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            return new PendingTransfer(buffer.getAddress(), buffer.getAddress(), buffer.getAddress(),
+                    buffer.getAddress(), buffer.get32ByteInt(), buffer.getLong());
+        }
+    }
 
     private static long nextUnvote = 0;
-    private static Map<Long, PendingUnvote> pendingUnvotes = new AionMap<>();
     private static long nextTransfer = 0;
-    private static Map<Long, PendingTransfer> pendingTransfers = new AionMap<>();
 
     /**
      * Registers a staker. The caller address will be the identification
@@ -107,7 +221,8 @@ public class StakerRegistry {
      *
      * @param identityAddress  the identity of the staker; can't be changed
      * @param managementAddress  the address with management rights. can't be changed.
-     * @param signingAddress  the address of the key used for signing PoS blocks
+     * @param signingAddress  the address of the key used for signing PoS blocks; must never
+     *                        have been used by a staker, see {@link #setSigningAddress}
      * @param coinbaseAddress the address of the key used for collecting block rewards
      * @param selfBondAddress  the self bond is deposited by staker
      */
@@ -121,12 +236,16 @@ public class StakerRegistry {
         requireNonNull(selfBondAddress);
         requireNoValue();
 
-        require(!signingAddresses.containsKey(signingAddress));
-        require(!stakers.containsKey(identityAddress));
+        require(getStakerBySigningAddress(signingAddress) == null);
+        require(getStaker(identityAddress) == null);
 
-        signingAddresses.put(signingAddress, identityAddress);
+        // the signer of a block is set by the state of its parent, so the address signs
+        // from the next block on
+        long blockNumber = Blockchain.getBlockNumber();
+        putSigningPeriod(signingAddress, new SigningPeriod(identityAddress, blockNumber + 1, Long.MAX_VALUE));
+        putStaker(new Staker(identityAddress, managementAddress, signingAddress, coinbaseAddress, selfBondAddress, blockNumber));
 
-        stakers.put(identityAddress, new Staker(identityAddress, managementAddress, signingAddress, coinbaseAddress, selfBondAddress, Blockchain.getBlockNumber()));
+        StakerRegistryEvents.registeredStaker(identityAddress, managementAddress, signingAddress, coinbaseAddress, selfBondAddress);
     }
 
     /**
@@ -139,13 +258,15 @@ public class StakerRegistry {
         Address caller = Blockchain.getCaller();
         BigInteger amount = Blockchain.getValue();
 
-        requireStaker(staker);
+        Staker s = requireStaker(staker);
         requirePositive(amount);
 
-        Staker s = stakers.get(staker);
         s.totalStake = s.totalStake.add(amount);
-        BigInteger previousStake = getOrDefault(s.stakes, caller, BigInteger.ZERO);
-        putOrRemove(s.stakes, caller, previousStake.add(amount));
+        putStaker(s);
+        BigInteger previousStake = getStake(s, caller);
+        putStake(s, caller, previousStake.add(amount));
+
+        StakerRegistryEvents.voted(staker, caller, amount);
     }
 
     /**
@@ -173,13 +294,12 @@ public class StakerRegistry {
     public static long unvoteTo(Address staker, long amount, Address recipient) {
         Address caller = Blockchain.getCaller();
 
-        requireStaker(staker);
+        Staker s = requireStaker(staker);
         requirePositive(amount);
         requireNonNull(recipient);
         requireNoValue();
 
-        Staker s = stakers.get(staker);
-        BigInteger previousStake = getOrDefault(stakers.get(staker).stakes, caller, BigInteger.ZERO);
+        BigInteger previousStake = getStake(s, caller);
         BigInteger amountBI = BigInteger.valueOf(amount);
 
         // check previous stake
@@ -187,12 +307,21 @@ public class StakerRegistry {
 
         // update stake
         s.totalStake = s.totalStake.subtract(amountBI);
-        putOrRemove(s.stakes, caller, previousStake.subtract(amountBI));
+        putStaker(s);
+        putStake(s, caller, previousStake.subtract(amountBI));
 
         // create pending unvote
         long id = nextUnvote++;
         PendingUnvote unvote = new PendingUnvote(caller, recipient, BigInteger.valueOf(amount), Blockchain.getBlockNumber());
-        pendingUnvotes.put(id, unvote);
+        StakerStorage.put(StakerStorage.key(StakerStorage.PENDING_UNVOTE, id), unvote.toBytes());
+
+        // index it by recipient
+        Queue queue = getQueue(StakerStorage.UNVOTE_QUEUE, recipient);
+        StakerStorage.putLong(StakerStorage.key(StakerStorage.UNVOTE_QUEUE_ENTRY, recipient, queue.tail), id);
+        queue.tail++;
+        putQueue(StakerStorage.UNVOTE_QUEUE, recipient, queue);
+
+        StakerRegistryEvents.unvoted(id, staker, caller, recipient, amountBI);
 
         return id;
     }
@@ -223,14 +352,13 @@ public class StakerRegistry {
     public static long transferStakeTo(Address fromStaker, Address toStaker, long amount, Address recipient) {
         Address caller = Blockchain.getCaller();
 
-        requireStaker(fromStaker);
+        Staker s = requireStaker(fromStaker);
         requireStaker(toStaker);
         requirePositive(amount);
         require(!fromStaker.equals(toStaker));
         requireNoValue();
 
-        Staker s = stakers.get(fromStaker);
-        BigInteger previousStake = getOrDefault(s.stakes, caller, BigInteger.ZERO);
+        BigInteger previousStake = getStake(s, caller);
         BigInteger amountBI = BigInteger.valueOf(amount);
 
         // check previous stake
@@ -238,12 +366,15 @@ public class StakerRegistry {
 
         // update stake
         s.totalStake = s.totalStake.subtract(amountBI);
-        putOrRemove(s.stakes, caller, previousStake.subtract(amountBI));
+        putStaker(s);
+        putStake(s, caller, previousStake.subtract(amountBI));
 
         // create pending transfer
         long id = nextTransfer++;
         PendingTransfer transfer = new PendingTransfer(caller, fromStaker, toStaker, recipient, BigInteger.valueOf(amount), Blockchain.getBlockNumber());
-        pendingTransfers.put(id, transfer);
+        StakerStorage.put(StakerStorage.key(StakerStorage.PENDING_TRANSFER, id), transfer.toBytes());
+
+        StakerRegistryEvents.transferredStake(id, fromStaker, toStaker, caller, recipient, amountBI);
 
         return id;
     }
@@ -257,18 +388,138 @@ public class StakerRegistry {
     public static void finalizeUnvote(long id) {
         requireNoValue();
 
-        // check existence
-        PendingUnvote unvote = pendingUnvotes.get(id);
+        PendingUnvote unvote = removeMaturedUnvote(id);
         requireNonNull(unvote);
 
+        // do a value transfer
+        secureCall(unvote.recipient, unvote.value, new byte[0], Blockchain.getRemainingEnergy());
+    }
+
+    /**
+     * Finalizes a batch of un-vote operations. Ids which don't exist or are still locked up
+     * are skipped, and each recipient receives the sum of its finalized un-votes in one
+     * value transfer.
+     *
+     * @param ids the pending unvote identifiers
+     * @return the number of finalized un-votes
+     */
+    @Callable
+    public static int finalizeUnvotes(long[] ids) {
+        requireNonNull(ids);
+        requireNoValue();
+
+        int count = 0;
+        Map<Address, BigInteger> values = new AionMap<>();
+        for (long id : ids) {
+            PendingUnvote unvote = removeMaturedUnvote(id);
+            if (unvote != null) {
+                BigInteger value = values.get(unvote.recipient);
+                values.put(unvote.recipient, value == null ? unvote.value : value.add(unvote.value));
+                count++;
+            }
+        }
+
+        // do the value transfers
+        for (Map.Entry<Address, BigInteger> entry : values.entrySet()) {
+            secureCall(entry.getKey(), entry.getValue(), new byte[0], Blockchain.getRemainingEnergy());
+        }
+
+        return count;
+    }
+
+    /**
+     * Finalizes all the matured un-votes of a recipient, in one value transfer.
+     *
+     * @param recipient the recipient of the un-votes
+     * @return the number of finalized un-votes
+     */
+    @Callable
+    public static int finalizeAllMaturedUnvotes(Address recipient) {
+        requireNonNull(recipient);
+        requireNoValue();
+
+        return sweepMaturedUnvotes(recipient, 0);
+    }
+
+    /**
+     * Finalizes the matured un-votes of a recipient, oldest first, until only the given
+     * amount of energy is left. The progress is saved, so the remaining un-votes can be
+     * finalized by another call.
+     *
+     * @param recipient     the recipient of the un-votes
+     * @param energyReserve the energy to keep for the value transfer and saving the progress
+     * @return the number of finalized un-votes
+     */
+    @Callable
+    public static int finalizeMaturedUnvotes(Address recipient, long energyReserve) {
+        requireNonNull(recipient);
+        require(energyReserve >= 0);
+        requireNoValue();
+
+        return sweepMaturedUnvotes(recipient, energyReserve);
+    }
+
+    private static int sweepMaturedUnvotes(Address recipient, long energyReserve) {
+        Queue queue = getQueue(StakerStorage.UNVOTE_QUEUE, recipient);
+        long blockNumber = Blockchain.getBlockNumber();
+
+        int count = 0;
+        BigInteger value = BigInteger.ZERO;
+        while (queue.head < queue.tail && Blockchain.getRemainingEnergy() > energyReserve) {
+            byte[] entryKey = StakerStorage.key(StakerStorage.UNVOTE_QUEUE_ENTRY, recipient, queue.head);
+            long id = StakerStorage.getLong(entryKey);
+            byte[] unvoteKey = StakerStorage.key(StakerStorage.PENDING_UNVOTE, id);
+
+            // un-votes finalized by id are left in the queue, and dropped here
+            byte[] bytes = StakerStorage.get(unvoteKey);
+            if (bytes != null) {
+                PendingUnvote unvote = PendingUnvote.fromBytes(bytes);
+                if (blockNumber < unvote.blockNumber + UNVOTE_LOCK_UP_PERIOD) {
+                    break;
+                }
+                StakerStorage.remove(unvoteKey);
+                StakerRegistryEvents.finalizedUnvote(id);
+                value = value.add(unvote.value);
+                count++;
+            }
+
+            StakerStorage.remove(entryKey);
+            queue.head++;
+        }
+        putQueue(StakerStorage.UNVOTE_QUEUE, recipient, queue);
+
+        // do a value transfer
+        if (value.signum() > 0) {
+            secureCall(recipient, value, new byte[0], Blockchain.getRemainingEnergy());
+        }
+
+        return count;
+    }
+
+    /**
+     * Removes a pending un-vote if it has passed the lock-up period.
+     *
+     * @return the removed un-vote, or null if it doesn't exist or is still locked up
+     */
+    private static PendingUnvote removeMaturedUnvote(long id) {
+        // check existence
+        byte[] key = StakerStorage.key(StakerStorage.PENDING_UNVOTE, id);
+        byte[] bytes = StakerStorage.get(key);
+        if (bytes == null) {
+            return null;
+        }
+        PendingUnvote unvote = PendingUnvote.fromBytes(bytes);
+
         // lock-up period check
-        require(Blockchain.getBlockNumber() >= unvote.blockNumber + UNVOTE_LOCK_UP_PERIOD);
+        if (Blockchain.getBlockNumber() < unvote.blockNumber + UNVOTE_LOCK_UP_PERIOD) {
+            return null;
+        }
 
         // remove the unvote
-        pendingUnvotes.remove(id);
+        StakerStorage.remove(key);
+        StakerRegistryEvents.finalizedUnvote(id);
 
-        // do a value transfer
-        secureCall(unvote.recipient, unvote.value, new byte[0], Blockchain.getRemainingEnergy());
+        return unvote;
     }
 
     /**
@@ -280,30 +531,78 @@ public class StakerRegistry {
     public static void finalizeTransfer(long id) {
         requireNoValue();
 
-        // check existence
-        PendingTransfer transfer = pendingTransfers.get(id);
+        PendingTransfer transfer = removeMaturedTransfer(id);
         requireNonNull(transfer);
 
+        creditTransfer(transfer);
+    }
+
+    /**
+     * Finalizes a batch of transfer operations. Ids which don't exist, are still locked up
+     * or were initiated by another address are skipped.
+     *
+     * @param ids the pending transfer identifiers
+     * @return the number of finalized transfers
+     */
+    @Callable
+    public static int finalizeTransfers(long[] ids) {
+        requireNonNull(ids);
+        requireNoValue();
+
+        int count = 0;
+        for (long id : ids) {
+            PendingTransfer transfer = removeMaturedTransfer(id);
+            if (transfer != null) {
+                creditTransfer(transfer);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Removes a pending transfer if it has passed the lock-up period and the caller is its initiator.
+     *
+     * @return the removed transfer, or null if it can't be finalized by the caller yet
+     */
+    private static PendingTransfer removeMaturedTransfer(long id) {
+        // check existence
+        byte[] key = StakerStorage.key(StakerStorage.PENDING_TRANSFER, id);
+        byte[] bytes = StakerStorage.get(key);
+        if (bytes == null) {
+            return null;
+        }
+        PendingTransfer transfer = PendingTransfer.fromBytes(bytes);
+
         // only the initiator can finalize the transfer, mainly because
         // the pool registry needs to keep track of stake transfers.
         // TODO: a more elegant way would be using listener?
-        require(Blockchain.getCaller().equals(transfer.initiator));
+        if (!Blockchain.getCaller().equals(transfer.initiator)) {
+            return null;
+        }
 
         // lock-up period check
-        require(Blockchain.getBlockNumber() >= transfer.blockNumber + TRANSFER_LOCK_UP_PERIOD);
+        if (Blockchain.getBlockNumber() < transfer.blockNumber + TRANSFER_LOCK_UP_PERIOD) {
+            return null;
+        }
+
+        // remove the transfer
+        StakerStorage.remove(key);
+        StakerRegistryEvents.finalizedTransfer(id);
 
-        // remvoe the transfer
-        pendingTransfers.remove(id);
+        return transfer;
+    }
 
+    private static void creditTransfer(PendingTransfer transfer) {
         // credit the stake to the designated pool of the recipient
-        Staker s = stakers.get(transfer.toStaker);
-        BigInteger previousStake = getOrDefault(s.stakes, transfer.recipient, BigInteger.ZERO);
+        Staker s = getStaker(transfer.toStaker);
+        BigInteger previousStake = getStake(s, transfer.recipient);
         s.totalStake = s.totalStake.add(transfer.value);
-        putOrRemove(s.stakes, transfer.recipient, previousStake.add(transfer.value));
+        putStaker(s);
+        putStake(s, transfer.recipient, previousStake.add(transfer.value));
     }
 
-    private static Set<ByteArrayWrapper> slashedHeaders = new AionSet<>();
-
     @Callable
     public static void slash(int type, byte[] ...headers) {
         switch(type) {
@@ -315,61 +614,82 @@ public class StakerRegistry {
 
                 // decode block header
                 AionBlockHeader header = new AionBlockHeader(headers[0]);
+
+                // only recent evidence is accepted, which lets old records be pruned; a header
+                // from the future can't be evidence, and would outlive the window when pruning
+                require(header.getNumber() <= Blockchain.getBlockNumber());
+                require(Blockchain.getBlockNumber() - header.getNumber() <= SLASHING_EVIDENCE_WINDOW);
+
                 byte[] hash = header.getHash();
-                byte[] correctHash = "test".getBytes(); // FIXME: use `Blockchain.getBlockHash(header.number)`;
+                byte[] correctHash = "test".getBytes(); // FIXME: use `Blockchain.getBlockHash(header.getNumber())`;
 
                 // avoid double-slashing
-                require(!slashedHeaders.contains(new ByteArrayWrapper(hash)));
+                byte[] slashedHeaderKey = StakerStorage.key(StakerStorage.SLASHED_HEADER, hash);
+                require(StakerStorage.get(slashedHeaderKey) == null);
 
                 if (!Arrays.equals(hash, correctHash)) {
                     // find the staker
-                    Address staker = stakers.keySet().iterator().next(); // FIXME: use `signingAddresses.get(header.getSigner())`;
+                    Address signer = header.getSigner();
+                    requireNonNull(signer);
+                    Address staker = getStakerBySigningAddress(signer, header.getNumber());
                     requireNonNull(staker);
 
+                    StakerStorage.putLong(slashedHeaderKey, header.getNumber());
                     slash(staker);
                 }
                 break;
         }
     }
 
+    /**
+     * Removes the records of slashed headers which have left the evidence window, and so
+     * can no longer be submitted. Anyone can prune.
+     *
+     * @param hashes the hashes of the slashed headers
+     * @return the number of records removed
+     */
+    @Callable
+    public static int pruneSlashedHeaders(byte[][] hashes) {
+        requireNonNull(hashes);
+        requireNoValue();
+
+        long blockNumber = Blockchain.getBlockNumber();
+        int pruned = 0;
+        for (byte[] hash : hashes) {
+            requireNonNull(hash);
+            byte[] key = StakerStorage.key(StakerStorage.SLASHED_HEADER, hash);
+            byte[] headerNumber = StakerStorage.get(key);
+            if (headerNumber != null && blockNumber - AionBuffer.wrap(headerNumber).getLong() > SLASHING_EVIDENCE_WINDOW) {
+                StakerStorage.remove(key);
+                pruned++;
+            }
+        }
+        return pruned;
+    }
+
     private static void slash(Address staker) {
-        Staker s = stakers.get(staker);
+        Staker s = getStaker(staker);
         Address selfBondAddress = s.selfBondAddress;
 
-        // deduct the stake of the staker
-        BigInteger selfStake = getOrDefault(s.stakes, selfBondAddress, BigInteger.ZERO);
+        // deduct the penalty from the self-bond stake, and so from the total stake
+        BigInteger selfStake = getStake(s, selfBondAddress);
         require(selfStake.compareTo(PENALTY_AMOUNT) >= 0);
-        s.stakes.put(selfBondAddress, selfStake.min(PENALTY_AMOUNT));
+        putStake(s, selfBondAddress, selfStake.subtract(PENALTY_AMOUNT));
+        s.totalStake = s.totalStake.subtract(PENALTY_AMOUNT);
+        putStaker(s);
+        StakerRegistryEvents.slashed(staker, Blockchain.getCaller(), selfBondAddress, PENALTY_AMOUNT);
 
         // transfer the slashed stake to the reporter TODO: Yao has different view on this
         secureCall(Blockchain.getCaller(), PENALTY_AMOUNT, new byte[0], Blockchain.getRemainingEnergy());
 
-        // NOTE: when calling the onSlash callback, cap the energy limit and ignore
-        // the call results. Otherwise, a staker can set up a energy sucker as listener
-        // to prevent a slashing.
-
-        // Also, to make sure the pool registry have enough energy to execute
-        // its internal logic, we should check the remaining energy here.
-
-        // In conclusion, we need to make sure the listener get executed with enough
-        // energy and prevent a listener from stopping a slashing event.
-
-        // FIXME: reduce this number after optimizing the energy usage in pool registry.
-        long energyForListener = 2_000_000L;
-        long remainingEnergy = Blockchain.getRemainingEnergy();
-        require(remainingEnergy > energyForListener * s.listeners.size() + 100_000L);
-
-        // FIXME: limit the max number of listeners per staker
-        // otherwise, staker can register many listeners to prevent slashing.
-
-        for (Address listener : s.listeners) {
-            byte[] data = new ABIStreamingEncoder()
-                    .encodeOneString("onSlashing")
-                    .encodeOneAddress(staker)
-                    .encodeOneLong(PENALTY_AMOUNT.longValue())
-                    .toBytes();
-            Blockchain.call(listener, BigInteger.ZERO, data, energyForListener);
-        }
+        // NOTE: listener calls are capped and their failures ignored, and the listener
+        // count is bounded, so a staker can't set up listeners to prevent a slashing.
+        byte[] data = new ABIStreamingEncoder()
+                .encodeOneString("onSlashing")
+                .encodeOneAddress(staker)
+                .encodeOneLong(PENALTY_AMOUNT.longValue())
+                .toBytes();
+        notifyListeners(staker, data);
     }
 
 
@@ -388,23 +708,24 @@ public class StakerRegistry {
         requireNoValue();
 
         // if not a staker
-        Address staker = signingAddresses.get(signingAddress);
+        Address staker = getStakerBySigningAddress(signingAddress);
         if (staker == null) {
             return 0;
         }
 
-        // if coinbase addresses do not match
-        if (!stakers.get(staker).coinbaseAddress.equals(coinbaseAddress)) {
+        // if a previous signing address, or coinbase addresses do not match
+        Staker s = getStaker(staker);
+        if (!s.signingAddress.equals(signingAddress) || !s.coinbaseAddress.equals(coinbaseAddress)) {
             return 0;
         }
 
         // if not active
-        if (!isActive(staker)) {
+        if (!isActive(s)) {
             return 0;
         }
 
         // query total stake
-        long totalStake = getTotalStake(staker);
+        long totalStake = s.totalStake.longValue();
 
         // FIXME: define the conversion, presumably 1 AION = 1 stake
         long effectiveStake = totalStake / 1;
@@ -420,10 +741,10 @@ public class StakerRegistry {
      */
     @Callable
     public static long getTotalStake(Address staker) {
-        requireStaker(staker);
+        Staker s = requireStaker(staker);
         requireNoValue();
 
-        return stakers.get(staker).totalStake.longValue();
+        return s.totalStake.longValue();
     }
 
 
@@ -436,11 +757,43 @@ public class StakerRegistry {
      */
     @Callable
     public static long getStake(Address staker, Address voter) {
-        requireStaker(staker);
+        Staker s = requireStaker(staker);
         requireNonNull(voter);
         requireNoValue();
 
-        return getOrDefault(stakers.get(staker).stakes, voter, BigInteger.ZERO).longValue();
+        return getStake(s, voter).longValue();
+    }
+
+    /**
+     * Returns the header fields of a staker in one response, which saves clients a call per field.
+     * <p>
+     * The response is the ABI encoding of the signing address, coinbase address, total stake
+     * and active status, followed by the stake of the voter and whether the listener is
+     * registered, each only if requested.
+     *
+     * @param staker   the address of the staker
+     * @param voter    the address of the voter, or null to skip
+     * @param listener the address of the listener, or null to skip
+     * @return the packed staker info
+     */
+    @Callable
+    public static byte[] getStakerInfo(Address staker, Address voter, Address listener) {
+        Staker s = requireStaker(staker);
+        requireNoValue();
+
+        ABIStreamingEncoder encoder = new ABIStreamingEncoder()
+                .encodeOneAddress(s.signingAddress)
+                .encodeOneAddress(s.coinbaseAddress)
+                .encodeOneLong(s.totalStake.longValue())
+                .encodeOneBoolean(isActive(s));
+        if (voter != null) {
+            encoder.encodeOneLong(getStake(s, voter).longValue());
+        }
+        if (listener != null) {
+            encoder.encodeOneBoolean(getListeners(staker).contains(listener));
+        }
+
+        return encoder.toBytes();
     }
 
     /**
@@ -451,7 +804,7 @@ public class StakerRegistry {
      */
     @Callable
     public static boolean isStaker(Address staker) {
-        return stakers.containsKey(staker);
+        return staker != null && getStaker(staker) != null;
     }
 
     /**
@@ -463,12 +816,14 @@ public class StakerRegistry {
      */
     @Callable
     public static boolean isActive(Address staker) {
-        requireNonNull(staker);
+        Staker s = requireStaker(staker);
         requireNoValue();
 
-        Staker s = stakers.get(staker);
+        return isActive(s);
+    }
 
-        return s.isActive && BigInteger.valueOf(getStake(staker, s.selfBondAddress)).compareTo(MIN_SELF_STAKE) >= 0;
+    private static boolean isActive(Staker s) {
+        return s.isActive && getStake(s, s.selfBondAddress).compareTo(MIN_SELF_STAKE) >= 0;
     }
 
     /**
@@ -484,19 +839,16 @@ public class StakerRegistry {
 
         if (isActive != s.isActive) {
             s.isActive = isActive;
+            putStaker(s);
+            StakerRegistryEvents.changedActiveStatus(s.identityAddress, isActive);
 
-            for (Address listener : s.listeners) {
-                byte[] data = new ABIStreamingEncoder()
-                        .encodeOneString("onActiveStatusChange")
-                        .encodeOneAddress(s.identityAddress)
-                        .encodeOneBoolean(isActive)
-                        .toBytes();
-                secureCall(listener, BigInteger.ZERO, data, Blockchain.getRemainingEnergy());
-            }
+            byte[] data = new ABIStreamingEncoder()
+                    .encodeOneString("onActiveStatusChange")
+                    .encodeOneAddress(s.identityAddress)
+                    .encodeOneBoolean(isActive)
+                    .toBytes();
+            notifyListeners(s.identityAddress, data);
         }
-
-
-        s.isActive = isActive;
     }
 
     /**
@@ -507,10 +859,10 @@ public class StakerRegistry {
      */
     @Callable
     public static Address getSigningAddress(Address staker) {
-        requireStaker(staker);
+        Staker s = requireStaker(staker);
         requireNoValue();
 
-        return stakers.get(staker).signingAddress;
+        return s.signingAddress;
     }
 
     /**
@@ -521,24 +873,27 @@ public class StakerRegistry {
      */
     @Callable
     public static Address getCoinbaseAddress(Address staker) {
-        requireStaker(staker);
+        Staker s = requireStaker(staker);
         requireNoValue();
 
-        return stakers.get(staker).coinbaseAddress;
+        return s.coinbaseAddress;
     }
 
     // TODO: correct error checking.
     private static Staker requireStakerAndManager(Address staker, Address manager) {
-        requireStaker(staker);
-        Staker s = stakers.get(staker);
+        Staker s = requireStaker(staker);
         require(s.managementAddress.equals(manager));
 
         return s;
     }
     /**
      * Updates the signing address of a staker. Owner only.
+     * <p>
+     * A signing address is bound to one staker and one period for good, so a header it signed
+     * can always be attributed when slashing. The previous address is therefore retired: it
+     * can't be set again, not even by the same staker, nor be registered by another staker.
      *
-     * @param newSigningAddress the new signing address
+     * @param newSigningAddress the new signing address, never used by a staker before
      */
     @Callable
     public static void setSigningAddress(Address staker, Address newSigningAddress) {
@@ -552,20 +907,24 @@ public class StakerRegistry {
             require(blockNumber >= s.lastSigningAddressUpdate + SIGNING_ADDRESS_COOLING_PERIOD);
 
             // check duplicated signing address
-            require(!signingAddresses.containsKey(newSigningAddress));
+            require(getStakerBySigningAddress(newSigningAddress) == null);
 
-            signingAddresses.put(newSigningAddress, s.identityAddress);
+            // the previous address still signs the current block
+            SigningPeriod previous = getSigningPeriod(s.signingAddress);
+            previous.toBlock = blockNumber + 1;
+            putSigningPeriod(s.signingAddress, previous);
+            putSigningPeriod(newSigningAddress, new SigningPeriod(s.identityAddress, blockNumber + 1, Long.MAX_VALUE));
             s.signingAddress = newSigningAddress;
             s.lastSigningAddressUpdate = blockNumber;
+            putStaker(s);
+            StakerRegistryEvents.changedSigningAddress(s.identityAddress, newSigningAddress);
 
-            for (Address listener : s.listeners) {
-                byte[] data = new ABIStreamingEncoder()
-                        .encodeOneString("onSigningAddressChange")
-                        .encodeOneAddress(s.identityAddress)
-                        .encodeOneAddress(newSigningAddress)
-                        .toBytes();
-                secureCall(listener, BigInteger.ZERO, data, Blockchain.getRemainingEnergy());
-            }
+            byte[] data = new ABIStreamingEncoder()
+                    .encodeOneString("onSigningAddressChange")
+                    .encodeOneAddress(s.identityAddress)
+                    .encodeOneAddress(newSigningAddress)
+                    .toBytes();
+            notifyListeners(s.identityAddress, data);
         }
     }
 
@@ -582,15 +941,15 @@ public class StakerRegistry {
         Staker s = requireStakerAndManager(staker, Blockchain.getCaller());
         if (!newCoinbaseAddress.equals(s.coinbaseAddress)) {
             s.coinbaseAddress = newCoinbaseAddress;
+            putStaker(s);
+            StakerRegistryEvents.changedCoinbaseAddress(s.identityAddress, newCoinbaseAddress);
 
-            for (Address listener : s.listeners) {
-                byte[] data = new ABIStreamingEncoder()
-                        .encodeOneString("onCoinbaseAddressChange")
-                        .encodeOneAddress(s.identityAddress)
-                        .encodeOneAddress(newCoinbaseAddress)
-                        .toBytes();
-                secureCall(listener, BigInteger.ZERO, data, Blockchain.getRemainingEnergy());
-            }
+            byte[] data = new ABIStreamingEncoder()
+                    .encodeOneString("onCoinbaseAddressChange")
+                    .encodeOneAddress(s.identityAddress)
+                    .encodeOneAddress(newCoinbaseAddress)
+                    .toBytes();
+            notifyListeners(s.identityAddress, data);
         }
     }
 
@@ -607,15 +966,15 @@ public class StakerRegistry {
         Staker s = requireStakerAndManager(staker, Blockchain.getCaller());
         if (!newAddress.equals(s.selfBondAddress)) {
             s.selfBondAddress = newAddress;
+            putStaker(s);
+            StakerRegistryEvents.changedSelfBondAddress(s.identityAddress, newAddress);
 
-            for (Address listener : s.listeners) {
-                byte[] data = new ABIStreamingEncoder()
-                        .encodeOneString("onSelfBondAddressChange")
-                        .encodeOneAddress(s.identityAddress)
-                        .encodeOneAddress(newAddress)
-                        .toBytes();
-                secureCall(listener, BigInteger.ZERO, data, Blockchain.getRemainingEnergy());
-            }
+            byte[] data = new ABIStreamingEncoder()
+                    .encodeOneString("onSelfBondAddressChange")
+                    .encodeOneAddress(s.identityAddress)
+                    .encodeOneAddress(newAddress)
+                    .toBytes();
+            notifyListeners(s.identityAddress, data);
         }
     }
 
@@ -629,8 +988,12 @@ public class StakerRegistry {
         requireNoValue();
 
         Staker s = requireStakerAndManager(staker, Blockchain.getCaller());
-        if (!s.listeners.contains(listener)) {
-            s.listeners.add(listener);
+        List<Address> listeners = getListeners(staker);
+        if (!listeners.contains(listener)) {
+            require(listeners.size() < MAX_LISTENERS);
+            listeners.add(listener);
+            putListeners(staker, listeners);
+            StakerRegistryEvents.addedListener(s.identityAddress, listener);
 
             // notify the listener
             byte[] data = new ABIStreamingEncoder()
@@ -651,15 +1014,18 @@ public class StakerRegistry {
         requireNoValue();
 
         Staker s = requireStakerAndManager(staker, Blockchain.getCaller());
-        if (s.listeners.contains(listener)) {
-            s.listeners.remove(listener);
+        List<Address> listeners = getListeners(staker);
+        if (listeners.contains(listener)) {
+            listeners.remove(listener);
+            putListeners(staker, listeners);
+            StakerRegistryEvents.removedListener(s.identityAddress, listener);
 
-            // notify the listener
+            // notify the listener, which can't prevent its removal
             byte[] data = new ABIStreamingEncoder()
                     .encodeOneString("onListenerRemoved")
                     .encodeOneAddress(s.identityAddress)
                     .toBytes();
-            secureCall(listener, BigInteger.ZERO, data, Blockchain.getRemainingEnergy());
+            notify(listener, data);
         }
     }
 
@@ -675,7 +1041,124 @@ public class StakerRegistry {
         requireNonNull(listener);
         requireNoValue();
 
-        return stakers.get(staker).listeners.contains(listener);
+        return getListeners(staker).contains(listener);
+    }
+
+    /**
+     * Delivers the queued notifications of a listener, in order, each with
+     * {@link #LISTENER_ENERGY_LIMIT}. Stops at the first failed delivery, which stays queued
+     * until it has failed {@link #MAX_DELIVERY_ATTEMPTS} times; it is then dropped with a
+     * {@code NotificationDropped} event, and delivery goes on with the next one. A delivery
+     * is only attempted with the full energy limit available, so a caller can't make it fail.
+     * Anyone can call, e.g. the listener itself or a keeper.
+     *
+     * @param listener the address of the listener
+     * @param max      the maximum number of notifications to deliver or drop, at most {@link #MAX_NOTIFICATION_BATCH}
+     * @return the number of notifications delivered
+     */
+    @Callable
+    public static int deliverNotifications(Address listener, int max) {
+        requireNonNull(listener);
+        require(max > 0 && max <= MAX_NOTIFICATION_BATCH);
+        requireNoValue();
+
+        Queue queue = getQueue(StakerStorage.NOTIFICATION_QUEUE, listener);
+        int processed = 0;
+        int delivered = 0;
+        while (processed < max && queue.head < queue.tail && hasEnergyToNotify()) {
+            byte[] key = StakerStorage.key(StakerStorage.NOTIFICATION, listener, queue.head);
+            byte[] data = StakerStorage.get(key);
+            if (Blockchain.call(listener, BigInteger.ZERO, data, LISTENER_ENERGY_LIMIT).isSuccess()) {
+                // positions start over once the queue empties, so a count left behind would be
+                // taken for the count of a later notification
+                StakerStorage.remove(StakerStorage.key(StakerStorage.NOTIFICATION_ATTEMPTS, listener));
+                delivered++;
+            } else if (!dropAfterFailedDelivery(listener, queue.head, data)) {
+                break;
+            }
+            StakerStorage.remove(key);
+            queue.head++;
+            processed++;
+        }
+        putQueue(StakerStorage.NOTIFICATION_QUEUE, listener, queue);
+
+        return delivered;
+    }
+
+    /**
+     * Returns the number of queued notifications of a listener.
+     *
+     * @param listener the address of the listener
+     * @return the number of notifications waiting for delivery
+     */
+    @Callable
+    public static long getPendingNotifications(Address listener) {
+        requireNonNull(listener);
+        requireNoValue();
+
+        Queue queue = getQueue(StakerStorage.NOTIFICATION_QUEUE, listener);
+        return queue.tail - queue.head;
+    }
+
+    /**
+     * Sends the same notification to every listener of a staker.
+     */
+    private static void notifyListeners(Address staker, byte[] data) {
+        for (Address listener : getListeners(staker)) {
+            notify(listener, data);
+        }
+    }
+
+    /**
+     * Calls the listener with a capped energy limit, or queues the notification if the call
+     * fails, there isn't enough energy left, or earlier notifications are still queued.
+     */
+    private static void notify(Address listener, byte[] data) {
+        Queue queue = getQueue(StakerStorage.NOTIFICATION_QUEUE, listener);
+        if (queue.head == queue.tail && hasEnergyToNotify()) {
+            if (Blockchain.call(listener, BigInteger.ZERO, data, LISTENER_ENERGY_LIMIT).isSuccess()) {
+                return;
+            }
+            // the failed call counts as the first delivery attempt of the queued notification
+            putFailedAttempts(listener, queue.tail, 1);
+        }
+        StakerStorage.put(StakerStorage.key(StakerStorage.NOTIFICATION, listener, queue.tail), data);
+        queue.tail++;
+        putQueue(StakerStorage.NOTIFICATION_QUEUE, listener, queue);
+    }
+
+    private static boolean hasEnergyToNotify() {
+        return Blockchain.getRemainingEnergy() > LISTENER_ENERGY_LIMIT + NOTIFICATION_ENERGY_RESERVE;
+    }
+
+    /**
+     * Counts a failed delivery of the notification at the head of a listener's queue.
+     *
+     * @return true if the notification has run out of attempts, and is to be dropped
+     */
+    private static boolean dropAfterFailedDelivery(Address listener, long position, byte[] data) {
+        byte[] key = StakerStorage.key(StakerStorage.NOTIFICATION_ATTEMPTS, listener);
+        byte[] bytes = StakerStorage.get(key);
+        int attempts = 1;
+        if (bytes != null) {
+            // the count is only valid for the notification it was stored for
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            if (buffer.getLong() == position) {
+                attempts += buffer.getInt();
+            }
+        }
+        if (attempts < MAX_DELIVERY_ATTEMPTS) {
+            putFailedAttempts(listener, position, attempts);
+            return false;
+        }
+        StakerStorage.remove(key);
+        StakerRegistryEvents.droppedNotification(listener, position, data);
+        return true;
+    }
+
+    private static void putFailedAttempts(Address listener, long position, int attempts) {
+        StakerStorage.put(StakerStorage.key(StakerStorage.NOTIFICATION_ATTEMPTS, listener),
+                AionBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(position).putInt(attempts).getArray());
     }
 
     private static void require(boolean condition) {
@@ -683,8 +1166,12 @@ public class StakerRegistry {
         Blockchain.require(condition);
     }
 
-    private static void requireStaker(Address staker) {
-        require(staker != null && stakers.containsKey(staker));
+    private static Staker requireStaker(Address staker) {
+        require(staker != null);
+        Staker s = getStaker(staker);
+        require(s != null);
+
+        return s;
     }
 
     private static void requirePositive(BigInteger num) {
@@ -703,19 +1190,85 @@ public class StakerRegistry {
         require(Blockchain.getValue().equals(BigInteger.ZERO));
     }
 
-    private static <K, V extends BigInteger> void putOrRemove(Map<K, V> map, K key, V value) {
-        if (value == null || value.compareTo(BigInteger.ZERO) == 0) {
-            map.remove(key);
+    private static Staker getStaker(Address staker) {
+        byte[] bytes = StakerStorage.get(StakerStorage.key(StakerStorage.STAKER, staker));
+        return bytes == null ? null : Staker.fromBytes(bytes);
+    }
+
+    private static void putStaker(Staker s) {
+        StakerStorage.put(StakerStorage.key(StakerStorage.STAKER, s.identityAddress), s.toBytes());
+    }
+
+    private static BigInteger getStake(Staker s, Address voter) {
+        return StakerStorage.getBigInteger(StakerStorage.key(StakerStorage.STAKE, s.identityAddress, voter));
+    }
+
+    private static void putStake(Staker s, Address voter, BigInteger stake) {
+        StakerStorage.putBigInteger(StakerStorage.key(StakerStorage.STAKE, s.identityAddress, voter), stake);
+    }
+
+    private static Queue getQueue(byte prefix, Address owner) {
+        byte[] bytes = StakerStorage.get(StakerStorage.key(prefix, owner));
+        return bytes == null ? new Queue() : Queue.fromBytes(bytes);
+    }
+
+    private static void putQueue(byte prefix, Address owner, Queue queue) {
+        byte[] key = StakerStorage.key(prefix, owner);
+        if (queue.head == queue.tail) {
+            // an empty queue starts over from position zero
+            StakerStorage.remove(key);
         } else {
-            map.put(key, value);
+            StakerStorage.put(key, queue.toBytes());
         }
     }
 
-    private static <K, V> V getOrDefault(Map<K, V> map, K key, V defaultValue) {
-        if (map.containsKey(key)) {
-            return map.get(key);
+    /**
+     * Returns the staker a current or previous signing address belongs to, or null.
+     */
+    private static Address getStakerBySigningAddress(Address signingAddress) {
+        SigningPeriod period = getSigningPeriod(signingAddress);
+        return period == null ? null : period.staker;
+    }
+
+    /**
+     * Returns the staker whose signing address was valid for the given block, or null.
+     */
+    private static Address getStakerBySigningAddress(Address signingAddress, long blockNumber) {
+        SigningPeriod period = getSigningPeriod(signingAddress);
+        return period == null || blockNumber < period.fromBlock || blockNumber >= period.toBlock ? null : period.staker;
+    }
+
+    private static SigningPeriod getSigningPeriod(Address signingAddress) {
+        byte[] bytes = StakerStorage.get(StakerStorage.key(StakerStorage.SIGNING_ADDRESS, signingAddress));
+        return bytes == null ? null : SigningPeriod.fromBytes(bytes);
+    }
+
+    private static void putSigningPeriod(Address signingAddress, SigningPeriod period) {
+        StakerStorage.put(StakerStorage.key(StakerStorage.SIGNING_ADDRESS, signingAddress), period.toBytes());
+    }
+
+    private static List<Address> getListeners(Address staker) {
+        List<Address> listeners = new AionList<>();
+        byte[] bytes = StakerStorage.get(StakerStorage.key(StakerStorage.LISTENERS, staker));
+        if (bytes != null) {
+            AionBuffer buffer = AionBuffer.wrap(bytes);
+            for (int i = 0; i < bytes.length / Address.LENGTH; i++) {
+                listeners.add(buffer.getAddress());
+            }
+        }
+        return listeners;
+    }
+
+    private static void putListeners(Address staker, List<Address> listeners) {
+        byte[] key = StakerStorage.key(StakerStorage.LISTENERS, staker);
+        if (listeners.isEmpty()) {
+            StakerStorage.remove(key);
         } else {
-            return defaultValue;
+            AionBuffer buffer = AionBuffer.allocate(listeners.size() * Address.LENGTH);
+            for (Address listener : listeners) {
+                buffer.putAddress(listener);
+            }
+            StakerStorage.put(key, buffer.getArray());
         }
     }
 
@@ -0,0 +1,131 @@
+package org.aion.unity;
+
+import avm.Address;
+import avm.Blockchain;
+import org.aion.avm.userlib.AionBuffer;
+
+import java.math.BigInteger;
+
+/**
+ * The events emitted by the staker registry.
+ * <p>
+ * The first topic is the event name, the following topics are the addresses or ids an
+ * indexer filters on. The data has a fixed layout: addresses take 32 bytes, ids and
+ * block numbers 8 bytes, and amounts 32 bytes (unsigned, big-endian). Together the events
+ * describe every change of the registry state, so it can be rebuilt by replaying them in
+ * receipt order.
+ */
+public class StakerRegistryEvents {
+
+    private static final int AMOUNT_SIZE = 32;
+
+    static void registeredStaker(Address identityAddress, Address managementAddress, Address signingAddress,
+                                 Address coinbaseAddress, Address selfBondAddress) {
+        Blockchain.log("StakerRegistered".getBytes(),
+                identityAddress.toByteArray(),
+                signingAddress.toByteArray(),
+                coinbaseAddress.toByteArray(),
+                AionBuffer.allocate(Address.LENGTH * 2)
+                        .putAddress(managementAddress)
+                        .putAddress(selfBondAddress)
+                        .getArray());
+    }
+
+    static void voted(Address staker, Address voter, BigInteger amount) {
+        Blockchain.log("Voted".getBytes(),
+                staker.toByteArray(),
+                voter.toByteArray(),
+                amount(amount));
+    }
+
+    static void unvoted(long id, Address staker, Address voter, Address recipient, BigInteger amount) {
+        Blockchain.log("Unvoted".getBytes(),
+                staker.toByteArray(),
+                voter.toByteArray(),
+                recipient.toByteArray(),
+                AionBuffer.allocate(Long.BYTES + AMOUNT_SIZE)
+                        .putLong(id)
+                        .put32ByteInt(amount)
+                        .getArray());
+    }
+
+    static void transferredStake(long id, Address fromStaker, Address toStaker, Address initiator,
+                                 Address recipient, BigInteger amount) {
+        Blockchain.log("StakeTransferred".getBytes(),
+                fromStaker.toByteArray(),
+                toStaker.toByteArray(),
+                initiator.toByteArray(),
+                AionBuffer.allocate(Long.BYTES + Address.LENGTH + AMOUNT_SIZE)
+                        .putLong(id)
+                        .putAddress(recipient)
+                        .put32ByteInt(amount)
+                        .getArray());
+    }
+
+    static void finalizedUnvote(long id) {
+        Blockchain.log("UnvoteFinalized".getBytes(), id(id));
+    }
+
+    static void finalizedTransfer(long id) {
+        Blockchain.log("TransferFinalized".getBytes(), id(id));
+    }
+
+    static void slashed(Address staker, Address reporter, Address selfBondAddress, BigInteger amount) {
+        Blockchain.log("Slashed".getBytes(),
+                staker.toByteArray(),
+                reporter.toByteArray(),
+                selfBondAddress.toByteArray(),
+                amount(amount));
+    }
+
+    static void changedActiveStatus(Address staker, boolean isActive) {
+        Blockchain.log("ActiveStatusChanged".getBytes(),
+                staker.toByteArray(),
+                new byte[]{(byte) (isActive ? 1 : 0)});
+    }
+
+    static void changedSigningAddress(Address staker, Address newSigningAddress) {
+        Blockchain.log("SigningAddressChanged".getBytes(),
+                staker.toByteArray(),
+                newSigningAddress.toByteArray());
+    }
+
+    static void changedCoinbaseAddress(Address staker, Address newCoinbaseAddress) {
+        Blockchain.log("CoinbaseAddressChanged".getBytes(),
+                staker.toByteArray(),
+                newCoinbaseAddress.toByteArray());
+    }
+
+    static void changedSelfBondAddress(Address staker, Address newSelfBondAddress) {
+        Blockchain.log("SelfBondAddressChanged".getBytes(),
+                staker.toByteArray(),
+                newSelfBondAddress.toByteArray());
+    }
+
+    static void addedListener(Address staker, Address listener) {
+        Blockchain.log("ListenerAdded".getBytes(),
+                staker.toByteArray(),
+                listener.toByteArray());
+    }
+
+    static void removedListener(Address staker, Address listener) {
+        Blockchain.log("ListenerRemoved".getBytes(),
+                staker.toByteArray(),
+                listener.toByteArray());
+    }
+
+    static void droppedNotification(Address listener, long position, byte[] data) {
+        Blockchain.log("NotificationDropped".getBytes(),
+                listener.toByteArray(),
+                id(position),
+                data);
+    }
+
+    private static byte[] id(long id) {
+        return AionBuffer.allocate(Long.BYTES).putLong(id).getArray();
+    }
+
+    private static byte[] amount(BigInteger amount) {
+        return AionBuffer.allocate(AMOUNT_SIZE).put32ByteInt(amount).getArray();
+    }
+}
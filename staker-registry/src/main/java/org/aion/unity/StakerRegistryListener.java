@@ -2,10 +2,16 @@ package org.aion.unity;
 
 import avm.Address;
 
+/**
+ * The callbacks of a staker registry listener.
+ * <p>
+ * Each callback is called with {@link StakerRegistry#LISTENER_ENERGY_LIMIT}, and its failure
+ * doesn't revert the change. A failed notification is queued and retried through
+ * {@link StakerRegistry#deliverNotifications}, until it has failed
+ * {@link StakerRegistry#MAX_DELIVERY_ATTEMPTS} times and is dropped.
+ */
 public interface StakerRegistryListener {
 
-    // TODO: analyze listener failure model
-
     /**
      * When the signing address of a staker is changed.
      *
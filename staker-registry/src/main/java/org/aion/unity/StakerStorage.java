@@ -0,0 +1,111 @@
+package org.aion.unity;
+
+import avm.Address;
+import avm.Blockchain;
+import org.aion.avm.userlib.AionBuffer;
+
+import java.math.BigInteger;
+
+/**
+ * Key-value storage helpers for the staker registry.
+ * <p>
+ * Every entry lives under a 32-byte key, which is the blake2b hash of a one-byte prefix
+ * followed by the fields identifying the entry, e.g. (staker, voter) for a stake. A call
+ * only pays for the entries it reads or writes, regardless of the size of the registry.
+ */
+public class StakerStorage {
+
+    // key prefixes
+    static final byte STAKER = 0x00;             // staker -> staker record
+    static final byte STAKE = 0x01;              // (staker, voter) -> stake
+    static final byte LISTENERS = 0x02;          // staker -> listener list
+    static final byte SIGNING_ADDRESS = 0x03;    // signing address -> staker and signing period
+    static final byte PENDING_UNVOTE = 0x04;     // id -> pending unvote record
+    static final byte PENDING_TRANSFER = 0x05;   // id -> pending transfer record
+    static final byte UNVOTE_QUEUE = 0x06;       // recipient -> head and tail of the pending unvote queue
+    static final byte UNVOTE_QUEUE_ENTRY = 0x07; // (recipient, position) -> pending unvote id
+    static final byte SLASHED_HEADER = 0x08;     // header hash -> block number of the header
+    static final byte NOTIFICATION_QUEUE = 0x09; // listener -> head and tail of the deferred notification queue
+    static final byte NOTIFICATION = 0x0A;       // (listener, position) -> notification call data
+    static final byte NOTIFICATION_ATTEMPTS = 0x0B; // listener -> position and failed deliveries of the head notification
+
+    static byte[] key(byte prefix, Address address) {
+        return Blockchain.blake2b(AionBuffer.allocate(1 + Address.LENGTH)
+                .putByte(prefix)
+                .putAddress(address)
+                .getArray());
+    }
+
+    static byte[] key(byte prefix, Address address1, Address address2) {
+        return Blockchain.blake2b(AionBuffer.allocate(1 + Address.LENGTH * 2)
+                .putByte(prefix)
+                .putAddress(address1)
+                .putAddress(address2)
+                .getArray());
+    }
+
+    static byte[] key(byte prefix, Address address, long position) {
+        return Blockchain.blake2b(AionBuffer.allocate(1 + Address.LENGTH + Long.BYTES)
+                .putByte(prefix)
+                .putAddress(address)
+                .putLong(position)
+                .getArray());
+    }
+
+    static byte[] key(byte prefix, long id) {
+        return Blockchain.blake2b(AionBuffer.allocate(1 + Long.BYTES)
+                .putByte(prefix)
+                .putLong(id)
+                .getArray());
+    }
+
+    static byte[] key(byte prefix, byte[] hash) {
+        return Blockchain.blake2b(AionBuffer.allocate(1 + hash.length)
+                .putByte(prefix)
+                .put(hash)
+                .getArray());
+    }
+
+    static byte[] get(byte[] key) {
+        return Blockchain.getStorage(key);
+    }
+
+    static void put(byte[] key, byte[] value) {
+        Blockchain.putStorage(key, value);
+    }
+
+    static void remove(byte[] key) {
+        Blockchain.putStorage(key, null);
+    }
+
+    /**
+     * Returns the long stored under the key, or zero if absent.
+     */
+    static long getLong(byte[] key) {
+        byte[] value = get(key);
+        return value == null ? 0L : AionBuffer.wrap(value).getLong();
+    }
+
+    static void putLong(byte[] key, long value) {
+        put(key, AionBuffer.allocate(Long.BYTES).putLong(value).getArray());
+    }
+
+    /**
+     * Returns the non-negative integer stored under the key, or zero if absent.
+     */
+    static BigInteger getBigInteger(byte[] key) {
+        byte[] value = get(key);
+        return value == null ? BigInteger.ZERO : new BigInteger(value);
+    }
+
+    /**
+     * Stores a non-negative integer; a zero value removes the entry.
+     */
+    static void putBigInteger(byte[] key, BigInteger value) {
+        if (value.signum() == 0) {
+            remove(key);
+        } else {
+            put(key, value.toByteArray());
+        }
+    }
+}
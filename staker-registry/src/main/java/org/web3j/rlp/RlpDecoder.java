@@ -14,6 +14,8 @@ package org.web3j.rlp;
 
 import org.aion.avm.userlib.AionList;
 
+import java.util.List;
+
 /**
  * Recursive Length Prefix (RLP) decoder.
  *
@@ -55,127 +57,153 @@ public class RlpDecoder {
     public static int OFFSET_LONG_LIST = 0xf7;
 
     /**
-     * Parse wire byte[] message into RLP elements.
-     *
-     * @param rlpEncoded - RLP encoded byte-array
-     * @return recursive RLP structure
+     * The maximum nesting depth of lists accepted by {@link #walk}.
      */
-    public static RlpList decode(byte[] rlpEncoded) {
-        RlpList rlpList = new RlpList(new AionList<>());
-        traverse(rlpEncoded, 0, rlpEncoded.length, rlpList);
-        return rlpList;
+    public static int MAX_DEPTH = 32;
+
+    /**
+     * Receives the items found by {@link #walk}, in order of appearance.
+     */
+    public interface Visitor {
+
+        /**
+         * Reports an item. The payload of the item is {@code data[offset, offset + length)};
+         * for a list, the payload is the concatenation of the encodings of its items.
+         *
+         * @return whether to walk into the items of the list; ignored for strings
+         */
+        boolean visit(int offset, int length, boolean isList);
+
+        /**
+         * Reports the end of a list which {@link #visit} chose to walk into.
+         */
+        void endList();
     }
 
-    private static void traverse(byte[] data, int startPos, int endPos, RlpList rlpList) {
+    /**
+     * Walks the RLP items in {@code data[start, end)} in place, without copying any payload.
+     *
+     * @param data    RLP encoded byte-array
+     * @param start   the offset of the first item
+     * @param end     the offset past the last item
+     * @param visitor the receiver of the items
+     * @return false if the encoding is malformed, in which case the walk stops at the
+     *     offending item; true otherwise
+     */
+    public static boolean walk(byte[] data, int start, int end, Visitor visitor) {
+        if (start < 0 || start > end || end > data.length) {
+            return false;
+        }
+        return walk(data, start, end, visitor, 0);
+    }
 
-        try {
-            if (data == null || data.length == 0) {
-                return;
+    private static boolean walk(byte[] data, int startPos, int endPos, Visitor visitor, int depth) {
+        while (startPos < endPos) {
+            int prefix = data[startPos] & 0xff;
+            int offset;
+            int length;
+
+            if (prefix < OFFSET_SHORT_STRING) {
+                // a single byte in [0x00, 0x7f] is its own encoding
+                offset = startPos;
+                length = 1;
+            } else if (prefix <= OFFSET_LONG_STRING) {
+                offset = startPos + 1;
+                length = prefix - OFFSET_SHORT_STRING;
+                // a single byte in [0x00, 0x7f] must not carry a prefix
+                if (length == 1 && offset < endPos && (data[offset] & 0xff) < OFFSET_SHORT_STRING) {
+                    return false;
+                }
+            } else if (prefix < OFFSET_SHORT_LIST) {
+                int lenOfStrLen = prefix - OFFSET_LONG_STRING;
+                offset = startPos + 1 + lenOfStrLen;
+                length = readLength(data, startPos, lenOfStrLen, endPos);
+            } else if (prefix <= OFFSET_LONG_LIST) {
+                offset = startPos + 1;
+                length = prefix - OFFSET_SHORT_LIST;
+            } else {
+                int lenOfListLen = prefix - OFFSET_LONG_LIST;
+                offset = startPos + 1 + lenOfListLen;
+                length = readLength(data, startPos, lenOfListLen, endPos);
             }
 
-            while (startPos < endPos) {
-
-                int prefix = data[startPos] & 0xff;
-
-                if (prefix < OFFSET_SHORT_STRING) {
-
-                    // 1. the data is a string if the range of the
-                    // first byte(i.e. prefix) is [0x00, 0x7f],
-                    // and the string is the first byte itself exactly;
-
-                    byte[] rlpData = {(byte) prefix};
-                    rlpList.getValues().add(RlpString.create(rlpData));
-                    startPos += 1;
-
-                } else if (prefix == OFFSET_SHORT_STRING) {
-
-                    // null
-                    rlpList.getValues().add(RlpString.create(new byte[0]));
-                    startPos += 1;
-
-                } else if (prefix > OFFSET_SHORT_STRING && prefix <= OFFSET_LONG_STRING) {
-
-                    // 2. the data is a string if the range of the
-                    // first byte is [0x80, 0xb7], and the string
-                    // which length is equal to the first byte minus 0x80
-                    // follows the first byte;
-
-                    byte strLen = (byte) (prefix - OFFSET_SHORT_STRING);
-
-                    byte[] rlpData = new byte[strLen];
-                    System.arraycopy(data, startPos + 1, rlpData, 0, strLen);
-
-                    rlpList.getValues().add(RlpString.create(rlpData));
-                    startPos += 1 + strLen;
-
-                } else if (prefix > OFFSET_LONG_STRING && prefix < OFFSET_SHORT_LIST) {
-
-                    // 3. the data is a string if the range of the
-                    // first byte is [0xb8, 0xbf], and the length of the
-                    // string which length in bytes is equal to the
-                    // first byte minus 0xb7 follows the first byte,
-                    // and the string follows the length of the string;
-
-                    byte lenOfStrLen = (byte) (prefix - OFFSET_LONG_STRING);
-                    int strLen = calcLength(lenOfStrLen, data, startPos);
-
-                    // now we can parse an item for data[1]..data[length]
-                    byte[] rlpData = new byte[strLen];
-                    System.arraycopy(data, startPos + lenOfStrLen + 1, rlpData, 0, strLen);
-
-                    rlpList.getValues().add(RlpString.create(rlpData));
-                    startPos += lenOfStrLen + strLen + 1;
-
-                } else if (prefix >= OFFSET_SHORT_LIST && prefix <= OFFSET_LONG_LIST) {
-
-                    // 4. the data is a list if the range of the
-                    // first byte is [0xc0, 0xf7], and the concatenation of
-                    // the RLP encodings of all items of the list which the
-                    // total payload is equal to the first byte minus 0xc0 follows the first byte;
-
-                    byte listLen = (byte) (prefix - OFFSET_SHORT_LIST);
-
-                    RlpList newLevelList = new RlpList(new AionList<>());
-                    traverse(data, startPos + 1, startPos + listLen + 1, newLevelList);
-                    rlpList.getValues().add(newLevelList);
+            if (length < 0 || offset > endPos || length > endPos - offset) {
+                return false;
+            }
 
-                    startPos += 1 + listLen;
+            boolean isList = prefix >= OFFSET_SHORT_LIST;
+            if (visitor.visit(offset, length, isList) && isList) {
+                if (depth == MAX_DEPTH || !walk(data, offset, offset + length, visitor, depth + 1)) {
+                    return false;
+                }
+                visitor.endList();
+            }
+            startPos = offset + length;
+        }
+        return true;
+    }
 
-                } else if (prefix > OFFSET_LONG_LIST) {
+    /**
+     * Reads the length of a long string or list, or returns -1 if it is malformed: out of
+     * bounds, wider than an int, zero-padded, or short enough for the single byte form.
+     */
+    private static int readLength(byte[] data, int pos, int lengthOfLength, int endPos) {
+        if (lengthOfLength > Integer.BYTES
+                || lengthOfLength >= endPos - pos
+                || data[pos + 1] == 0) {
+            return -1;
+        }
+        int length = 0;
+        for (int i = 1; i <= lengthOfLength; ++i) {
+            length = (length << 8) | (data[pos + i] & 0xff);
+        }
+        return length > 55 ? length : -1;
+    }
 
-                    // 5. the data is a list if the range of the
-                    // first byte is [0xf8, 0xff], and the total payload of the
-                    // list which length is equal to the
-                    // first byte minus 0xf7 follows the first byte,
-                    // and the concatenation of the RLP encodings of all items of
-                    // the list follows the total payload of the list;
+    /**
+     * Parse wire byte[] message into RLP elements.
+     *
+     * @param rlpEncoded - RLP encoded byte-array
+     * @return recursive RLP structure
+     */
+    public static RlpList decode(byte[] rlpEncoded) {
+        RlpList rlpList = new RlpList(new AionList<>());
+        if (rlpEncoded != null && !walk(rlpEncoded, 0, rlpEncoded.length, new TreeBuilder(rlpEncoded, rlpList))) {
+            throw new RuntimeException("RLP wrong encoding");
+        }
+        return rlpList;
+    }
 
-                    byte lenOfListLen = (byte) (prefix - OFFSET_LONG_LIST);
-                    int listLen = calcLength(lenOfListLen, data, startPos);
+    /**
+     * Builds the {@link RlpList} tree of the walked items.
+     */
+    private static class TreeBuilder implements Visitor {
+        private final byte[] data;
+        private final List<RlpList> stack = new AionList<>();
 
-                    RlpList newLevelList = new RlpList(new AionList<>());
-                    traverse(
-                            data,
-                            startPos + lenOfListLen + 1,
-                            startPos + lenOfListLen + listLen + 1,
-                            newLevelList);
-                    rlpList.getValues().add(newLevelList);
+        TreeBuilder(byte[] data, RlpList root) {
+            this.data = data;
+            this.stack.add(root);
+        }
 
-                    startPos += lenOfListLen + listLen + 1;
-                }
+        @Override
+        public boolean visit(int offset, int length, boolean isList) {
+            RlpList current = stack.get(stack.size() - 1);
+            if (isList) {
+                RlpList newLevelList = new RlpList(new AionList<>());
+                current.getValues().add(newLevelList);
+                stack.add(newLevelList);
+            } else {
+                byte[] rlpData = new byte[length];
+                System.arraycopy(data, offset, rlpData, 0, length);
+                current.getValues().add(RlpString.create(rlpData));
             }
-        } catch (Exception e) {
-            throw new RuntimeException("RLP wrong encoding", e);
+            return true;
         }
-    }
 
-    private static int calcLength(int lengthOfLength, byte[] data, int pos) {
-        byte pow = (byte) (lengthOfLength - 1);
-        int length = 0;
-        for (int i = 1; i <= lengthOfLength; ++i) {
-            length += (data[pos + i] & 0xff) << (8 * pow);
-            pow--;
+        @Override
+        public void endList() {
+            stack.remove(stack.size() - 1);
         }
-        return length;
     }
 }
@@ -12,10 +12,6 @@
  */
 package org.web3j.rlp;
 
-import org.aion.unity.Arrays;
-
-import java.util.List;
-
 import static org.web3j.rlp.RlpDecoder.OFFSET_SHORT_LIST;
 import static org.web3j.rlp.RlpDecoder.OFFSET_SHORT_STRING;
 
@@ -27,78 +23,146 @@ import static org.web3j.rlp.RlpDecoder.OFFSET_SHORT_STRING;
  */
 public class RlpEncoder {
 
+    /**
+     * Encodes the value into a single array, sized up front: the first pass computes the
+     * encoded size of every item, the second writes the items in place.
+     */
     public static byte[] encode(RlpType value) {
+        byte[] result = new byte[sizeOf(value)];
+        write(result, 0, value);
+        return result;
+    }
+
+    private static int sizeOf(RlpType value) {
         if (value instanceof RlpString) {
-            return encodeString((RlpString) value);
+            return sizeOfString(((RlpString) value).getBytes());
         } else {
-            return encodeList((RlpList) value);
+            return sizeOfList(payloadSizeOf((RlpList) value));
+        }
+    }
+
+    private static int payloadSizeOf(RlpList value) {
+        int size = 0;
+        for (RlpType entry : value.getValues()) {
+            size += sizeOf(entry);
         }
+        return size;
     }
 
-    private static byte[] encode(byte[] bytesValue, int offset) {
-        if (bytesValue.length == 1
-                && offset == OFFSET_SHORT_STRING
-                && bytesValue[0] >= (byte) 0x00
-                && bytesValue[0] <= (byte) 0x7f) {
-            return bytesValue;
-        } else if (bytesValue.length <= 55) {
-            byte[] result = new byte[bytesValue.length + 1];
-            result[0] = (byte) (offset + bytesValue.length);
-            System.arraycopy(bytesValue, 0, result, 1, bytesValue.length);
-            return result;
+    private static int write(byte[] out, int pos, RlpType value) {
+        if (value instanceof RlpString) {
+            return writeString(out, pos, ((RlpString) value).getBytes());
         } else {
-            byte[] encodedStringLength = toMinimalByteArray(bytesValue.length);
-            byte[] result = new byte[bytesValue.length + encodedStringLength.length + 1];
-
-            result[0] = (byte) ((offset + 0x37) + encodedStringLength.length);
-            System.arraycopy(encodedStringLength, 0, result, 1, encodedStringLength.length);
-            System.arraycopy(
-                    bytesValue, 0, result, encodedStringLength.length + 1, bytesValue.length);
-            return result;
+            RlpList list = (RlpList) value;
+            pos = writeListPrefix(out, pos, payloadSizeOf(list));
+            for (RlpType entry : list.getValues()) {
+                pos = write(out, pos, entry);
+            }
+            return pos;
         }
     }
 
-    static byte[] encodeString(RlpString value) {
-        return encode(value.getBytes(), OFFSET_SHORT_STRING);
+    // The methods below encode fields directly, without building RlpString and RlpList
+    // objects. A caller sums the sizes of the items, allocates the output once, writes the
+    // list prefix for that payload size and then the items; each write returns the
+    // position following what it wrote.
+
+    /**
+     * Returns the encoded size of a string.
+     */
+    public static int sizeOfString(byte[] value) {
+        return sizeOfString(value, 0, value.length);
     }
 
-    private static byte[] toMinimalByteArray(int value) {
-        byte[] encoded = toByteArray(value);
+    /**
+     * Returns the encoded size of the string {@code data[offset, offset + length)}.
+     */
+    public static int sizeOfString(byte[] data, int offset, int length) {
+        if (length == 1 && (data[offset] & 0xff) < OFFSET_SHORT_STRING) {
+            return 1;
+        }
+        return prefixSize(length) + length;
+    }
 
-        for (int i = 0; i < encoded.length; i++) {
-            if (encoded[i] != 0) {
-                return Arrays.copyOfRange(encoded, i, encoded.length);
-            }
+    /**
+     * Returns the encoded size of an integer, taken as unsigned.
+     */
+    public static int sizeOfLong(long value) {
+        int length = byteLength(value);
+        return length == 1 && value < OFFSET_SHORT_STRING ? 1 : 1 + length;
+    }
+
+    /**
+     * Returns the encoded size of a list with the given payload size.
+     */
+    public static int sizeOfList(int payloadLength) {
+        return prefixSize(payloadLength) + payloadLength;
+    }
+
+    public static int writeString(byte[] out, int pos, byte[] value) {
+        return writeString(out, pos, value, 0, value.length);
+    }
+
+    /**
+     * Writes the string {@code data[offset, offset + length)}.
+     */
+    public static int writeString(byte[] out, int pos, byte[] data, int offset, int length) {
+        if (length == 1 && (data[offset] & 0xff) < OFFSET_SHORT_STRING) {
+            out[pos] = data[offset];
+            return pos + 1;
         }
+        pos = writePrefix(out, pos, OFFSET_SHORT_STRING, length);
+        System.arraycopy(data, offset, out, pos, length);
+        return pos + length;
+    }
 
-        return new byte[] {};
+    /**
+     * Writes an integer, taken as unsigned, as a minimal big-endian string; zero is the
+     * empty string.
+     */
+    public static int writeLong(byte[] out, int pos, long value) {
+        int length = byteLength(value);
+        if (length == 1 && value < OFFSET_SHORT_STRING) {
+            out[pos] = (byte) value;
+            return pos + 1;
+        }
+        out[pos++] = (byte) (OFFSET_SHORT_STRING + length);
+        for (int i = length - 1; i >= 0; i--) {
+            out[pos++] = (byte) (value >>> (8 * i));
+        }
+        return pos;
     }
 
-    private static byte[] toByteArray(int value) {
-        return new byte[] {
-            (byte) ((value >> 24) & 0xff),
-            (byte) ((value >> 16) & 0xff),
-            (byte) ((value >> 8) & 0xff),
-            (byte) (value & 0xff)
-        };
+    public static int writeListPrefix(byte[] out, int pos, int payloadLength) {
+        return writePrefix(out, pos, OFFSET_SHORT_LIST, payloadLength);
     }
 
-    static byte[] encodeList(RlpList value) {
-        List<RlpType> values = value.getValues();
-        if (values.isEmpty()) {
-            return encode(new byte[] {}, OFFSET_SHORT_LIST);
-        } else {
-            byte[] result = new byte[0];
-            for (RlpType entry : values) {
-                result = concat(result, encode(entry));
-            }
-            return encode(result, OFFSET_SHORT_LIST);
+    private static int prefixSize(int length) {
+        return length <= 55 ? 1 : 1 + byteLength(length);
+    }
+
+    private static int writePrefix(byte[] out, int pos, int offset, int length) {
+        if (length <= 55) {
+            out[pos] = (byte) (offset + length);
+            return pos + 1;
         }
+        int lengthOfLength = byteLength(length);
+        out[pos++] = (byte) (offset + 55 + lengthOfLength);
+        for (int i = lengthOfLength - 1; i >= 0; i--) {
+            out[pos++] = (byte) (length >>> (8 * i));
+        }
+        return pos;
     }
 
-    private static byte[] concat(byte[] b1, byte[] b2) {
-        byte[] result = Arrays.copyOf(b1, b1.length + b2.length);
-        System.arraycopy(b2, 0, result, b1.length, b2.length);
-        return result;
+    /**
+     * Returns the number of bytes of the minimal big-endian form of an unsigned value.
+     */
+    private static int byteLength(long value) {
+        int length = 0;
+        while (value != 0) {
+            length++;
+            value >>>= 8;
+        }
+        return length;
     }
 }
@@ -2,10 +2,21 @@ package org.aion.unity;
 
 import org.junit.Test;
 import org.spongycastle.util.encoders.Hex;
+import org.web3j.rlp.RlpDecoder;
+import org.web3j.rlp.RlpEncoder;
+import org.web3j.rlp.RlpList;
+import org.web3j.rlp.RlpString;
+import org.web3j.rlp.RlpType;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class AionBlockHeaderTest {
 
@@ -34,19 +45,132 @@ public class AionBlockHeaderTest {
         AionBlockHeader header = new AionBlockHeader(vector1);
         System.out.println(header);
 
-        assertEquals(1, header.version);
-        assertEquals(2, header.number);
-        assertEquals("6068a128093216a3c0bd9b8cecea132731b8d4fca67de87020b42965fd32a581", Hex.toHexString(header.parentHash));
-        assertEquals("bee628af072dde474c426e5062b2c5ad6888ad3221fe949a1962df918159ded2", Hex.toHexString(header.coinbase));
-        assertEquals("f2953aeb18a5bcb88220ecc0f2c5e222d932f09cc7a26f724276c67fb1c301a5", Hex.toHexString(header.stateRoot));
-        assertEquals("2e5def03d03e5e6a1b2b22c8185263920b36e056d4e7b1a0d9318764ce0758f3", Hex.toHexString(header.txTrieRoot));
-        assertEquals("90685796aa5ee0da1a7d27b5d43b7d52e9f8f2199f5d579489431524170d9828", Hex.toHexString(header.receiptTrieRoot));
-        assertEquals(3, new BigInteger(1, header.difficulty).intValue());
-        assertEquals(4, header.energyConsumed);
-        assertEquals(5, header.energyLimit);
-        assertEquals("64617461", Hex.toHexString(header.extraData));
-        assertEquals(6, header.timestamp);
-        assertEquals("7061727431", Hex.toHexString(header.nonce));
-        assertEquals("7061727432", Hex.toHexString(header.solution));
+        assertEquals(1, header.getVersion());
+        assertEquals(2, header.getNumber());
+        assertEquals("6068a128093216a3c0bd9b8cecea132731b8d4fca67de87020b42965fd32a581", Hex.toHexString(header.getParentHash()));
+        assertEquals("bee628af072dde474c426e5062b2c5ad6888ad3221fe949a1962df918159ded2", Hex.toHexString(header.getCoinbase()));
+        assertEquals("f2953aeb18a5bcb88220ecc0f2c5e222d932f09cc7a26f724276c67fb1c301a5", Hex.toHexString(header.getStateRoot()));
+        assertEquals("2e5def03d03e5e6a1b2b22c8185263920b36e056d4e7b1a0d9318764ce0758f3", Hex.toHexString(header.getTxTrieRoot()));
+        assertEquals("90685796aa5ee0da1a7d27b5d43b7d52e9f8f2199f5d579489431524170d9828", Hex.toHexString(header.getReceiptTrieRoot()));
+        assertEquals(3, new BigInteger(1, header.getDifficulty()).intValue());
+        assertEquals(4, header.getEnergyConsumed());
+        assertEquals(5, header.getEnergyLimit());
+        assertEquals("64617461", Hex.toHexString(header.getExtraData()));
+        assertEquals(6, header.getTimestamp());
+        assertEquals("7061727431", Hex.toHexString(header.getNonce()));
+        assertEquals("7061727432", Hex.toHexString(header.getSolution()));
+    }
+
+    @Test
+    public void testDecodeLargeNumber() {
+        byte[] logsBloom = new byte[256];
+        logsBloom[255] = 1;
+        byte[] solution = new byte[1408];
+        solution[0] = 2;
+
+        byte[] encoded = RlpEncoder.encode(new RlpList(
+                RlpString.create(1),
+                RlpString.create(1_000_000),
+                RlpString.create(new byte[32]),
+                RlpString.create(new byte[32]),
+                RlpString.create(new byte[32]),
+                RlpString.create(new byte[32]),
+                RlpString.create(new byte[32]),
+                RlpString.create(logsBloom),
+                RlpString.create(3),
+                RlpString.create(new byte[0]),
+                RlpString.create(4),
+                RlpString.create(5),
+                RlpString.create(0x5d5e5f60L),
+                RlpString.create(new byte[32]),
+                RlpString.create(solution)));
+        AionBlockHeader header = new AionBlockHeader(encoded);
+
+        assertEquals(1_000_000L, header.getNumber());
+        assertArrayEquals(logsBloom, header.getLogsBloom());
+        assertEquals(0, header.getExtraData().length);
+        assertEquals(0x5d5e5f60L, header.getTimestamp());
+        assertArrayEquals(solution, header.getSolution());
+    }
+
+    @Test
+    public void testEncoded() {
+        AionBlockHeader header = new AionBlockHeader(vector1);
+        assertArrayEquals(vector1, header.getEncoded());
+
+        // the seal is the last two fields
+        RlpList sealed = (RlpList) RlpDecoder.decode(vector1).getValues().get(0);
+        assertArrayEquals(RlpEncoder.encode(new RlpList(sealed.getValues().subList(0, 13))), header.getEncoded(false, false));
+        assertArrayEquals(RlpEncoder.encode(new RlpList(sealed.getValues().subList(0, 14))), header.getEncoded(true, false));
+    }
+
+    @Test
+    public void testEncodedNonCanonicalInteger() {
+        RlpList sealed = (RlpList) RlpDecoder.decode(vector1).getValues().get(0);
+        List<RlpType> fields = new ArrayList<>(sealed.getValues());
+
+        // the block number 2, with a leading zero
+        fields.set(1, RlpString.create(new byte[]{0, 2}));
+        AionBlockHeader header = new AionBlockHeader(RlpEncoder.encode(new RlpList(fields)));
+
+        assertEquals(2, header.getNumber());
+        assertArrayEquals(vector1, header.getEncoded());
+    }
+
+    @Test
+    public void testDecodePoS() {
+        RlpList sealed = (RlpList) RlpDecoder.decode(vector1).getValues().get(0);
+        List<RlpType> fields = new ArrayList<>(sealed.getValues().subList(0, 13));
+        fields.set(0, RlpString.create(AionBlockHeader.SEAL_TYPE_POS));
+        byte[] seed = new byte[64];
+        byte[] signature = new byte[64];
+        byte[] publicKey = new byte[32];
+        seed[0] = 1;
+        signature[0] = 2;
+        publicKey[0] = 3;
+        fields.add(RlpString.create(seed));
+        fields.add(RlpString.create(signature));
+        fields.add(RlpString.create(publicKey));
+        byte[] encoded = RlpEncoder.encode(new RlpList(fields));
+
+        AionBlockHeader header = new AionBlockHeader(encoded);
+        assertTrue(header.isPoS());
+        assertEquals(2, header.getNumber());
+        assertArrayEquals(seed, header.getSeed());
+        assertArrayEquals(signature, header.getSignature());
+        assertArrayEquals(publicKey, header.getSigningPublicKey());
+        assertArrayEquals(encoded, header.getEncoded());
+
+        assertFalse(new AionBlockHeader(vector1).isPoS());
+    }
+
+    @Test
+    public void testRejectNumberAboveLongRange() {
+        RlpList sealed = (RlpList) RlpDecoder.decode(vector1).getValues().get(0);
+        List<RlpType> fields = new ArrayList<>(sealed.getValues());
+
+        // the largest number which still fits
+        fields.set(1, RlpString.create(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, new AionBlockHeader(RlpEncoder.encode(new RlpList(fields))).getNumber());
+
+        // 2^63 is 8 bytes long, but would read as a negative number
+        fields.set(1, RlpString.create(BigInteger.ONE.shiftLeft(63)));
+        AionBlockHeader header = new AionBlockHeader(RlpEncoder.encode(new RlpList(fields)));
+        try {
+            header.getNumber();
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectTruncatedHeader() {
+        new AionBlockHeader(java.util.Arrays.copyOf(vector1, vector1.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectTrailingBytes() {
+        new AionBlockHeader(java.util.Arrays.copyOf(vector1, vector1.length + 1));
     }
 }
@@ -0,0 +1,111 @@
+package org.aion.unity;
+
+import org.aion.avm.core.dappreading.JarBuilder;
+import org.aion.avm.embed.AvmRule;
+import org.aion.avm.tooling.abi.ABICompiler;
+import org.junit.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Compares the energy used by contract methods against a checked-in budget.
+ * <p>
+ * The budget is a properties file of {@code method=energy} entries, loaded from the test
+ * resources. A method fails the check when it uses more energy than its budget plus the
+ * tolerance, in percent, which defaults to 5 and can be set with {@code -Denergy.tolerance}.
+ * A method without a budget fails as well, and so does a callable of the contract which was not
+ * measured, so a new method can't go unchecked.
+ * <p>
+ * The measured values are written to {@code target/energy/}; an intended change is accepted
+ * by copying that file over the budget.
+ */
+public class EnergyBudget {
+
+    private static final String DEFAULT_TOLERANCE = "5";
+
+    private final String name;
+    private final List<String> callables = new ArrayList<>();
+    private final Properties budget = new Properties();
+    private final Map<String, Long> measured = new TreeMap<>();
+
+    /**
+     * Loads the budget of a contract, from {@code <contract>EnergyBudget.properties}.
+     *
+     * @param contract   the main class of the contract
+     * @param unmeasured the callables which need no budget, e.g. callbacks measured as part
+     *                   of the calls which trigger them
+     */
+    public EnergyBudget(Class<?> contract, String... unmeasured) {
+        this.name = contract.getSimpleName() + "EnergyBudget.properties";
+        // the callables are listed by the ABI compiler, as @Callable is not retained at runtime
+        byte[] jar = JarBuilder.buildJarForMainAndClasses(contract);
+        for (String callable : ABICompiler.compileJarBytes(jar).getCallables()) {
+            // e.g. "public static void vote(Address)"
+            String method = callable.substring(0, callable.indexOf('('));
+            callables.add(method.substring(method.lastIndexOf(' ') + 1));
+        }
+        callables.removeAll(List.of(unmeasured));
+
+        try (InputStream in = EnergyBudget.class.getResourceAsStream(name)) {
+            if (in != null) {
+                budget.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records the energy used by a successful call. If a method is called more than once,
+     * the most expensive call counts.
+     */
+    public AvmRule.ResultWrapper record(String method, AvmRule.ResultWrapper result) {
+        Assert.assertTrue(method + " failed", result.getReceiptStatus().isSuccess());
+        measured.merge(method, result.getTransactionResult().energyUsed, Math::max);
+        return result;
+    }
+
+    public void verify() throws IOException {
+        Path output = Paths.get("target", "energy", name);
+        Files.createDirectories(output.getParent());
+        // sorted by method, so the file diffs cleanly against the budget it is copied over
+        List<String> lines = new ArrayList<>();
+        lines.add("# measured energy usage");
+        for (Map.Entry<String, Long> e : measured.entrySet()) {
+            lines.add(e.getKey() + "=" + e.getValue());
+        }
+        Files.write(output, lines);
+
+        double tolerance = Double.parseDouble(System.getProperty("energy.tolerance", DEFAULT_TOLERANCE));
+        List<String> failures = new ArrayList<>();
+        for (String method : callables) {
+            if (!measured.containsKey(method)) {
+                failures.add(method + " was not measured");
+            }
+        }
+        for (Map.Entry<String, Long> e : measured.entrySet()) {
+            String limit = budget.getProperty(e.getKey());
+            if (limit == null) {
+                failures.add(e.getKey() + " used " + e.getValue() + ", no budget");
+                continue;
+            }
+
+            long allowed = (long) (Long.parseLong(limit) * (1 + tolerance / 100));
+            if (e.getValue() > allowed) {
+                failures.add(e.getKey() + " used " + e.getValue() + ", budget " + limit + " (+" + tolerance + "%)");
+            }
+        }
+
+        Assert.assertTrue(String.join("\n", failures), failures.isEmpty());
+    }
+}
@@ -0,0 +1,28 @@
+package org.aion.unity;
+
+import avm.Address;
+import avm.Blockchain;
+import org.aion.avm.tooling.abi.Callable;
+
+/**
+ * A listener contract which accepts being added, and then rejects every coinbase address change
+ * while set to fail.
+ */
+public class FlakyListener {
+
+    private static boolean failing;
+
+    @Callable
+    public static void setFailing(boolean failing) {
+        FlakyListener.failing = failing;
+    }
+
+    @Callable
+    public static void onListenerAdded(Address staker) {
+    }
+
+    @Callable
+    public static void onCoinbaseAddressChange(Address staker, Address newAddress) {
+        Blockchain.require(!failing);
+    }
+}
@@ -0,0 +1,18 @@
+package org.aion.unity;
+
+import avm.Address;
+import org.aion.avm.tooling.abi.Callable;
+
+/**
+ * A listener contract which accepts being added, and then accepts every slashing.
+ */
+public class NoopListener {
+
+    @Callable
+    public static void onListenerAdded(Address staker) {
+    }
+
+    @Callable
+    public static void onSlashing(Address staker, long amount) {
+    }
+}
@@ -0,0 +1,103 @@
+package org.aion.unity;
+
+import avm.Address;
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import org.spongycastle.crypto.digests.Blake2bDigest;
+import org.web3j.rlp.RlpEncoder;
+import org.web3j.rlp.RlpList;
+import org.web3j.rlp.RlpString;
+import org.web3j.rlp.RlpType;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seals PoS block headers with a random Ed25519 key, as a staker's node would, so the
+ * slashing tests can submit evidence which {@link AionBlockHeader#getSigner()} accepts.
+ */
+public class PoSHeaderSigner {
+
+    private static final EdDSAParameterSpec ED25519 = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+
+    private final EdDSAPrivateKey privateKey;
+    private final byte[] publicKey;
+
+    // bumped for every header, so no two headers have the same hash
+    private long timestamp;
+
+    public PoSHeaderSigner() {
+        byte[] seed = new byte[32];
+        new SecureRandom().nextBytes(seed);
+        EdDSAPrivateKeySpec spec = new EdDSAPrivateKeySpec(seed, ED25519);
+        this.privateKey = new EdDSAPrivateKey(spec);
+        this.publicKey = spec.getA().toByteArray();
+    }
+
+    /**
+     * Returns the signing address of the key, to register the staker with.
+     */
+    public Address getSigningAddress() {
+        byte[] address = blake2b(publicKey);
+        address[0] = (byte) 0xa0;
+        return new Address(address);
+    }
+
+    /**
+     * Returns the encoding of a new header at the block number, sealed with the key.
+     */
+    public byte[] sign(long number) {
+        List<RlpType> fields = new ArrayList<>();
+        fields.add(RlpString.create(AionBlockHeader.SEAL_TYPE_POS));
+        fields.add(RlpString.create(number));
+        fields.add(RlpString.create(new byte[32]));  // parent hash
+        fields.add(RlpString.create(new byte[32]));  // coinbase
+        fields.add(RlpString.create(new byte[32]));  // state root
+        fields.add(RlpString.create(new byte[32]));  // tx trie root
+        fields.add(RlpString.create(new byte[32]));  // receipt trie root
+        fields.add(RlpString.create(new byte[256])); // logs bloom
+        fields.add(RlpString.create(1L));            // difficulty
+        fields.add(RlpString.create(new byte[0]));   // extra data
+        fields.add(RlpString.create(0L));            // energy consumed
+        fields.add(RlpString.create(15_000_000L));   // energy limit
+        fields.add(RlpString.create(++timestamp));
+        fields.add(RlpString.create(new byte[64]));  // seed
+
+        // the seal covers the header without the signature and the public key
+        byte[] signedHash = blake2b(RlpEncoder.encode(new RlpList(fields)));
+        fields.add(RlpString.create(sign(signedHash)));
+        fields.add(RlpString.create(publicKey));
+        return RlpEncoder.encode(new RlpList(fields));
+    }
+
+    /**
+     * Returns the hash of a header, as {@link AionBlockHeader#getHash()} computes it.
+     */
+    public static byte[] hash(byte[] header) {
+        return blake2b(header);
+    }
+
+    private byte[] sign(byte[] message) {
+        try {
+            EdDSAEngine engine = new EdDSAEngine(MessageDigest.getInstance(ED25519.getHashAlgorithm()));
+            engine.initSign(privateKey);
+            return engine.signOneShot(message);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] blake2b(byte[] data) {
+        Blake2bDigest digest = new Blake2bDigest(256);
+        digest.update(data, 0, data.length);
+        byte[] hash = new byte[32];
+        digest.doFinal(hash, 0);
+        return hash;
+    }
+}
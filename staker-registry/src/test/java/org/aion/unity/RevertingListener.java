@@ -0,0 +1,26 @@
+package org.aion.unity;
+
+import avm.Address;
+import avm.Blockchain;
+import org.aion.avm.tooling.abi.Callable;
+
+/**
+ * A listener contract which accepts being added, and then rejects every coinbase address change
+ * and slashing.
+ */
+public class RevertingListener {
+
+    @Callable
+    public static void onListenerAdded(Address staker) {
+    }
+
+    @Callable
+    public static void onCoinbaseAddressChange(Address staker, Address newAddress) {
+        Blockchain.revert();
+    }
+
+    @Callable
+    public static void onSlashing(Address staker, long amount) {
+        Blockchain.revert();
+    }
+}
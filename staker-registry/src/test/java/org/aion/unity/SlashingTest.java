@@ -1,14 +1,14 @@
 package org.aion.unity;
 
 import avm.Address;
-import org.aion.avm.tooling.AvmRule;
+import org.aion.avm.embed.AvmRule;
 import org.aion.avm.userlib.abi.ABIStreamingEncoder;
-import org.aion.vm.api.interfaces.ResultCode;
+import org.aion.types.Log;
+import org.aion.types.TransactionStatus;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
-import org.spongycastle.util.encoders.Hex;
 import org.web3j.rlp.RlpDecoder;
 import org.web3j.rlp.RlpEncoder;
 import org.web3j.rlp.RlpList;
@@ -16,6 +16,7 @@ import org.web3j.rlp.RlpString;
 import org.web3j.rlp.RlpType;
 
 import java.math.BigInteger;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 
@@ -30,6 +31,7 @@ public class SlashingTest {
     private Address preminedAddress;
 
     private Address stakerAddress; // TODO: separate identity, management and selfbond address
+    private PoSHeaderSigner signer = new PoSHeaderSigner();
     private Address signingAddress;
     private Address coinbaseAddress;
 
@@ -41,11 +43,11 @@ public class SlashingTest {
         preminedAddress = RULE.getPreminedAccount();
 
         stakerAddress = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
-        signingAddress = RULE.getRandomAddress(BigInteger.ZERO);
+        signingAddress = signer.getSigningAddress();
         coinbaseAddress = RULE.getRandomAddress(BigInteger.ZERO);
 
         // deploy the staker registry contract
-        byte[] jar = RULE.getDappBytes(StakerRegistry.class, null, AionBlockHeader.class, RlpDecoder.class, RlpEncoder.class, RlpList.class, RlpString.class, RlpType.class, Arrays.class, ByteArrayWrapper.class);
+        byte[] jar = RULE.getDappBytes(StakerRegistry.class, null, AionBlockHeader.class, RlpDecoder.class, RlpEncoder.class, RlpList.class, RlpString.class, RlpType.class, Arrays.class, StakerStorage.class, StakerRegistryEvents.class);
         stakerRegistry = RULE.deploy(preminedAddress, BigInteger.ZERO, jar).getDappAddress();
 
         // register the staker
@@ -58,16 +60,12 @@ public class SlashingTest {
                 .encodeOneAddress(stakerAddress)
                 .toBytes();
         AvmRule.ResultWrapper result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData);
-        ResultCode status = result.getReceiptStatus();
+        TransactionStatus status = result.getReceiptStatus();
         Assert.assertTrue(status.isSuccess());
     }
 
     @Test
     public void testSlash() {
-        int type = 1;
-        byte[] header = Hex.decode("f8dd0102a06068a128093216a3c0bd9b8cecea132731b8d4fca67de87020b42965fd32a581a0bee628af072dde474c426e5062b2c5ad6888ad3221fe949a1962df918159ded2a0f2953aeb18a5bcb88220ecc0f2c5e222d932f09cc7a26f724276c67fb1c301a5a02e5def03d03e5e6a1b2b22c8185263920b36e056d4e7b1a0d9318764ce0758f3a090685796aa5ee0da1a7d27b5d43b7d52e9f8f2199f5d579489431524170d9828a00000000000000000000000000000000000000000000000000000000000000000038464617461040506857061727431857061727432");
-        byte[][] headers = {header};
-
         // do a self-bond
         byte[] txData = new ABIStreamingEncoder()
                 .encodeOneString("vote")
@@ -76,15 +74,22 @@ public class SlashingTest {
         AvmRule.ResultWrapper result = RULE.call(stakerAddress, stakerRegistry, StakerRegistry.MIN_SELF_STAKE, txData);
         Assert.assertTrue(result.getReceiptStatus().isSuccess());
 
-        // submit a proof
+        // submit a proof, signed in the previous block
+        int type = 1;
+        byte[][] headers = {signer.sign(RULE.kernel.getBlockNumber())};
         txData = new ABIStreamingEncoder()
                 .encodeOneString("slash")
                 .encodeOneInteger(type)
                 .encodeOne2DByteArray(headers)
                 .toBytes();
-        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData, 5_000_000L, 1L);
         Assert.assertTrue(result.getReceiptStatus().isSuccess());
 
+        // the event carries the deducted amount
+        List<Log> logs = result.getLogs();
+        Assert.assertEquals(1, logs.size());
+        Assert.assertEquals(StakerRegistry.PENALTY_AMOUNT, new BigInteger(1, logs.get(0).copyOfData()));
+
         // query the stake
         txData = new ABIStreamingEncoder()
                 .encodeOneString("getStake")
@@ -93,7 +98,43 @@ public class SlashingTest {
                 .toBytes();
         result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
         Assert.assertTrue(result.getReceiptStatus().isSuccess());
-        assertEquals(StakerRegistry.MIN_SELF_STAKE.min(StakerRegistry.PENALTY_AMOUNT).longValue(), result.getDecodedReturnData());
+        assertEquals(StakerRegistry.MIN_SELF_STAKE.subtract(StakerRegistry.PENALTY_AMOUNT).longValue(), result.getDecodedReturnData());
+
+        // and the total stake
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getTotalStake")
+                .encodeOneAddress(stakerAddress)
+                .toBytes();
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        assertEquals(StakerRegistry.MIN_SELF_STAKE.subtract(StakerRegistry.PENALTY_AMOUNT).longValue(), result.getDecodedReturnData());
+    }
+
+    @Test
+    public void testRejectHeaderFromTheFuture() {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("vote")
+                .encodeOneAddress(stakerAddress)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(stakerAddress, stakerRegistry, StakerRegistry.MIN_SELF_STAKE, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        // every call is made in a new block
+        long blockNumber = RULE.kernel.getBlockNumber() + 1;
+        result = slash(signer.sign(blockNumber + 1));
+        Assert.assertTrue(result.getReceiptStatus().isFailed());
+
+        result = slash(signer.sign(blockNumber));
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+    }
+
+    private AvmRule.ResultWrapper slash(byte[] header) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("slash")
+                .encodeOneInteger(1)
+                .encodeOne2DByteArray(new byte[][]{header})
+                .toBytes();
+        return RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData, 5_000_000L, 1L);
     }
 
 }
@@ -0,0 +1,154 @@
+package org.aion.unity;
+
+import avm.Address;
+import org.aion.avm.embed.AvmRule;
+import org.aion.avm.tooling.ABIUtil;
+import org.aion.avm.userlib.abi.ABIStreamingEncoder;
+import org.aion.kernel.TestingState;
+import org.junit.Rule;
+import org.junit.Test;
+import org.web3j.rlp.RlpDecoder;
+import org.web3j.rlp.RlpEncoder;
+import org.web3j.rlp.RlpList;
+import org.web3j.rlp.RlpString;
+import org.web3j.rlp.RlpType;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs every callable of the staker registry in a canonical scenario, and checks the
+ * energy used against {@code StakerRegistryEnergyBudget.properties}. See {@link EnergyBudget}.
+ */
+public class StakerRegistryEnergyTest {
+
+    private static BigInteger ENOUGH_BALANCE_TO_TRANSACT = BigInteger.TEN.pow(18 + 5);
+
+    // enough to notify every listener of a slashing with the full listener energy limit
+    private static long SLASHING_ENERGY_LIMIT = 30_000_000L;
+
+    @Rule
+    public AvmRule RULE = new AvmRule(false);
+
+    private EnergyBudget budget = new EnergyBudget(StakerRegistry.class);
+
+    private Address preminedAddress = RULE.getPreminedAccount();
+    private Address stakerRegistry;
+
+    @Test
+    public void testEnergyBudget() throws IOException {
+        byte[] jar = RULE.getDappBytes(StakerRegistry.class, null,
+                AionBlockHeader.class, RlpDecoder.class, RlpEncoder.class, RlpList.class, RlpString.class, RlpType.class,
+                Arrays.class, StakerStorage.class, StakerRegistryEvents.class);
+        stakerRegistry = RULE.deploy(preminedAddress, BigInteger.ZERO, jar).getDappAddress();
+
+        Address staker = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address signingAddress = RULE.getRandomAddress(BigInteger.ZERO);
+        Address coinbaseAddress = RULE.getRandomAddress(BigInteger.ZERO);
+        Address otherStaker = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address voter = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        Address recipient = RULE.getRandomAddress(BigInteger.ZERO);
+        Address listener = RULE.getRandomAddress(BigInteger.ZERO);
+
+        // registration and voting
+        call("registerStaker", staker, BigInteger.ZERO, staker, staker, signingAddress, coinbaseAddress, staker);
+        call("registerStaker", otherStaker, BigInteger.ZERO, otherStaker, otherStaker,
+                RULE.getRandomAddress(BigInteger.ZERO), RULE.getRandomAddress(BigInteger.ZERO), otherStaker);
+        call("vote", staker, StakerRegistry.MIN_SELF_STAKE, staker);
+        call("vote", voter, BigInteger.valueOf(100L), staker);
+        call("addListener", staker, BigInteger.ZERO, staker, listener);
+
+        // slashing of a staker with the maximum of listeners, the last of which reverts
+        PoSHeaderSigner signer = new PoSHeaderSigner();
+        Address slashedStaker = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        call("registerStaker", slashedStaker, BigInteger.ZERO, slashedStaker, slashedStaker,
+                signer.getSigningAddress(), RULE.getRandomAddress(BigInteger.ZERO), slashedStaker);
+        call("vote", slashedStaker, StakerRegistry.MIN_SELF_STAKE, slashedStaker);
+        for (int i = 0; i < StakerRegistry.MAX_LISTENERS - 1; i++) {
+            call("addListener", slashedStaker, BigInteger.ZERO, slashedStaker, deploy(NoopListener.class));
+        }
+        Address revertingListener = deploy(RevertingListener.class);
+        call("addListener", slashedStaker, BigInteger.ZERO, slashedStaker, revertingListener);
+        byte[] header = signer.sign(RULE.kernel.getBlockNumber());
+        callWithEnergy("slash", SLASHING_ENERGY_LIMIT, 1, new byte[][]{header});
+        assertEquals(1L, callWithEnergy("getPendingNotifications", SLASHING_ENERGY_LIMIT, revertingListener).getDecodedReturnData());
+        callWithEnergy("deliverNotifications", SLASHING_ENERGY_LIMIT, revertingListener, 1);
+
+        // queries
+        call("getTotalStake", voter, BigInteger.ZERO, staker);
+        call("getStake", voter, BigInteger.ZERO, staker, voter);
+        call("isStaker", voter, BigInteger.ZERO, staker);
+        call("isActive", voter, BigInteger.ZERO, staker);
+        call("isListener", voter, BigInteger.ZERO, staker, listener);
+        call("getSigningAddress", voter, BigInteger.ZERO, staker);
+        call("getCoinbaseAddress", voter, BigInteger.ZERO, staker);
+        call("getEffectiveStake", voter, BigInteger.ZERO, signingAddress, coinbaseAddress);
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("getStakerInfo")
+                .encodeOneAddress(staker)
+                .encodeOneAddress(voter)
+                .encodeOneAddress(listener)
+                .toBytes();
+        budget.record("getStakerInfo", RULE.call(voter, stakerRegistry, BigInteger.ZERO, txData));
+
+        // un-votes and transfers
+        long unvote = (long) call("unvote", voter, BigInteger.ZERO, staker, 1L).getDecodedReturnData();
+        long unvoteTo = (long) call("unvoteTo", voter, BigInteger.ZERO, staker, 1L, recipient).getDecodedReturnData();
+        call("unvoteTo", voter, BigInteger.ZERO, staker, 1L, recipient);
+        call("unvoteTo", voter, BigInteger.ZERO, staker, 1L, voter);
+        long transfer = (long) call("transferStake", voter, BigInteger.ZERO, staker, otherStaker, 1L).getDecodedReturnData();
+        long transferTo = (long) call("transferStakeTo", voter, BigInteger.ZERO, staker, otherStaker, 1L, recipient).getDecodedReturnData();
+
+        // finalization, after the lock-up and cooling periods
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + Math.max(StakerRegistry.UNVOTE_LOCK_UP_PERIOD, StakerRegistry.SIGNING_ADDRESS_COOLING_PERIOD));
+        call("finalizeUnvote", voter, BigInteger.ZERO, unvote);
+        call("finalizeUnvotes", voter, BigInteger.ZERO, new long[]{unvoteTo});
+        call("finalizeAllMaturedUnvotes", voter, BigInteger.ZERO, recipient);
+        call("finalizeMaturedUnvotes", voter, BigInteger.ZERO, voter, 0L);
+        call("finalizeTransfer", voter, BigInteger.ZERO, transfer);
+        call("finalizeTransfers", voter, BigInteger.ZERO, new long[]{transferTo});
+
+        // management, with a listener to notify
+        call("setSigningAddress", staker, BigInteger.ZERO, staker, RULE.getRandomAddress(BigInteger.ZERO));
+        call("setCoinbaseAddress", staker, BigInteger.ZERO, staker, RULE.getRandomAddress(BigInteger.ZERO));
+        call("setSelfBondAddress", staker, BigInteger.ZERO, staker, RULE.getRandomAddress(BigInteger.ZERO));
+        call("setActive", staker, BigInteger.ZERO, staker, false);
+        call("removeListener", staker, BigInteger.ZERO, staker, listener);
+
+        // pruning, once the slashed header has left the evidence window
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + StakerRegistry.SLASHING_EVIDENCE_WINDOW + 1);
+        byte[][] hashes = {PoSHeaderSigner.hash(header)};
+        assertEquals(1, callWithEnergy("pruneSlashedHeaders", SLASHING_ENERGY_LIMIT, (Object) hashes).getDecodedReturnData());
+
+        budget.verify();
+    }
+
+    private AvmRule.ResultWrapper call(String method, Address from, BigInteger value, Object... args) {
+        byte[] txData = ABIUtil.encodeMethodArguments(method, args);
+        return budget.record(method, RULE.call(from, stakerRegistry, value, txData));
+    }
+
+    private AvmRule.ResultWrapper callWithEnergy(String method, long energyLimit, Object... args) {
+        byte[] txData = ABIUtil.encodeMethodArguments(method, args);
+        return budget.record(method, RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData, energyLimit, 1L));
+    }
+
+    private Address deploy(Class<?> contract) {
+        return RULE.deploy(preminedAddress, BigInteger.ZERO, RULE.getDappBytes(contract, null)).getDappAddress();
+    }
+
+    private void tweakBlockNumber(long number) {
+        try {
+            Field f = TestingState.class.getDeclaredField("blockNumber");
+            f.setAccessible(true);
+
+            f.set(RULE.kernel, number);
+
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -2,7 +2,11 @@ package org.aion.unity;
 
 import avm.Address;
 import org.aion.avm.embed.AvmRule;
+import org.aion.avm.userlib.abi.ABIDecoder;
 import org.aion.avm.userlib.abi.ABIStreamingEncoder;
+import org.aion.kernel.TestingState;
+import org.aion.types.AionAddress;
+import org.aion.types.Log;
 import org.aion.types.TransactionStatus;
 import org.junit.Assert;
 import org.junit.Before;
@@ -17,6 +21,7 @@ import org.web3j.rlp.RlpType;
 
 import java.lang.reflect.Field;
 import java.math.BigInteger;
+import java.util.List;
 
 
 public class StakerRegistryTest {
@@ -33,7 +38,7 @@ public class StakerRegistryTest {
     private Address coinbaseAddress;
 
     private Class[] otherClasses = {
-            AionBlockHeader.class, RlpDecoder.class, RlpEncoder.class, RlpList.class, RlpString.class, RlpType.class, Arrays.class, ByteArrayWrapper.class
+            AionBlockHeader.class, RlpDecoder.class, RlpEncoder.class, RlpList.class, RlpString.class, RlpType.class, Arrays.class, StakerStorage.class, StakerRegistryEvents.class
     };
     private Address stakerRegistry;
 
@@ -47,7 +52,7 @@ public class StakerRegistryTest {
         coinbaseAddress = RULE.getRandomAddress(BigInteger.ZERO);
 
         // deploy the staker registry contract
-        byte[] jar = RULE.getDappBytes(StakerRegistry.class, null, otherClasses,);
+        byte[] jar = RULE.getDappBytes(StakerRegistry.class, null, otherClasses);
         stakerRegistry = RULE.deploy(preminedAddress, BigInteger.ZERO, jar).getDappAddress();
 
         // register the staker
@@ -87,6 +92,46 @@ public class StakerRegistryTest {
         Assert.assertEquals(coinbaseAddress, result.getDecodedReturnData());
     }
 
+    @Test
+    public void testGetStakerInfo() {
+        vote(preminedAddress);
+
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("getStakerInfo")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(preminedAddress)
+                .encodeOneAddress(preminedAddress)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        ABIDecoder info = new ABIDecoder((byte[]) result.getDecodedReturnData());
+        Assert.assertEquals(signingAddress, info.decodeOneAddress());
+        Assert.assertEquals(coinbaseAddress, info.decodeOneAddress());
+        Assert.assertEquals(1L, info.decodeOneLong());
+        Assert.assertFalse(info.decodeOneBoolean());
+        Assert.assertEquals(1L, info.decodeOneLong());
+        Assert.assertFalse(info.decodeOneBoolean());
+
+        // without the optional fields
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getStakerInfo")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(null)
+                .encodeOneAddress(null)
+                .toBytes();
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        byte[] expected = new ABIStreamingEncoder()
+                .encodeOneAddress(signingAddress)
+                .encodeOneAddress(coinbaseAddress)
+                .encodeOneLong(1L)
+                .encodeOneBoolean(false)
+                .toBytes();
+        Assert.assertArrayEquals(expected, (byte[]) result.getDecodedReturnData());
+    }
+
     @Test
     public void testVoteAndUnvote() {
         long voteAmount = 1000L;
@@ -134,6 +179,24 @@ public class StakerRegistryTest {
         Assert.assertEquals(voteAmount - unvoteAmount, result.getDecodedReturnData());
     }
 
+    @Test
+    public void testVoteEvent() {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("vote")
+                .encodeOneAddress(stakerAddress)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.valueOf(1000L), txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        List<Log> logs = result.getLogs();
+        Assert.assertEquals(1, logs.size());
+        List<byte[]> topics = logs.get(0).copyOfTopics();
+        Assert.assertEquals(3, topics.size());
+        Assert.assertArrayEquals(stakerAddress.toByteArray(), topics.get(1));
+        Assert.assertArrayEquals(preminedAddress.toByteArray(), topics.get(2));
+        Assert.assertEquals(BigInteger.valueOf(1000L), new BigInteger(1, logs.get(0).copyOfData()));
+    }
+
     @Test
     public void testGetEffectiveStake() {
         BigInteger halfMinStake = StakerRegistry.MIN_SELF_STAKE.divide(BigInteger.valueOf(2));
@@ -221,7 +284,7 @@ public class StakerRegistryTest {
         Assert.assertTrue(status.isSuccess());
 
         // tweak the block number to skip the TRANSFER_LOCK_UP_PERIOD
-        tweakBlockNumber(1 + StakerRegistry.TRANSFER_LOCK_UP_PERIOD);
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + StakerRegistry.TRANSFER_LOCK_UP_PERIOD);
 
         // the recipient staker needs to finalize the transfer
         txData = new ABIStreamingEncoder()
@@ -268,7 +331,7 @@ public class StakerRegistryTest {
         TransactionStatus status = result.getReceiptStatus();
         Assert.assertFalse(status.isSuccess());
 
-        tweakBlockNumber(1L + StakerRegistry.SIGNING_ADDRESS_COOLING_PERIOD);
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + StakerRegistry.SIGNING_ADDRESS_COOLING_PERIOD);
 
         txData = new ABIStreamingEncoder()
                 .encodeOneString("setSigningAddress")
@@ -289,6 +352,317 @@ public class StakerRegistryTest {
         Assert.assertEquals(anotherAddress, result.getDecodedReturnData());
     }
 
+    @Test
+    public void testPreviousSigningAddress() {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("vote")
+                .encodeOneAddress(stakerAddress)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(stakerAddress, stakerRegistry, StakerRegistry.MIN_SELF_STAKE, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + StakerRegistry.SIGNING_ADDRESS_COOLING_PERIOD);
+        Address anotherAddress = RULE.getRandomAddress(BigInteger.ZERO);
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("setSigningAddress")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(anotherAddress)
+                .toBytes();
+        result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        // only the current signing address has an effective stake
+        Assert.assertEquals(0L, getEffectiveStake(signingAddress));
+        Assert.assertEquals(StakerRegistry.MIN_SELF_STAKE.longValue(), getEffectiveStake(anotherAddress));
+
+        // the previous signing address stays taken
+        Address anotherStaker = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("registerStaker")
+                .encodeOneAddress(anotherStaker)
+                .encodeOneAddress(anotherStaker)
+                .encodeOneAddress(signingAddress)
+                .encodeOneAddress(anotherStaker)
+                .encodeOneAddress(anotherStaker)
+                .toBytes();
+        result = RULE.call(anotherStaker, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertFalse(result.getReceiptStatus().isSuccess());
+    }
+
+    @Test
+    public void testRetiredSigningAddressCannotBeReused() {
+        Address anotherAddress = RULE.getRandomAddress(BigInteger.ZERO);
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + StakerRegistry.SIGNING_ADDRESS_COOLING_PERIOD);
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("setSigningAddress")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(anotherAddress)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        // the staker can't rotate back, even after the cooling period
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + StakerRegistry.SIGNING_ADDRESS_COOLING_PERIOD);
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("setSigningAddress")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(signingAddress)
+                .toBytes();
+        result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isFailed());
+
+        // nor can another staker take it over
+        Address anotherStaker = RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT);
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("registerStaker")
+                .encodeOneAddress(anotherStaker)
+                .encodeOneAddress(anotherStaker)
+                .encodeOneAddress(RULE.getRandomAddress(BigInteger.ZERO))
+                .encodeOneAddress(anotherStaker)
+                .encodeOneAddress(anotherStaker)
+                .toBytes();
+        result = RULE.call(anotherStaker, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + StakerRegistry.SIGNING_ADDRESS_COOLING_PERIOD);
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("setSigningAddress")
+                .encodeOneAddress(anotherStaker)
+                .encodeOneAddress(signingAddress)
+                .toBytes();
+        result = RULE.call(anotherStaker, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isFailed());
+
+        // the retired address still resolves to the staker for the blocks it signed
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getSigningAddress")
+                .encodeOneAddress(stakerAddress)
+                .toBytes();
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertEquals(anotherAddress, result.getDecodedReturnData());
+    }
+
+    private long getEffectiveStake(Address signingAddress) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("getEffectiveStake")
+                .encodeOneAddress(signingAddress)
+                .encodeOneAddress(coinbaseAddress)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        return (long) result.getDecodedReturnData();
+    }
+
+    @Test
+    public void testPruneSlashedHeaders() {
+        byte[][] hashes = {new byte[32], new byte[32]};
+        hashes[1][0] = 1;
+
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("pruneSlashedHeaders")
+                .encodeOne2DByteArray(hashes)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(0, result.getDecodedReturnData());
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("pruneSlashedHeaders")
+                .encodeOne2DByteArray(null)
+                .toBytes();
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isFailed());
+    }
+
+    @Test
+    public void testListenerLimit() {
+        for (int i = 0; i <= StakerRegistry.MAX_LISTENERS; i++) {
+            byte[] txData = new ABIStreamingEncoder()
+                    .encodeOneString("addListener")
+                    .encodeOneAddress(stakerAddress)
+                    .encodeOneAddress(RULE.getRandomAddress(BigInteger.ZERO))
+                    .toBytes();
+            AvmRule.ResultWrapper result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData);
+            Assert.assertEquals(i < StakerRegistry.MAX_LISTENERS, result.getReceiptStatus().isSuccess());
+        }
+    }
+
+    @Test
+    public void testDeliverNotifications() {
+        Address listener = RULE.getRandomAddress(BigInteger.ZERO);
+
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("addListener")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(listener)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        // the listener accepts the notification right away, given enough energy to call it
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("setCoinbaseAddress")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(RULE.getRandomAddress(BigInteger.ZERO))
+                .toBytes();
+        result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData, 5_000_000L, 1L);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("getPendingNotifications")
+                .encodeOneAddress(listener)
+                .toBytes();
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(0L, result.getDecodedReturnData());
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("deliverNotifications")
+                .encodeOneAddress(listener)
+                .encodeOneInteger(StakerRegistry.MAX_NOTIFICATION_BATCH)
+                .toBytes();
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(0, result.getDecodedReturnData());
+    }
+
+    @Test
+    public void testDropNotificationOfRevertingListener() {
+        byte[] jar = RULE.getDappBytes(RevertingListener.class, null);
+        Address listener = RULE.deploy(preminedAddress, BigInteger.ZERO, jar).getDappAddress();
+
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("addListener")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(listener)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        // the listener reverts, which doesn't stop the change; the notification is queued
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("setCoinbaseAddress")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(RULE.getRandomAddress(BigInteger.ZERO))
+                .toBytes();
+        result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData, 5_000_000L, 1L);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(1L, getPendingNotifications(listener));
+
+        // the failed call was the first attempt; it is retried until it runs out of attempts
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("deliverNotifications")
+                .encodeOneAddress(listener)
+                .encodeOneInteger(StakerRegistry.MAX_NOTIFICATION_BATCH)
+                .toBytes();
+        for (int i = 1; i < StakerRegistry.MAX_DELIVERY_ATTEMPTS - 1; i++) {
+            result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData, 5_000_000L, 1L);
+            Assert.assertTrue(result.getReceiptStatus().isSuccess());
+            Assert.assertEquals(0, result.getDecodedReturnData());
+            Assert.assertEquals(1L, getPendingNotifications(listener));
+            Assert.assertTrue(result.getLogs().isEmpty());
+        }
+
+        // too little energy to call the listener doesn't count as an attempt
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData, 1_000_000L, 1L);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(1L, getPendingNotifications(listener));
+
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData, 5_000_000L, 1L);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(0, result.getDecodedReturnData());
+        Assert.assertEquals(0L, getPendingNotifications(listener));
+        List<Log> logs = result.getLogs();
+        Assert.assertEquals(1, logs.size());
+        List<byte[]> topics = logs.get(0).copyOfTopics();
+        Assert.assertEquals(3, topics.size());
+        Assert.assertArrayEquals(listener.toByteArray(), topics.get(1));
+
+        // the next notification is not held back, and gets attempts of its own
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("setCoinbaseAddress")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(RULE.getRandomAddress(BigInteger.ZERO))
+                .toBytes();
+        result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData, 5_000_000L, 1L);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(1L, getPendingNotifications(listener));
+    }
+
+    @Test
+    public void testDeliveredNotificationLeavesNoAttempts() {
+        byte[] jar = RULE.getDappBytes(FlakyListener.class, null);
+        Address listener = RULE.deploy(preminedAddress, BigInteger.ZERO, jar).getDappAddress();
+
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("addListener")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(listener)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        // the first notification fails once, and is then delivered, which empties the queue
+        setFailing(listener, true);
+        changeCoinbaseAddress(5_000_000L);
+        Assert.assertEquals(1L, getPendingNotifications(listener));
+        setFailing(listener, false);
+        Assert.assertEquals(1, deliverNotifications(listener));
+        Assert.assertEquals(0L, getPendingNotifications(listener));
+
+        // the next notification is queued, without an attempt, at the position the first had
+        setFailing(listener, true);
+        changeCoinbaseAddress(1_000_000L);
+        Assert.assertEquals(1L, getPendingNotifications(listener));
+
+        // and is only dropped after failing all of its own attempts
+        for (int i = 1; i < StakerRegistry.MAX_DELIVERY_ATTEMPTS; i++) {
+            Assert.assertEquals(0, deliverNotifications(listener));
+            Assert.assertEquals(1L, getPendingNotifications(listener));
+        }
+        Assert.assertEquals(0, deliverNotifications(listener));
+        Assert.assertEquals(0L, getPendingNotifications(listener));
+    }
+
+    private void setFailing(Address listener, boolean failing) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("setFailing")
+                .encodeOneBoolean(failing)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, listener, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+    }
+
+    private void changeCoinbaseAddress(long energyLimit) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("setCoinbaseAddress")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneAddress(RULE.getRandomAddress(BigInteger.ZERO))
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(stakerAddress, stakerRegistry, BigInteger.ZERO, txData, energyLimit, 1L);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+    }
+
+    private int deliverNotifications(Address listener) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("deliverNotifications")
+                .encodeOneAddress(listener)
+                .encodeOneInteger(StakerRegistry.MAX_NOTIFICATION_BATCH)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData, 5_000_000L, 1L);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        return (int) result.getDecodedReturnData();
+    }
+
+    private long getPendingNotifications(Address listener) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("getPendingNotifications")
+                .encodeOneAddress(listener)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        return (long) result.getDecodedReturnData();
+    }
+
     @Test
     public void testSetCoinbaseAddress() {
         Address anotherAddress = RULE.getRandomAddress(BigInteger.ZERO);
@@ -353,7 +727,7 @@ public class StakerRegistryTest {
         Assert.assertFalse(status.isSuccess());
 
         // tweak the block number
-        tweakBlockNumber(1L + StakerRegistry.UNVOTE_LOCK_UP_PERIOD);
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + StakerRegistry.UNVOTE_LOCK_UP_PERIOD);
 
         // and, query again
         txData = new ABIStreamingEncoder()
@@ -365,13 +739,174 @@ public class StakerRegistryTest {
         Assert.assertTrue(status.isSuccess());
     }
 
+    @Test
+    public void testFinalizeUnvotes() {
+        Address recipient = RULE.getRandomAddress(BigInteger.ZERO);
+
+        // two unvotes to the same recipient
+        long[] ids = new long[3];
+        for (int i = 0; i < 2; i++) {
+            vote(preminedAddress);
+            byte[] txData = new ABIStreamingEncoder()
+                    .encodeOneString("unvoteTo")
+                    .encodeOneAddress(stakerAddress)
+                    .encodeOneLong(1L)
+                    .encodeOneAddress(recipient)
+                    .toBytes();
+            AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+            Assert.assertTrue(result.getReceiptStatus().isSuccess());
+            ids[i] = (long) result.getDecodedReturnData();
+        }
+        // plus an id which doesn't exist
+        ids[2] = ids[1] + 100;
+
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("finalizeUnvotes")
+                .encodeOneLongArray(ids)
+                .toBytes();
+
+        // still locked up, nothing is finalized
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(0, result.getDecodedReturnData());
+
+        tweakBlockNumber(RULE.kernel.getBlockNumber() + StakerRegistry.UNVOTE_LOCK_UP_PERIOD);
+
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(2, result.getDecodedReturnData());
+        Assert.assertEquals(BigInteger.valueOf(2L), RULE.kernel.getBalance(new AionAddress(recipient.toByteArray())));
+
+        // already finalized
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(0, result.getDecodedReturnData());
+    }
+
+    @Test
+    public void testFinalizeAllMaturedUnvotes() {
+        // the block number only moves when the test sets it
+        RULE.disableAutomaticBlockGeneration();
+        Address recipient = RULE.getRandomAddress(BigInteger.ZERO);
+        long blockNumber = RULE.kernel.getBlockNumber();
+
+        // two un-votes now, and one a block later
+        unvoteTo(recipient);
+        unvoteTo(recipient);
+        tweakBlockNumber(blockNumber + 1);
+        long lastId = unvoteTo(recipient);
+
+        // only the first two are matured
+        tweakBlockNumber(blockNumber + StakerRegistry.UNVOTE_LOCK_UP_PERIOD);
+
+        // no energy left above the reserve, nothing is finalized
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("finalizeMaturedUnvotes")
+                .encodeOneAddress(recipient)
+                .encodeOneLong(Long.MAX_VALUE)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(0, result.getDecodedReturnData());
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("finalizeAllMaturedUnvotes")
+                .encodeOneAddress(recipient)
+                .toBytes();
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(2, result.getDecodedReturnData());
+        Assert.assertEquals(BigInteger.valueOf(2L), RULE.kernel.getBalance(new AionAddress(recipient.toByteArray())));
+
+        // the last one, finalized by id, is skipped by the next sweep
+        tweakBlockNumber(blockNumber + 1 + StakerRegistry.UNVOTE_LOCK_UP_PERIOD);
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("finalizeUnvote")
+                .encodeOneLong(lastId)
+                .toBytes();
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        txData = new ABIStreamingEncoder()
+                .encodeOneString("finalizeAllMaturedUnvotes")
+                .encodeOneAddress(recipient)
+                .toBytes();
+        result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        Assert.assertEquals(0, result.getDecodedReturnData());
+        Assert.assertEquals(BigInteger.valueOf(3L), RULE.kernel.getBalance(new AionAddress(recipient.toByteArray())));
+    }
+
+    private long unvoteTo(Address recipient) {
+        vote(preminedAddress);
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("unvoteTo")
+                .encodeOneAddress(stakerAddress)
+                .encodeOneLong(1L)
+                .encodeOneAddress(recipient)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        return (long) result.getDecodedReturnData();
+    }
+
+    @Test
+    public void testEnergyIsIndependentOfVoterCount() {
+        int[] voterCounts = {10, 1_000};
+        long[] voteEnergy = new long[voterCounts.length];
+        long[] effectiveStakeEnergy = new long[voterCounts.length];
+
+        // a large stake first, so the encoded size of the total stake stays the same throughout
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("vote")
+                .encodeOneAddress(stakerAddress)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(preminedAddress, stakerRegistry, BigInteger.TEN.pow(18), txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+
+        int voters = 0;
+        for (int i = 0; i < voterCounts.length; i++) {
+            // grow the staker to the target number of voters
+            for (; voters < voterCounts[i]; voters++) {
+                vote(RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT));
+            }
+
+            voteEnergy[i] = vote(RULE.getRandomAddress(ENOUGH_BALANCE_TO_TRANSACT));
+            voters++;
+
+            txData = new ABIStreamingEncoder()
+                    .encodeOneString("getEffectiveStake")
+                    .encodeOneAddress(signingAddress)
+                    .encodeOneAddress(coinbaseAddress)
+                    .toBytes();
+            result = RULE.call(preminedAddress, stakerRegistry, BigInteger.ZERO, txData);
+            Assert.assertTrue(result.getReceiptStatus().isSuccess());
+            effectiveStakeEnergy[i] = result.getTransactionResult().energyUsed;
+        }
+
+        for (int i = 1; i < voterCounts.length; i++) {
+            Assert.assertEquals(voteEnergy[0], voteEnergy[i]);
+            Assert.assertEquals(effectiveStakeEnergy[0], effectiveStakeEnergy[i]);
+        }
+    }
+
+    private long vote(Address voter) {
+        byte[] txData = new ABIStreamingEncoder()
+                .encodeOneString("vote")
+                .encodeOneAddress(stakerAddress)
+                .toBytes();
+        AvmRule.ResultWrapper result = RULE.call(voter, stakerRegistry, BigInteger.ONE, txData);
+        Assert.assertTrue(result.getReceiptStatus().isSuccess());
+        return result.getTransactionResult().energyUsed;
+    }
+
     @Test
     public void name() {
     }
 
     public void tweakBlockNumber(long number) {
         try {
-            Field f = TestingKernel.class.getDeclaredField("blockNumber");
+            Field f = TestingState.class.getDeclaredField("blockNumber");
             f.setAccessible(true);
 
             f.set(RULE.kernel, number);
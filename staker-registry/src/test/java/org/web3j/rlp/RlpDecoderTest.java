@@ -0,0 +1,95 @@
+package org.web3j.rlp;
+
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RlpDecoderTest {
+
+    /**
+     * Records the walked items as "offset:length" for strings, "[offset:length" and "]" for lists.
+     */
+    private static class Recorder implements RlpDecoder.Visitor {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public boolean visit(int offset, int length, boolean isList) {
+            events.add((isList ? "[" : "") + offset + ":" + length);
+            return true;
+        }
+
+        @Override
+        public void endList() {
+            events.add("]");
+        }
+    }
+
+    @Test
+    public void testWalk() {
+        // ["cat", ["dog"], 0x0f, ""]
+        byte[] data = Hex.decode("cb83636174c483646f670f80");
+        Recorder recorder = new Recorder();
+        assertTrue(RlpDecoder.walk(data, 0, data.length, recorder));
+
+        String[] expected = {"[1:11", "2:3", "[6:4", "7:3", "]", "10:1", "12:0", "]"};
+        assertArrayEquals(expected, recorder.events.toArray());
+    }
+
+    @Test
+    public void testWalkLongString() {
+        byte[] data = new byte[2 + 56];
+        data[0] = (byte) 0xb8;
+        data[1] = 56;
+        Recorder recorder = new Recorder();
+        assertTrue(RlpDecoder.walk(data, 0, data.length, recorder));
+        assertEquals("2:56", recorder.events.get(0));
+    }
+
+    @Test
+    public void testDecode() {
+        byte[] data = Hex.decode("cb83636174c483646f670f80");
+        List<RlpType> values = ((RlpList) RlpDecoder.decode(data).getValues().get(0)).getValues();
+
+        assertEquals(4, values.size());
+        assertEquals("cat", new String(((RlpString) values.get(0)).getBytes()));
+        assertEquals("dog", new String(((RlpString) ((RlpList) values.get(1)).getValues().get(0)).getBytes()));
+        assertEquals(15, ((RlpString) values.get(2)).asPositiveBigInteger().intValue());
+        assertEquals(0, ((RlpString) values.get(3)).getBytes().length);
+    }
+
+    @Test
+    public void testRejectMalformed() {
+        String[] malformed = {
+                "83636174ff",       // fine string followed by a truncated long list
+                "836361",           // string longer than the input
+                "c383636174",       // item running past the end of its list
+                "8105",             // single byte below 0x80 with a prefix
+                "b80a0102",         // long form used for a short length
+                "b900380102",       // zero-padded length
+                "bbffffffff",       // length wider than a positive int
+                "bc0000000001"      // length of length wider than an int
+        };
+        for (String hex : malformed) {
+            byte[] data = Hex.decode(hex);
+            assertFalse(hex, RlpDecoder.walk(data, 0, data.length, new Recorder()));
+        }
+
+        byte[] nested = new byte[RlpDecoder.MAX_DEPTH + 2];
+        for (int i = 0; i < nested.length; i++) {
+            nested[i] = (byte) (0xc0 + nested.length - i - 1);
+        }
+        assertFalse(RlpDecoder.walk(nested, 0, nested.length, new Recorder()));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testDecodeMalformed() {
+        RlpDecoder.decode(Hex.decode("836361"));
+    }
+}
@@ -0,0 +1,90 @@
+package org.web3j.rlp;
+
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class RlpEncoderTest {
+
+    @Test
+    public void testEncodeString() {
+        assertEquals("80", Hex.toHexString(RlpEncoder.encode(RlpString.create(new byte[0]))));
+        assertEquals("0f", Hex.toHexString(RlpEncoder.encode(RlpString.create((byte) 0x0f))));
+        assertEquals("8180", Hex.toHexString(RlpEncoder.encode(RlpString.create((byte) 0x80))));
+        assertEquals("83636174", Hex.toHexString(RlpEncoder.encode(RlpString.create("cat"))));
+
+        byte[] longString = new byte[56];
+        byte[] encoded = RlpEncoder.encode(RlpString.create(longString));
+        assertEquals("b838", Hex.toHexString(encoded).substring(0, 4));
+        assertEquals(58, encoded.length);
+
+        byte[] longerString = new byte[1024];
+        encoded = RlpEncoder.encode(RlpString.create(longerString));
+        assertEquals("b90400", Hex.toHexString(encoded).substring(0, 6));
+        assertEquals(1027, encoded.length);
+    }
+
+    @Test
+    public void testEncodeInteger() {
+        assertEquals("80", Hex.toHexString(RlpEncoder.encode(RlpString.create(0))));
+        assertEquals("7f", Hex.toHexString(RlpEncoder.encode(RlpString.create(127))));
+        // BigInteger adds a sign byte, which must not be encoded
+        assertEquals("8180", Hex.toHexString(RlpEncoder.encode(RlpString.create(128))));
+        assertEquals("820400", Hex.toHexString(RlpEncoder.encode(RlpString.create(1024))));
+        assertEquals("88ffffffffffffffff",
+                Hex.toHexString(RlpEncoder.encode(RlpString.create(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE)))));
+    }
+
+    @Test
+    public void testEncodeList() {
+        assertEquals("c0", Hex.toHexString(RlpEncoder.encode(new RlpList())));
+        assertEquals("cb83636174c483646f670f80", Hex.toHexString(RlpEncoder.encode(new RlpList(
+                RlpString.create("cat"),
+                new RlpList(RlpString.create("dog")),
+                RlpString.create(15),
+                RlpString.create(new byte[0])))));
+
+        RlpString[] items = new RlpString[100];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = RlpString.create(i);
+        }
+        byte[] encoded = RlpEncoder.encode(new RlpList(items));
+        RlpList decoded = (RlpList) RlpDecoder.decode(encoded).getValues().get(0);
+        for (int i = 0; i < items.length; i++) {
+            assertEquals(items[i], decoded.getValues().get(i));
+        }
+    }
+
+    @Test
+    public void testWriteFields() {
+        byte[] hash = new byte[32];
+        hash[0] = 1;
+        long[] numbers = {0, 1, 127, 128, 0x5d5e5f60L, -1L};
+
+        int payload = RlpEncoder.sizeOfString(hash);
+        for (long n : numbers) {
+            payload += RlpEncoder.sizeOfLong(n);
+        }
+        byte[] encoded = new byte[RlpEncoder.sizeOfList(payload)];
+        int pos = RlpEncoder.writeListPrefix(encoded, 0, payload);
+        pos = RlpEncoder.writeString(encoded, pos, hash);
+        for (long n : numbers) {
+            pos = RlpEncoder.writeLong(encoded, pos, n);
+        }
+        assertEquals(encoded.length, pos);
+
+        byte[] expected = RlpEncoder.encode(new RlpList(
+                RlpString.create(hash),
+                RlpString.create(0),
+                RlpString.create(1),
+                RlpString.create(127),
+                RlpString.create(128),
+                RlpString.create(0x5d5e5f60L),
+                RlpString.create(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE))));
+        assertArrayEquals(expected, encoded);
+    }
+}